@@ -0,0 +1,75 @@
+package com.im.usermanagement.benchmark;
+
+import com.im.usermanagement.security.jwt.JwtTokenProvider;
+import com.im.usermanagement.security.jwt.JwtUtil;
+import com.im.usermanagement.security.jwt.SigningKeyRing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification (RS256). validateToken is measured with the verified-token cache
+ * disabled (0: full RSA signature check and claim parsing on every call) and enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    @Param({"0", "10000"})
+    public int verifiedCacheEntries;
+
+    private JwtTokenProvider tokenProvider;
+    private JwtUtil jwtUtil;
+    private Authentication authentication;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        SigningKeyRing keyRing = new SigningKeyRing(2048, 3_600_000, 60_000);
+        // No TokenVersionStore needed: the principal is not a User entity, so no version claim is looked up
+        tokenProvider = new JwtTokenProvider(keyRing, 3_600_000, verifiedCacheEntries, null, new SimpleMeterRegistry());
+        jwtUtil = new JwtUtil(keyRing, 3_600_000L);
+
+        List<SimpleGrantedAuthority> roles = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        userDetails = new User("bench@example.com", "unused", roles);
+        authentication = new UsernamePasswordAuthenticationToken(userDetails, null, roles);
+        token = tokenProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public String jwtUtilGenerateToken() {
+        return jwtUtil.generateToken(userDetails);
+    }
+}
@@ -0,0 +1,77 @@
+package com.im.usermanagement.benchmark;
+
+import com.im.usermanagement.UsermanagementApplication;
+import com.im.usermanagement.service.UserImportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * loadUserByUsername (the database part of every login) against an H2 fixture of {@link #USERS} users,
+ * with and without the second-level cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDetailsLookupBenchmark {
+
+    private static final int USERS = 1_000;
+
+    @Param({"true", "false"})
+    public boolean secondLevelCache;
+
+    private ConfigurableApplicationContext context;
+    private UserDetailsService userDetailsService;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        context = new SpringApplicationBuilder(UsermanagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:jmh-lookup;DB_CLOSE_DELAY=-1",
+                        "--app.cache.enabled=" + secondLevelCache,
+                        "--security.password.bcrypt-strength=4",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+        userDetailsService = context.getBean(UserDetailsService.class);
+
+        StringBuilder csv = new StringBuilder("email,firstName,lastName,password\n");
+        for (int i = 0; i < USERS; i++) {
+            csv.append("user").append(i).append("@example.com,First,Last,password").append(i).append('\n');
+        }
+        context.getBean(UserImportService.class).importUsers(
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), UserImportService.Format.CSV);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        return userDetailsService.loadUserByUsername("user" + ThreadLocalRandom.current().nextInt(USERS) + "@example.com");
+    }
+}
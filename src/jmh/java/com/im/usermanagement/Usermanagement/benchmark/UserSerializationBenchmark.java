@@ -0,0 +1,68 @@
+package com.im.usermanagement.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.im.usermanagement.dto.UserResponse;
+import com.im.usermanagement.model.Role;
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of returning the User entity (every UserDetails getter, the authorities serialized
+ * a second time next to the roles) versus UserResponse, the slim DTO the API returns, written by
+ * its hand-written serializer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private User user;
+    private UserResponse response;
+
+    @Setup
+    public void setUp() {
+        Role userRole = new Role();
+        userRole.setId(1L);
+        userRole.setName(RoleName.ROLE_USER);
+        Role adminRole = new Role();
+        adminRole.setId(2L);
+        adminRole.setName(RoleName.ROLE_ADMIN);
+
+        user = new User();
+        user.setId(42L);
+        user.setEmail("jane.doe@example.com");
+        user.setFirstName("Jane");
+        user.setLastName("Doe");
+        user.setPassword("{bcrypt}$2a$10$abcdefghijklmnopqrstuu5a3bh2m0wF9Zq6nQp9aQk1kA3n0w8fK");
+        user.setRoles(List.of(userRole, adminRole));
+
+        response = UserResponse.from(user);
+    }
+
+    @Benchmark
+    public byte[] entity() throws Exception {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] slimDto() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
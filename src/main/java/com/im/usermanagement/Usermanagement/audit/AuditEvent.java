@@ -0,0 +1,18 @@
+package com.im.usermanagement.audit;
+
+import java.time.Instant;
+
+/**
+ * One audit trail entry. Immutable, so it can be handed from the request thread to the writer as is.
+ * @param actor    who did it: the authenticated user, or the username given to login/register
+ * @param userId   the user the event is about, if known
+ * @param clientIp remote address of the HTTP request, null outside of a request
+ * @param detail   free text (e.g. why a login failed)
+ */
+public record AuditEvent(AuditEventType type,
+                         Instant occurredAt,
+                         String actor,
+                         Long userId,
+                         String clientIp,
+                         String detail) {
+}
@@ -0,0 +1,13 @@
+package com.im.usermanagement.audit;
+
+public enum AuditEventType {
+    USER_REGISTERED,
+    USER_CREATED,
+    USER_UPDATED,
+    USER_DELETED,
+    USERS_IMPORTED,
+    USERS_SYNCED,
+    LOGIN_SUCCEEDED,
+    LOGIN_FAILED,
+    REFRESH_TOKEN_REUSED
+}
@@ -0,0 +1,256 @@
+package com.im.usermanagement.audit;
+
+import com.im.usermanagement.support.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asynchronous audit trail. Callers only put the event in a bounded ring buffer (an array-backed
+ * queue); one background thread drains it in batches into the {@link AuditSink} (database table or
+ * rolling file), so auditing adds no I/O to the request.
+ *
+ * 1. Events recorded inside a transaction are only queued once it commits: a rolled back update
+ *    leaves no trace.
+ * 2. Backpressure: when the buffer is full the caller waits up to {@code publishTimeoutMs} for room,
+ *    then the event is dropped and counted (audit.events.dropped) rather than stalling requests.
+ * 3. Failed batches are retried a few times before being counted as lost (audit.events.failed).
+ * 4. On shutdown the writer drains everything accepted before the sink is closed. It stops after
+ *    the web server (lower phase), so events of the last in-flight requests are written too.
+ *
+ * Metrics: audit.events.published/written/dropped/failed, audit.queue.depth, audit.batch.size, audit.write.
+ */
+@Service
+public class AuditLog implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long POLL_MS = 100;
+
+    private final AuditSink sink;
+    private final BlockingQueue<AuditEvent> buffer;
+    private final int batchSize;
+    private final long publishTimeoutMs;
+    private final long shutdownTimeoutMs;
+
+    // Batches are written by the writer thread, and after stop() by late publishers
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicLong lastDropWarning = new AtomicLong();
+    private volatile boolean running;
+    private Thread writer;
+
+    private final Counter published;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+    private final DistributionSummary batchSizes;
+    private final Timer writeTimer;
+
+    public AuditLog(AuditSink sink,
+                    @Value("${audit.buffer-capacity:8192}") int capacity,
+                    @Value("${audit.batch-size:500}") int batchSize,
+                    @Value("${audit.publish-timeout-ms:20}") long publishTimeoutMs,
+                    @Value("${audit.shutdown-timeout-ms:10000}") long shutdownTimeoutMs,
+                    MeterRegistry meterRegistry) {
+        this.sink = sink;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.publishTimeoutMs = publishTimeoutMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+
+        this.published = eventCounter(meterRegistry, "audit.events.published", "Audit events accepted into the buffer");
+        this.written = eventCounter(meterRegistry, "audit.events.written", "Audit events stored by the sink");
+        this.dropped = eventCounter(meterRegistry, "audit.events.dropped", "Audit events refused because the buffer stayed full");
+        this.failed = eventCounter(meterRegistry, "audit.events.failed", "Audit events lost after the sink failed repeatedly");
+        this.batchSizes = DistributionSummary.builder("audit.batch.size")
+                .description("Events per batch handed to the sink")
+                .register(meterRegistry);
+        this.writeTimer = Timer.builder("audit.write")
+                .description("Time to store one batch in the sink")
+                .register(meterRegistry);
+        Gauge.builder("audit.queue.depth", buffer, BlockingQueue::size)
+                .description("Audit events waiting for the writer")
+                .register(meterRegistry);
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String name, String description) {
+        return Counter.builder(name).description(description).register(meterRegistry);
+    }
+
+    /**
+     * Records an event done by the authenticated caller.
+     */
+    public void record(AuditEventType type, Long userId, String detail) {
+        record(type, currentActor(), userId, detail);
+    }
+
+    /**
+     * Records an event done by {@code actor} (for calls made before anyone is authenticated).
+     * Never blocks longer than the publish timeout and never throws.
+     */
+    public void record(AuditEventType type, String actor, Long userId, String detail) {
+        // Captured now, on the request thread: after commit or on the writer they are gone
+        AuditEvent event = new AuditEvent(type, Instant.now(), actor, userId, currentClientIp(), detail);
+
+        AfterCommit.run(() -> publish(event));
+    }
+
+    private void publish(AuditEvent event) {
+        if (!running) {
+            // Shutting down (or not started yet): nobody drains the buffer, store it right away
+            write(List.of(event));
+            return;
+        }
+        try {
+            if (buffer.offer(event, publishTimeoutMs, TimeUnit.MILLISECONDS)) {
+                published.increment();
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        dropped.increment();
+        long now = System.currentTimeMillis();
+        long last = lastDropWarning.get();
+        if (now - last > 10_000 && lastDropWarning.compareAndSet(last, now)) {
+            log.warn("Audit buffer full, dropping events (see audit.events.dropped)");
+        }
+    }
+
+    private void drain() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            AuditEvent first;
+            try {
+                first = buffer.poll(POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                // Only stop() interrupts us: fall through to the final drain
+                first = buffer.poll();
+            }
+            if (first == null) {
+                if (!running) {
+                    return; // stopped and nothing left
+                }
+                continue;
+            }
+            // Whatever piled up meanwhile goes in the same batch
+            batch.add(first);
+            buffer.drainTo(batch, batchSize - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<AuditEvent> batch) {
+        writeLock.lock();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    long start = System.nanoTime();
+                    sink.write(batch);
+                    writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    batchSizes.record(batch.size());
+                    written.increment(batch.size());
+                    return;
+                } catch (Exception ex) {
+                    if (attempt == MAX_ATTEMPTS) {
+                        failed.increment(batch.size());
+                        log.error("Lost {} audit events after {} attempts", batch.size(), attempt, ex);
+                        return;
+                    }
+                    log.warn("Audit sink failed (attempt {}), retrying: {}", attempt, ex.getMessage());
+                    sleep(100L * attempt);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = new Thread(this::drain, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.join(shutdownTimeoutMs);
+            if (writer.isAlive()) {
+                log.error("Audit writer did not finish within {} ms, {} events not written",
+                        shutdownTimeoutMs, buffer.size());
+                writer.interrupt();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+        try {
+            sink.close();
+        } catch (Exception ex) {
+            log.warn("Could not close the audit sink", ex);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Started before and stopped after the web server (graceful shutdown runs at DEFAULT_PHASE - 1024)
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+
+    private static String currentClientIp() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servlet) {
+            HttpServletRequest request = servlet.getRequest();
+            return request.getRemoteAddr();
+        }
+        return null;
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
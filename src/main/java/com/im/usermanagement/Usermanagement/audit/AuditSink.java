@@ -0,0 +1,16 @@
+package com.im.usermanagement.audit;
+
+import java.util.List;
+
+/**
+ * Where the AuditLog writer thread puts batches of events. Only ever called from one thread at a time.
+ * A batch either fails as a whole (and is retried) or is durably stored.
+ */
+public interface AuditSink {
+
+    void write(List<AuditEvent> batch) throws Exception;
+
+    // Called once, after the last batch
+    default void close() throws Exception {
+    }
+}
@@ -0,0 +1,55 @@
+package com.im.usermanagement.audit;
+
+import com.im.usermanagement.model.AuditEntry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Inserts each batch into audit_events (see AuditEntry) with one JDBC batch in one transaction.
+ * Plain JDBC: the events never need to be entities, and nothing here should touch the
+ * persistence context or the second-level cache.
+ */
+@Component
+@ConditionalOnProperty(name = "audit.sink", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcAuditSink implements AuditSink {
+
+    private static final String INSERT = "insert into audit_events "
+            + "(event_type, occurred_at, actor, user_id, client_ip, detail) values (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcAuditSink(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void write(List<AuditEvent> batch) {
+        // All or nothing, so a retried batch is never stored twice
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT, batch, batch.size(),
+                (statement, event) -> {
+                    statement.setString(1, event.type().name());
+                    statement.setTimestamp(2, Timestamp.from(event.occurredAt()));
+                    statement.setString(3, truncate(event.actor(), AuditEntry.ACTOR_LENGTH));
+                    if (event.userId() == null) {
+                        statement.setNull(4, Types.BIGINT);
+                    } else {
+                        statement.setLong(4, event.userId());
+                    }
+                    statement.setString(5, event.clientIp());
+                    statement.setString(6, truncate(event.detail(), AuditEntry.DETAIL_LENGTH));
+                }));
+    }
+
+    private static String truncate(String value, int length) {
+        return value == null || value.length() <= length ? value : value.substring(0, length);
+    }
+}
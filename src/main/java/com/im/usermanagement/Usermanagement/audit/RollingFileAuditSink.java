@@ -0,0 +1,89 @@
+package com.im.usermanagement.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends each batch as NDJSON lines to a local file, written and forced to disk once per batch.
+ * When the file exceeds the size limit it is rolled: audit.log -> audit.log.1 -> audit.log.2 ...,
+ * keeping at most {@code maxFiles} old files.
+ */
+@Component
+@ConditionalOnProperty(name = "audit.sink", havingValue = "file")
+public class RollingFileAuditSink implements AuditSink {
+
+    private final Path file;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final ObjectWriter writer;
+
+    private FileChannel channel;
+    private OutputStream out;
+
+    public RollingFileAuditSink(@Value("${audit.file.path:logs/audit.log}") Path file,
+                                @Value("${audit.file.max-size-mb:10}") long maxSizeMb,
+                                @Value("${audit.file.max-files:10}") int maxFiles,
+                                ObjectMapper objectMapper) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.maxBytes = maxSizeMb * 1024 * 1024;
+        this.maxFiles = maxFiles;
+        this.writer = objectMapper.writer();
+        Files.createDirectories(this.file.getParent());
+        open();
+    }
+
+    @Override
+    public void write(List<AuditEvent> batch) throws IOException {
+        if (channel.size() >= maxBytes) {
+            roll();
+        }
+        // One buffer for the batch, one write and one fsync
+        StringBuilder lines = new StringBuilder(batch.size() * 160);
+        for (AuditEvent event : batch) {
+            lines.append(writer.writeValueAsString(event)).append('\n');
+        }
+        out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        out = Channels.newOutputStream(channel);
+    }
+
+    private void roll() throws IOException {
+        out.close();
+        Files.deleteIfExists(rolled(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            if (Files.exists(rolled(i))) {
+                Files.move(rolled(i), rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        open();
+    }
+
+    private Path rolled(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
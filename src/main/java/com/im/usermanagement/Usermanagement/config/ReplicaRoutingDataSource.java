@@ -0,0 +1,205 @@
+package com.im.usermanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections from the primary or from one of the read replicas:
+ * 1. read-only transactions (@Transactional(readOnly = true), and Spring Data's read methods) get the
+ *    next healthy replica in turn;
+ * 2. everything else goes to the primary, and so do the reads of a caller that must see its own
+ *    writes (ReplicaStickiness);
+ * 3. a replica that fails its health check, or fails to hand out a connection, is skipped until a
+ *    later check passes. With no replica left, reads fall back to the primary.
+ *
+ * The transaction's read-only flag is only known once it has begun: ReadReplicaConfig puts a
+ * LazyConnectionDataSourceProxy in front, so the route is chosen when the first statement runs.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final ReplicaStickiness stickiness;
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final int checkTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter writes;
+    private final Counter stickyReads;
+    private final Counter fallbackReads;
+
+    /**
+     * @param lagQuery      returns the replica's delay in seconds (NULL when it is not replicating);
+     *                      blank to only check that it answers
+     * @param maxLagSeconds a replica further behind than this is skipped
+     */
+    public ReplicaRoutingDataSource(HikariDataSource primary,
+                                    List<HikariDataSource> replicaPools,
+                                    ReplicaStickiness stickiness,
+                                    String lagQuery,
+                                    long maxLagSeconds,
+                                    int checkTimeoutSeconds,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.stickiness = stickiness;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+        this.checkTimeoutSeconds = checkTimeoutSeconds;
+
+        this.writes = routed(meterRegistry, primary.getPoolName(), "write");
+        this.stickyReads = routed(meterRegistry, primary.getPoolName(), "sticky");
+        this.fallbackReads = routed(meterRegistry, primary.getPoolName(), "fallback");
+        this.replicas = new ArrayList<>(replicaPools.size());
+        for (HikariDataSource pool : replicaPools) {
+            Replica replica = new Replica(pool, routed(meterRegistry, pool.getPoolName(), "read"));
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("1 while the replica passes its health checks and takes reads")
+                    .tag("pool", pool.getPoolName())
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .description("Replication delay reported by the last health check (NaN without a lag query)")
+                    .baseUnit("seconds")
+                    .tag("pool", pool.getPoolName())
+                    .register(meterRegistry);
+            replicas.add(replica);
+        }
+    }
+
+    private static Counter routed(MeterRegistry meterRegistry, String pool, String reason) {
+        return Counter.builder("datasource.connections.routed")
+                .description("Connections handed out, by pool and by why that pool was chosen")
+                .tag("pool", pool)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writes.increment();
+            return primary.getConnection();
+        }
+        if (stickiness.isSticky()) {
+            stickyReads.increment();
+            return primary.getConnection();
+        }
+        int count = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get((start + i) % count);
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                Connection connection = replica.pool.getConnection();
+                replica.reads.increment();
+                return connection;
+            } catch (SQLException ex) {
+                replica.markDown(ex.getMessage());
+            }
+        }
+        fallbackReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Credentials are configured per pool");
+    }
+
+    /**
+     * Checks every replica: it must answer and, with a lag query, be at most max-lag-seconds behind.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection()) {
+                if (lagQuery.isBlank()) {
+                    if (!connection.isValid(checkTimeoutSeconds)) {
+                        replica.markDown("connection is not valid");
+                        continue;
+                    }
+                    replica.markUp(Double.NaN);
+                    continue;
+                }
+                try (Statement statement = connection.createStatement()) {
+                    statement.setQueryTimeout(checkTimeoutSeconds);
+                    try (ResultSet rows = statement.executeQuery(lagQuery)) {
+                        boolean found = rows.next();
+                        long lag = found ? rows.getLong(1) : 0;
+                        if (!found || rows.wasNull()) {
+                            replica.markDown("not replicating");
+                        } else if (lag > maxLagSeconds) {
+                            replica.lagSeconds = lag;
+                            replica.markDown(lag + "s behind the primary");
+                        } else {
+                            replica.markUp(lag);
+                        }
+                    }
+                }
+            } catch (SQLException ex) {
+                replica.markDown(ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+        primary.close();
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource pool;
+        private final Counter reads;
+        // Not trusted before its first check
+        private volatile boolean healthy;
+        private volatile boolean checked;
+        private volatile double lagSeconds = Double.NaN;
+
+        private Replica(HikariDataSource pool, Counter reads) {
+            this.pool = pool;
+            this.reads = reads;
+        }
+
+        private void markUp(double lag) {
+            lagSeconds = lag;
+            checked = true;
+            if (!healthy) {
+                healthy = true;
+                log.info("Read replica {} is taking reads", pool.getPoolName());
+            }
+        }
+
+        private void markDown(String reason) {
+            if (healthy || !checked) {
+                healthy = false;
+                checked = true;
+                log.warn("Read replica {} is skipped until it passes a health check: {}", pool.getPoolName(), reason);
+            }
+        }
+    }
+}
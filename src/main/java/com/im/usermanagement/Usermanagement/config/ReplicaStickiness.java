@@ -0,0 +1,136 @@
+package com.im.usermanagement.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Read-your-writes for the read replicas (see ReplicaRoutingDataSource): once a caller has changed a
+ * user, its reads go to the primary for {@code app.datasource.replicas.stickiness-ms}, long enough for
+ * the replicas to catch up. Callers are told apart by their authenticated name; anonymous ones stick
+ * for the rest of the current request only.
+ *
+ * In memory and per instance, like the login throttle. Does nothing while replicas are disabled.
+ */
+@Component
+public class ReplicaStickiness {
+
+    private static final String WROTE_ATTRIBUTE = ReplicaStickiness.class.getName() + ".WROTE";
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final long stickinessNanos;
+    private final int maxCallers;
+    // Caller name -> System.nanoTime() of its last write
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReplicaStickiness(@Value("${app.datasource.replicas.enabled:false}") boolean enabled,
+                             @Value("${app.datasource.replicas.stickiness-ms:10000}") long stickinessMs,
+                             @Value("${app.datasource.replicas.max-sticky-callers:100000}") int maxCallers,
+                             MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.stickinessNanos = TimeUnit.MILLISECONDS.toNanos(stickinessMs);
+        this.maxCallers = maxCallers;
+        Gauge.builder("datasource.replica.sticky.callers", lastWrites, Map::size)
+                .description("Callers whose reads currently stay on the primary")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records that the current caller has just written: its next reads must see it.
+     */
+    public void markWrite() {
+        if (!enabled) {
+            return;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(WROTE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+        String caller = currentCaller();
+        if (caller == null) {
+            return;
+        }
+        if (lastWrites.size() >= maxCallers) {
+            evictExpired();
+        }
+        // Still full: this caller only sticks for the current request rather than growing the map
+        if (lastWrites.size() < maxCallers || lastWrites.containsKey(caller)) {
+            lastWrites.put(caller, System.nanoTime());
+        }
+    }
+
+    /**
+     * True if the current reads must go to the primary.
+     */
+    public boolean isSticky() {
+        if (PRIMARY_ONLY.get() != null) {
+            return true;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null && attributes.getAttribute(WROTE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            return true;
+        }
+        String caller = currentCaller();
+        if (caller == null) {
+            return false;
+        }
+        Long wroteAt = lastWrites.get(caller);
+        if (wroteAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - wroteAt < stickinessNanos) {
+            return true;
+        }
+        lastWrites.remove(caller, wroteAt);
+        return false;
+    }
+
+    /**
+     * Runs {@code read} with all its reads on the primary, for a lookup that must not miss a write
+     * the replicas may not have yet.
+     */
+    public <T> T onPrimary(Supplier<T> read) {
+        Boolean outer = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (outer == null) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(wroteAt -> now - wroteAt >= stickinessNanos);
+    }
+
+    private static String currentCaller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        // Every anonymous caller is "anonymousUser": they must not share one entry
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
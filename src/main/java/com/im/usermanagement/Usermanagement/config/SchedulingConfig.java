@@ -0,0 +1,11 @@
+package com.im.usermanagement.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background housekeeping (@Scheduled), e.g. evicting idle login throttle keys. The tasks share a pool of
+// spring.task.scheduling.pool.size threads, so a long directory sync doesn't hold back the short ones.
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
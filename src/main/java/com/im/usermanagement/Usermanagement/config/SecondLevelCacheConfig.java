@@ -0,0 +1,107 @@
+package com.im.usermanagement.config;
+
+import com.im.usermanagement.model.CacheRegions;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.management.CacheStatisticsMXBean;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Hibernate second-level cache for users and roles, backed by whichever JCache provider
+ * {@code app.cache.provider} names: Ehcache on the local heap by default, or an embedded Hazelcast
+ * member with the cache-distributed profile. Regions, bounds and TTLs live in the provider config
+ * ({@code app.cache.config}); Hibernate refuses to start if a region is missing from it.
+ *
+ * Hit/miss/eviction statistics of every region are published as cache.* metrics.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.cache.enabled", havingValue = "true")
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(@Value("${app.cache.provider}") String provider,
+                                                @Value("${app.cache.config}") Resource config) throws IOException {
+        return Caching.getCachingProvider(provider).getCacheManager(config.getURI(), getClass().getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            // No query cache: any write to app_user would invalidate every cached user query anyway,
+            // lookups by id and by email go through the entity and natural-id caches instead.
+            properties.put(AvailableSettings.USE_QUERY_CACHE, false);
+        };
+    }
+
+    /**
+     * Hits, misses, puts and evictions per region, read from the standard JCache statistics MBean.
+     * (Micrometer's JCacheMetrics looks the MBean up by cache manager URI, which Hazelcast leaves empty.)
+     */
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager secondLevelCacheManager) {
+        // Function counters only hold their source weakly: keep the MBean proxies reachable from the bean
+        List<CacheStatisticsMXBean> bound = new ArrayList<>();
+        return registry -> {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (String region : CacheRegions.ALL) {
+                // Statistics may already be on from the provider config; re-enabling resets them on Hazelcast
+                Set<ObjectName> names = server.queryNames(statisticsName(region), null);
+                if (names.isEmpty()) {
+                    secondLevelCacheManager.enableStatistics(region, true);
+                    names = server.queryNames(statisticsName(region), null);
+                }
+                if (names.isEmpty()) {
+                    continue;
+                }
+                CacheStatisticsMXBean stats = JMX.newMXBeanProxy(server, names.iterator().next(), CacheStatisticsMXBean.class);
+                bound.add(stats);
+                counter(registry, "cache.gets", region, stats, CacheStatisticsMXBean::getCacheHits, "result", "hit");
+                counter(registry, "cache.gets", region, stats, CacheStatisticsMXBean::getCacheMisses, "result", "miss");
+                counter(registry, "cache.puts", region, stats, CacheStatisticsMXBean::getCachePuts);
+                counter(registry, "cache.evictions", region, stats, CacheStatisticsMXBean::getCacheEvictions);
+                counter(registry, "cache.removals", region, stats, CacheStatisticsMXBean::getCacheRemovals);
+            }
+        };
+    }
+
+    private static ObjectName statisticsName(String region) {
+        try {
+            return new ObjectName("javax.cache:type=CacheStatistics,Cache=" + region + ",*");
+        } catch (MalformedObjectNameException ex) {
+            throw new IllegalArgumentException(ex);
+        }
+    }
+
+    private static void counter(MeterRegistry registry, String name, String region, CacheStatisticsMXBean stats,
+                                ToDoubleFunction<CacheStatisticsMXBean> value, String... tags) {
+        FunctionCounter.builder(name, stats, value)
+                .tags("cache", region, "layer", "hibernate")
+                .tags(tags)
+                .register(registry);
+    }
+}
@@ -0,0 +1,108 @@
+package com.im.usermanagement.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Where the time to the first served request goes, published as startup.phase{phase} (seconds) and
+ * startup.first.request (seconds since the JVM started), to compare releases:
+ * 1. jvm: JVM start to SpringApplication.run (JVM boot, class loading up to main);
+ * 2. context: run to context refreshed (beans, Hibernate, Flyway, web server);
+ * 3. runners: refreshed to ready (runners and startup listeners);
+ * 4. first-request: ready to the end of the first request served, actuator probes excluded.
+ *
+ * The individual startup steps are at /actuator/startup (see UsermanagementApplication).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StartupTimeline implements Filter {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimeline.class);
+
+    // Epoch milliseconds of each mark, 0 until reached
+    private final long jvmStartedAt = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private volatile long runStartedAt;
+    private volatile long contextStartedAt;
+    private volatile long readyAt;
+    private volatile long firstRequestAt;
+
+    public StartupTimeline(MeterRegistry meterRegistry) {
+        phase(meterRegistry, "jvm", timeline -> seconds(timeline.jvmStartedAt, timeline.runStartedAt));
+        phase(meterRegistry, "context", timeline -> seconds(timeline.runStartedAt, timeline.contextStartedAt));
+        phase(meterRegistry, "runners", timeline -> seconds(timeline.contextStartedAt, timeline.readyAt));
+        phase(meterRegistry, "first-request", timeline -> seconds(timeline.readyAt, timeline.firstRequestAt));
+        Gauge.builder("startup.first.request", this, timeline -> seconds(jvmStartedAt, firstRequestAt))
+                .description("Time from JVM start to the end of the first request served")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    private void phase(MeterRegistry meterRegistry, String phase, ToDoubleFunction<StartupTimeline> seconds) {
+        Gauge.builder("startup.phase", this, seconds)
+                .description("Duration of each startup phase, up to the first request served")
+                .baseUnit("seconds")
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onStarted(ApplicationStartedEvent event) {
+        contextStartedAt = event.getTimestamp();
+        runStartedAt = event.getTimestamp() - event.getTimeTaken().toMillis();
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        readyAt = event.getTimestamp();
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (firstRequestAt != 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // Liveness/readiness probes start before any traffic: they are not the first request
+            if (readyAt != 0 && !((HttpServletRequest) request).getRequestURI().startsWith("/actuator")) {
+                firstRequest(System.currentTimeMillis());
+            }
+        }
+    }
+
+    private synchronized void firstRequest(long now) {
+        if (firstRequestAt != 0) {
+            return;
+        }
+        firstRequestAt = now;
+        log.info("First request served {} s after JVM start (jvm {} s, context {} s, runners {} s, first request {} s)",
+                seconds(jvmStartedAt, firstRequestAt), seconds(jvmStartedAt, runStartedAt),
+                seconds(runStartedAt, contextStartedAt), seconds(contextStartedAt, readyAt),
+                seconds(readyAt, firstRequestAt));
+    }
+
+    private static double seconds(long from, long to) {
+        return from == 0 || to == 0 ? Double.NaN : (to - from) / 1000.0;
+    }
+}
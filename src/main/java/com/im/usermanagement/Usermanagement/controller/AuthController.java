@@ -1,19 +1,28 @@
 package com.im.usermanagement.controller;
 
-import ch.qos.logback.core.net.SMTPAppenderBase;
+import com.im.usermanagement.audit.AuditEventType;
+import com.im.usermanagement.audit.AuditLog;
+import com.im.usermanagement.exception.AccountLockedException;
 import com.im.usermanagement.model.Role;
 import com.im.usermanagement.model.RoleName;
 import com.im.usermanagement.model.User;
-import com.im.usermanagement.repository.RoleRepository;
 import com.im.usermanagement.repository.UserRepository;
+import com.im.usermanagement.search.UserSearchIndex;
 import com.im.usermanagement.security.dto.AuthResponseDTO;
 import com.im.usermanagement.security.dto.LoginRequestDTO;
+import com.im.usermanagement.security.dto.RefreshRequestDTO;
 import com.im.usermanagement.security.dto.RegisterRequestDTO;
 import com.im.usermanagement.security.jwt.JwtTokenProvider; // We'll create this next
+import com.im.usermanagement.security.ratelimit.LoginThrottle;
+import com.im.usermanagement.security.service.RefreshTokenService;
+import com.im.usermanagement.service.RoleRegistry;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -28,21 +37,33 @@ public class AuthController {
 
     private final AuthenticationManager authenticationManager;
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider; // We'll create this next
+    private final LoginThrottle loginThrottle;
+    private final RefreshTokenService refreshTokenService;
+    private final AuditLog auditLog;
+    private final UserSearchIndex searchIndex;
 
     // Inject all required dependencies
     public AuthController(AuthenticationManager authenticationManager,
                           UserRepository userRepository,
-                          RoleRepository roleRepository,
+                          RoleRegistry roleRegistry,
                           PasswordEncoder passwordEncoder,
-                          JwtTokenProvider tokenProvider) {
+                          JwtTokenProvider tokenProvider,
+                          LoginThrottle loginThrottle,
+                          RefreshTokenService refreshTokenService,
+                          AuditLog auditLog,
+                          UserSearchIndex searchIndex) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
+        this.roleRegistry = roleRegistry;
         this.passwordEncoder = passwordEncoder;
         this.tokenProvider = tokenProvider;
+        this.loginThrottle = loginThrottle;
+        this.refreshTokenService = refreshTokenService;
+        this.auditLog = auditLog;
+        this.searchIndex = searchIndex;
     }
 
     /**
@@ -51,25 +72,61 @@ public class AuthController {
      * @return JWT Token.
      */
     @PostMapping("/login")
-    public ResponseEntity<AuthResponseDTO> authenticateUser(@Valid @RequestBody LoginRequestDTO loginDTO) {
+    public ResponseEntity<AuthResponseDTO> authenticateUser(@Valid @RequestBody LoginRequestDTO loginDTO,
+                                                            HttpServletRequest request) {
+
+        // 0. Rate limit per client and per account before any hashing (429 when exceeded).
+        // getRemoteAddr is the proxy behind a load balancer: set server.forward-headers-strategy there.
+        loginThrottle.acquire(request.getRemoteAddr(), loginDTO.getUsername());
 
         // 1. Authenticate credentials using the AuthenticationManager
-        SMTPAppenderBase<Object> loginRequest = null;
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginRequest.getUsername(),
-                        loginDTO.getPassword()
-                )
-        );
+        // (a locked account fails in the pre-authentication checks, before the password is compared)
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            loginDTO.getUsername(),
+                            loginDTO.getPassword()
+                    )
+            );
+        } catch (BadCredentialsException ex) {
+            loginThrottle.recordFailure(loginDTO.getUsername());
+            auditLog.record(AuditEventType.LOGIN_FAILED, loginDTO.getUsername(), null, "bad credentials");
+            throw ex;
+        } catch (LockedException ex) {
+            auditLog.record(AuditEventType.LOGIN_FAILED, loginDTO.getUsername(), null, "account locked");
+            throw new AccountLockedException("Account is temporarily locked after repeated failed logins",
+                    loginThrottle.lockedForSeconds(loginDTO.getUsername()));
+        }
+        loginThrottle.recordSuccess(loginDTO.getUsername());
+        User principal = (User) authentication.getPrincipal();
+        auditLog.record(AuditEventType.LOGIN_SUCCEEDED, principal.getEmail(), principal.getId(), null);
 
         // 2. Set the authenticated user in the security context (optional, but good practice)
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        // 3. Generate the JWT token
+        // 3. Generate the JWT token, and a refresh token starting a new family
         String jwt = tokenProvider.generateToken(authentication);
+        String refreshToken = refreshTokenService.issue(principal);
 
         // 4. Return the JWT token to the client
-        return new ResponseEntity<>(new AuthResponseDTO(jwt), HttpStatus.OK);
+        return new ResponseEntity<>(new AuthResponseDTO(jwt, refreshToken), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint for renewing an expired access token without the password.
+     * @param refreshDTO The refresh token from the last login or refresh; it is spent by this call.
+     * @return A new access token and a new refresh token.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponseDTO> refreshToken(@Valid @RequestBody RefreshRequestDTO refreshDTO) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshDTO.getRefreshToken());
+
+        User user = rotation.user();
+        String jwt = tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+
+        return new ResponseEntity<>(new AuthResponseDTO(jwt, rotation.refreshToken()), HttpStatus.OK);
     }
 
     /**
@@ -81,7 +138,7 @@ public class AuthController {
     public ResponseEntity<?> registerUser(@Valid @RequestBody RegisterRequestDTO registerDTO) {
 
         // Check 1: Ensure email is not already in use
-        if (userRepository.findByEmail(registerDTO.getEmail()).isPresent()) {
+        if (userRepository.existsByEmail(registerDTO.getEmail())) {
             return new ResponseEntity<>("Email is already taken!", HttpStatus.BAD_REQUEST);
         }
 
@@ -94,14 +151,15 @@ public class AuthController {
         // HASH the password before saving!
         user.setPassword(passwordEncoder.encode(registerDTO.getPassword()));
 
-        // 3. Assign the default role (ROLE_USER)
-        Role roles = roleRepository.findByName(RoleName.ROLE_USER)
-                .orElseThrow(() -> new RuntimeException("Error: Role not found. Please initialize roles in DB."));
+        // 3. Assign the default role (ROLE_USER), served from memory by the RoleRegistry
+        Role roles = roleRegistry.get(RoleName.ROLE_USER);
 
         user.setRoles(Collections.singletonList(roles));
 
         // 4. Save the new user
         userRepository.save(user);
+        auditLog.record(AuditEventType.USER_REGISTERED, user.getEmail(), user.getId(), null);
+        searchIndex.put(user);
 
         return new ResponseEntity<>("User registered successfully!", HttpStatus.CREATED);
     }
@@ -0,0 +1,62 @@
+package com.im.usermanagement.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strong ETags derived from an entity's @Version: {@code "3"} for version 3.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Versions listed in an If-Match header, or null when there is no precondition
+     * (header absent, or "*" on a resource that exists).
+     * Weak or foreign tags can never match (If-Match compares strongly), so they are dropped:
+     * a header made only of those yields an empty list, i.e. always 412.
+     */
+    static List<Long> parseIfMatch(String header) {
+        if (header == null || header.isBlank() || header.trim().equals("*")) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        for (String tag : header.split(",")) {
+            tag = tag.trim();
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                try {
+                    versions.add(Long.parseLong(tag.substring(1, tag.length() - 1)));
+                } catch (NumberFormatException ignored) {
+                    // not one of ours
+                }
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * True if an If-None-Match header names this version ("*" included). The comparison is weak,
+     * as RFC 9110 requires for If-None-Match: W/"3" matches version 3.
+     */
+    static boolean matchesIfNoneMatch(String header, long version) {
+        if (header == null || header.isBlank()) {
+            return false;
+        }
+        String current = of(version);
+        for (String tag : header.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
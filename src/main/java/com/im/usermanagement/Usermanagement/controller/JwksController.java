@@ -0,0 +1,44 @@
+package com.im.usermanagement.controller;
+
+import com.im.usermanagement.security.jwt.SigningKeyRing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+
+/**
+ * Public keys for verifying our access tokens, so other services never need a secret or a call
+ * back to us per token. The document is prebuilt by the SigningKeyRing on rotation; clients cache
+ * it (Cache-Control) and revalidate cheaply with If-None-Match (304).
+ */
+@RestController
+public class JwksController {
+
+    private final SigningKeyRing keyRing;
+    private final CacheControl cacheControl;
+
+    public JwksController(SigningKeyRing keyRing,
+                          @Value("${jwt.jwks.max-age-seconds:900}") long maxAgeSeconds) {
+        this.keyRing = keyRing;
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+    }
+
+    // Maps to GET /.well-known/jwks.json
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> jwks(WebRequest request) {
+        String etag = keyRing.etag();
+        // Sets 304 Not Modified (and the ETag) on the response when the client's copy is current
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(keyRing.jwks());
+    }
+}
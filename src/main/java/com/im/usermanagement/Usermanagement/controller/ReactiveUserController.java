@@ -0,0 +1,72 @@
+package com.im.usermanagement.controller;
+
+import com.im.usermanagement.dto.UserResponse;
+import com.im.usermanagement.service.ReactiveUserService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking variant of the read endpoints of {@link UserController}, for high fan-out callers
+ * (the gateway). Returning Mono/Flux puts the request in async mode: the servlet thread goes back to
+ * the pool while the query runs, and a slow database costs pending requests, not threads.
+ *
+ * The listing is streamed as NDJSON one user at a time: the next row is only pulled from the
+ * database cursor once the previous one has been written to the client.
+ * Same authorization rules as the blocking endpoints.
+ */
+@RestController
+@RequestMapping("/api/v1/reactive/users")
+public class ReactiveUserController {
+
+    private final ReactiveUserService reactiveUserService;
+
+    public ReactiveUserController(ReactiveUserService reactiveUserService) {
+        this.reactiveUserService = reactiveUserService;
+    }
+
+    // --- 1. GET: Stream Users after a cursor, as NDJSON ---
+    // Maps to GET /api/v1/reactive/users?cursor=&limit=&active=
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("@authz.has(authentication, 'USER_LIST')")
+    public Flux<UserResponse> streamUsers(@RequestParam(required = false) Long cursor,
+                                          @RequestParam(defaultValue = "50") int limit,
+                                          @RequestParam(required = false) Boolean active) {
+        return reactiveUserService.streamUsers(cursor, limit, active);
+    }
+
+    // --- 2. GET: Retrieve User by ID ---
+    @GetMapping("/{id}")
+    @PreAuthorize("@authz.isSelfOr(authentication, #id, 'USER_READ')")
+    public Mono<ResponseEntity<UserResponse>> getUserById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return reactiveUserService.getUserById(id)
+                .map(found -> withETag(found.user(), found.version(), ifNoneMatch));
+    }
+
+    // --- 3. GET: Retrieve User by email ---
+    // Maps to GET /api/v1/reactive/users/by-email?email=
+    @GetMapping("/by-email")
+    @PreAuthorize("@authz.isSelfByEmailOr(authentication, #email, 'USER_READ')")
+    public Mono<ResponseEntity<UserResponse>> getUserByEmail(
+            @RequestParam String email,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return reactiveUserService.getUserByEmail(email)
+                .map(found -> withETag(found.user(), found.version(), ifNoneMatch));
+    }
+
+    // Same ETags as the blocking API; the client's copy is current: 304 Not Modified
+    private static ResponseEntity<UserResponse> withETag(UserResponse user, long version, String ifNoneMatch) {
+        String etag = EntityTags.of(version);
+        if (EntityTags.matchesIfNoneMatch(ifNoneMatch, version)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(user);
+    }
+}
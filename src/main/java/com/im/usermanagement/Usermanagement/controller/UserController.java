@@ -1,63 +1,140 @@
 package com.im.usermanagement.controller;
 
+import com.im.usermanagement.dto.ImportReport;
+import com.im.usermanagement.dto.UserFilter;
+import com.im.usermanagement.dto.UserPage;
+import com.im.usermanagement.dto.UserResponse;
+import com.im.usermanagement.dto.UserSearchHit;
+import com.im.usermanagement.model.RoleName;
 import com.im.usermanagement.model.User;
+import com.im.usermanagement.service.UserImportService;
 import com.im.usermanagement.service.UserService;
 import com.im.usermanagement.exception.ResourceNotFoundException;
 import com.im.usermanagement.exception.UserAlreadyExistsException;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus; // Used to set custom HTTP status codes
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity; // Wrapper for the response
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*; // Contains all HTTP mapping annotations
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
 
 @RestController // 1. Combines @Controller and @ResponseBody (returns JSON/XML)
 @RequestMapping("/api/v1/users") // 2. Base URL for all methods in this controller
 public class UserController {
 
     private final UserService userService; // Dependency on the Service Layer
+    private final UserImportService userImportService;
 
     // Constructor Injection (Spring automatically wires the UserService bean)
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserImportService userImportService) {
         this.userService = userService;
+        this.userImportService = userImportService;
     }
 
-    // --- 1. GET: Retrieve All Users ---
-    @GetMapping // Maps to GET /api/v1/users
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userService.getAllUsers();
-        // Returns the list of users with an HTTP 200 OK status
-        return ResponseEntity.ok(users);
+    // --- 1. GET: Retrieve Users, one keyset page at a time ---
+    // Maps to GET /api/v1/users?cursor=&limit=&active=&emailPrefix=&role=
+    @GetMapping
+    @PreAuthorize("@authz.has(authentication, 'USER_LIST')")
+    public ResponseEntity<UserPage<UserResponse>> getAllUsers(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) String emailPrefix,
+            @RequestParam(required = false) RoleName role) {
+        UserPage<UserResponse> page = userService.getUsersPage(cursor, limit, new UserFilter(active, emailPrefix, role));
+        // Returns the page with an HTTP 200 OK status; nextCursor is null on the last page
+        return ResponseEntity.ok(page);
+    }
+
+    // --- 1b. GET: Export all matching Users as NDJSON ---
+    // Maps to GET /api/v1/users/export, streamed from a DB cursor in constant memory
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("@authz.has(authentication, 'USER_EXPORT')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) String emailPrefix,
+            @RequestParam(required = false) RoleName role) {
+        UserFilter filter = new UserFilter(active, emailPrefix, role);
+        StreamingResponseBody body = out -> userService.exportUsers(filter, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // --- 1c. GET: Search Users by name or email ---
+    // Maps to GET /api/v1/users/search?q=&cursor=&limit=, ranked best first; prefixes and single typos match
+    @GetMapping("/search")
+    @PreAuthorize("@authz.has(authentication, 'USER_SEARCH')")
+    public ResponseEntity<UserPage<UserSearchHit>> searchUsers(
+            @RequestParam String q,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(userService.searchUsers(q, cursor, limit));
     }
 
     // --- 2. GET: Retrieve User by ID ---
     @GetMapping("/{id}") // Maps to GET /api/v1/users/{id} (e.g., /api/v1/users/1)
-    public ResponseEntity<User> getUserById(@PathVariable Long id) {
-        // The service method throws ResourceNotFoundException if user isn't found
+    @PreAuthorize("@authz.isSelfOr(authentication, #id, 'USER_READ')")
+    public ResponseEntity<UserResponse> getUserById(@PathVariable Long id, WebRequest request) {
+        // The service method throws ResourceNotFoundException if user isn't found.
+        // Mapped from the (second-level cached) entity rather than a projection query: warm reads run no SQL.
         User user = userService.getUserById(id);
-        return ResponseEntity.ok(user); // HTTP 200 OK
+        String etag = EntityTags.of(user.getVersion());
+        // The client's copy is current: 304 Not Modified, nothing to serialize
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(UserResponse.from(user)); // HTTP 200 OK
     }
 
     // --- 3. POST: Create a New User ---
     @PostMapping // Maps to POST /api/v1/users
-    public ResponseEntity<User> createUser(@RequestBody User user) {
+    @PreAuthorize("@authz.has(authentication, 'USER_CREATE')")
+    public ResponseEntity<UserResponse> createUser(@RequestBody User user) {
         User createdUser = userService.createUser(user);
-        // Returns the created user object with an HTTP 201 Created status
-        return new ResponseEntity<>(createdUser, HttpStatus.CREATED);
+        // Returns the created user with an HTTP 201 Created status
+        return new ResponseEntity<>(UserResponse.from(createdUser), HttpStatus.CREATED);
     }
 
     // --- 4. PUT: Update an Existing User ---
     @PutMapping("/{id}") // Maps to PUT /api/v1/users/{id}
-    public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody User userDetails) {
-        User updatedUser = userService.updateUser(id, userDetails);
-        return ResponseEntity.ok(updatedUser); // HTTP 200 OK
+    @PreAuthorize("@authz.isSelfOr(authentication, #id, 'USER_UPDATE')") // Self or admin
+    public ResponseEntity<UserResponse> updateUser(@PathVariable Long id,
+                                                   @RequestBody User userDetails,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        // With If-Match, only applied if nobody changed the user since the client read it (else 412)
+        User updatedUser = userService.updateUser(id, userDetails, EntityTags.parseIfMatch(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of(updatedUser.getVersion()))
+                .body(UserResponse.from(updatedUser)); // HTTP 200 OK
     }
 
     // --- 5. DELETE: Soft Delete a User ---
     @DeleteMapping("/{id}") // Maps to DELETE /api/v1/users/{id}
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
-        userService.softDeleteUser(id);
+    @PreAuthorize("@authz.has(authentication, 'USER_DELETE')") // Admin only
+    public ResponseEntity<Void> deleteUser(@PathVariable Long id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        userService.softDeleteUser(id, EntityTags.parseIfMatch(ifMatch));
         // Returns an empty response with an HTTP 204 No Content status (Success, no body needed)
         return ResponseEntity.noContent().build();
     }
+
+    // --- 6. POST: Bulk import Users from a CSV or NDJSON upload ---
+    // Maps to POST /api/v1/users/import; the body is streamed, never buffered whole
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("@authz.has(authentication, 'USER_IMPORT')")
+    public ResponseEntity<ImportReport> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                    InputStream body) throws IOException {
+        UserImportService.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? UserImportService.Format.NDJSON
+                : UserImportService.Format.CSV;
+        // Per-row outcomes are in the report; the request itself succeeds even if some rows didn't
+        return ResponseEntity.ok(userImportService.importUsers(body, format));
+    }
 }
\ No newline at end of file
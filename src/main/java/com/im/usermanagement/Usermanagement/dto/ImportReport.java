@@ -0,0 +1,52 @@
+package com.im.usermanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: totals per status, plus the rows that were not created.
+ * Created rows are only counted and at most {@code maxRows} rejected rows are listed, so the
+ * report stays the same size however large the upload is.
+ */
+@Data
+public class ImportReport {
+
+    private long total;
+    private long created;
+    private long duplicates;
+    private long invalid;
+    private long failed;
+    private long elapsedMs;
+    private List<ImportRowResult> rows = new ArrayList<>();
+    // More rows were rejected than listed
+    private boolean truncated;
+
+    @JsonIgnore
+    private final int maxRows;
+
+    public ImportReport(int maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    public void addCreated(int count) {
+        total += count;
+        created += count;
+    }
+
+    public void add(ImportRowResult row) {
+        total++;
+        switch (row.getStatus()) {
+            case DUPLICATE -> duplicates++;
+            case INVALID -> invalid++;
+            case FAILED -> failed++;
+        }
+        if (rows.size() < maxRows) {
+            rows.add(row);
+        } else {
+            truncated = true;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.im.usermanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A row of a bulk import that was not created (created rows are only counted, see ImportReport)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportRowResult {
+
+    public enum Status { DUPLICATE, INVALID, FAILED }
+
+    private long line;
+    private String email;
+    private Status status;
+    private String message;  // why the row was rejected
+}
@@ -0,0 +1,39 @@
+package com.im.usermanagement.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Outcome of one directory sync run: entries read and what happened to the users they map to.
+ */
+@Data
+public class LdapSyncReport {
+
+    public enum Mode { FULL, DELTA }
+
+    private Mode mode;
+    private long run;
+    private long pages;
+    private long read;
+    private long created;
+    private long updated;
+    private long unchanged;
+    private long reactivated;
+    private long deactivated;
+    private long promoted;
+    private long demoted;
+    // No email or names, or no entry id
+    private long skipped;
+    // Email already used by a user linked to another entry, or by a local account (unless adopted)
+    private long conflicts;
+    private Instant watermark;
+    private long elapsedMs;
+
+    // The audit detail: totals only
+    public String summary() {
+        return "mode=" + mode + ", read=" + read + ", created=" + created + ", updated=" + updated
+                + ", reactivated=" + reactivated + ", deactivated=" + deactivated + ", promoted=" + promoted
+                + ", demoted=" + demoted + ", skipped=" + skipped + ", conflicts=" + conflicts;
+    }
+}
@@ -0,0 +1,33 @@
+package com.im.usermanagement.dto;
+
+import com.im.usermanagement.model.RoleName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Optional filters shared by the paged listing and the NDJSON export.
+ * A null field means "don't filter on this".
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserFilter {
+
+    private Boolean active;
+    private String emailPrefix;
+    private RoleName role;
+
+    /**
+     * The email prefix as a LIKE pattern, with LIKE wildcards in the user input escaped.
+     */
+    public String emailPattern() {
+        if (emailPrefix == null || emailPrefix.isEmpty()) {
+            return null;
+        }
+        return emailPrefix
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+    }
+}
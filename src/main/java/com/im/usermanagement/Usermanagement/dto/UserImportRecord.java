@@ -0,0 +1,22 @@
+package com.im.usermanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+/**
+ * One row of a bulk import file (CSV or NDJSON).
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class UserImportRecord {
+
+    // 1-based line in the uploaded file, used to report per-row results
+    @JsonIgnore
+    private long line;
+
+    private String email;
+    private String firstName;
+    private String lastName;
+    private String password;
+}
@@ -0,0 +1,48 @@
+package com.im.usermanagement.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.im.usermanagement.model.Role;
+import com.im.usermanagement.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What the API returns for a user: no password hash, no UserDetails flags, roles as plain names.
+ * Written by {@link UserResponseSerializer}, without reflection.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonSerialize(using = UserResponseSerializer.class)
+public class UserResponse {
+
+    private Long id;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private boolean active;
+    private List<String> roles;
+
+    // JPQL constructor expression (UserRepository.findPageAfter); roles are added afterwards
+    public UserResponse(Long id, String email, String firstName, String lastName, boolean active) {
+        this(id, email, firstName, lastName, active, new ArrayList<>(2));
+    }
+
+    /**
+     * From an entity whose roles are already loaded.
+     */
+    public static UserResponse from(User user) {
+        List<String> roles = new ArrayList<>(user.getRoles() == null ? 0 : user.getRoles().size());
+        if (user.getRoles() != null) {
+            for (Role role : user.getRoles()) {
+                roles.add(role.getName().name());
+            }
+        }
+        return new UserResponse(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                user.isActive(), roles);
+    }
+}
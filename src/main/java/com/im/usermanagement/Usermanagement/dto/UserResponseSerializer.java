@@ -0,0 +1,61 @@
+package com.im.usermanagement.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Hand-written writer for {@link UserResponse}: fixed field order, field names encoded once,
+ * no bean introspection or per-property serializer lookups. Keep it in step with the fields.
+ */
+public class UserResponseSerializer extends StdSerializer<UserResponse> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString EMAIL = new SerializedString("email");
+    private static final SerializedString FIRST_NAME = new SerializedString("firstName");
+    private static final SerializedString LAST_NAME = new SerializedString("lastName");
+    private static final SerializedString ACTIVE = new SerializedString("active");
+    private static final SerializedString ROLES = new SerializedString("roles");
+
+    public UserResponseSerializer() {
+        super(UserResponse.class);
+    }
+
+    @Override
+    public void serialize(UserResponse user, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(user);
+
+        gen.writeFieldName(ID);
+        if (user.getId() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(user.getId());
+        }
+        gen.writeFieldName(EMAIL);
+        gen.writeString(user.getEmail());
+        gen.writeFieldName(FIRST_NAME);
+        gen.writeString(user.getFirstName());
+        gen.writeFieldName(LAST_NAME);
+        gen.writeString(user.getLastName());
+        gen.writeFieldName(ACTIVE);
+        gen.writeBoolean(user.isActive());
+
+        gen.writeFieldName(ROLES);
+        List<String> roles = user.getRoles();
+        if (roles == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartArray(roles, roles.size());
+            for (String role : roles) {
+                gen.writeString(role);
+            }
+            gen.writeEndArray();
+        }
+
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,21 @@
+package com.im.usermanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One ranked result of GET /api/v1/users/search, straight from the search index (no database read).
+ * Higher scores rank first: exact term over prefix over one-typo matches, names over email parts.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSearchHit {
+
+    private Long id;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private double score;
+}
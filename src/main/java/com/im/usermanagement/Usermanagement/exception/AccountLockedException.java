@@ -0,0 +1,16 @@
+package com.im.usermanagement.exception;
+
+// Account locked after repeated failed logins -> 401 Unauthorized with Retry-After
+public class AccountLockedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public AccountLockedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
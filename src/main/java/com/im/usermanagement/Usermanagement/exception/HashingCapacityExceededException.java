@@ -0,0 +1,8 @@
+package com.im.usermanagement.exception;
+
+// The password hashing pool is saturated -> 503 Service Unavailable with Retry-After
+public class HashingCapacityExceededException extends RuntimeException {
+    public HashingCapacityExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.im.usermanagement.exception;
+
+// The uploaded import file as a whole is unusable (bad header, unsupported format) -> 400 Bad Request.
+// Problems with individual rows are reported per row instead.
+public class InvalidImportException extends RuntimeException {
+    public InvalidImportException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.im.usermanagement.exception;
+
+// Unknown, expired, revoked or reused refresh token -> 401 Unauthorized
+public class InvalidRefreshTokenException extends RuntimeException {
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
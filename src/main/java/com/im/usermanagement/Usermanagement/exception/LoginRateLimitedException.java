@@ -0,0 +1,16 @@
+package com.im.usermanagement.exception;
+
+// Too many login attempts from one address or for one account -> 429 Too Many Requests with Retry-After
+public class LoginRateLimitedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginRateLimitedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,16 @@
+package com.im.usermanagement.exception;
+
+// If-Match names a version the resource no longer has -> 412 Precondition Failed with the current ETag
+public class PreconditionFailedException extends RuntimeException {
+
+    private final long currentVersion;
+
+    public PreconditionFailedException(String message, long currentVersion) {
+        super(message);
+        this.currentVersion = currentVersion;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
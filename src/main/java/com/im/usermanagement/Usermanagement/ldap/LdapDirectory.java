@@ -0,0 +1,153 @@
+package com.im.usermanagement.ldap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.ldap.control.PagedResultsDirContextProcessor;
+import org.springframework.ldap.core.ContextMapper;
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.support.DefaultIncrementalAttributesMapper;
+import org.springframework.ldap.core.support.SingleContextSource;
+import org.springframework.ldap.filter.AndFilter;
+import org.springframework.ldap.filter.Filter;
+import org.springframework.ldap.filter.GreaterThanOrEqualsFilter;
+import org.springframework.ldap.filter.HardcodedFilter;
+import org.springframework.stereotype.Component;
+
+import javax.naming.directory.SearchControls;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Reads people from the directory for {@link LdapUserSync}, a page at a time: the server hands out
+ * {@code pageSize} entries per round trip (simple paged results control), and each page is handed to
+ * the caller before the next one is requested, so a directory of any size is never held in memory.
+ *
+ * The base and the admin group DN are relative to spring.ldap.base; attribute names are configurable
+ * (Active Directory: objectGUID and whenChanged instead of entryUUID and modifyTimestamp).
+ */
+@Component
+@ConditionalOnProperty(name = "ldap.sync.enabled", havingValue = "true")
+class LdapDirectory {
+
+    private static final Logger log = LoggerFactory.getLogger(LdapDirectory.class);
+
+    private final LdapTemplate ldapTemplate;
+    private final String base;
+    private final String filter;
+    private final int pageSize;
+    private final String idAttribute;
+    private final String emailAttribute;
+    private final String firstNameAttribute;
+    private final String lastNameAttribute;
+    private final String modifiedAttribute;
+    private final String adminGroup;
+    private final String memberAttribute;
+
+    LdapDirectory(LdapTemplate ldapTemplate,
+                  @Value("${ldap.sync.base:}") String base,
+                  @Value("${ldap.sync.filter:(objectClass=inetOrgPerson)}") String filter,
+                  @Value("${ldap.sync.page-size:500}") int pageSize,
+                  @Value("${ldap.sync.attributes.id:entryUUID}") String idAttribute,
+                  @Value("${ldap.sync.attributes.email:mail}") String emailAttribute,
+                  @Value("${ldap.sync.attributes.first-name:givenName}") String firstNameAttribute,
+                  @Value("${ldap.sync.attributes.last-name:sn}") String lastNameAttribute,
+                  @Value("${ldap.sync.attributes.modified:modifyTimestamp}") String modifiedAttribute,
+                  @Value("${ldap.sync.admin-group:}") String adminGroup,
+                  @Value("${ldap.sync.admin-group-member-attribute:member}") String memberAttribute) {
+        this.ldapTemplate = ldapTemplate;
+        this.base = base;
+        this.filter = filter;
+        this.pageSize = pageSize;
+        this.idAttribute = idAttribute;
+        this.emailAttribute = emailAttribute;
+        this.firstNameAttribute = firstNameAttribute;
+        this.lastNameAttribute = lastNameAttribute;
+        this.modifiedAttribute = modifiedAttribute;
+        this.adminGroup = adminGroup;
+        this.memberAttribute = memberAttribute;
+    }
+
+    /**
+     * Hands every matching entry to {@code pageHandler}, one page at a time.
+     * @param modifiedSince only entries modified at or after this instant, or null for all of them
+     */
+    void forEachPage(Instant modifiedSince, Consumer<List<LdapUserEntry>> pageHandler) {
+        Filter search = new HardcodedFilter(filter);
+        if (modifiedSince != null) {
+            search = new AndFilter()
+                    .and(search)
+                    .and(new GreaterThanOrEqualsFilter(modifiedAttribute, LdapValues.formatGeneralizedTime(modifiedSince)));
+        }
+        String encoded = search.encode();
+
+        SearchControls controls = new SearchControls();
+        controls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+        // Operational attributes (entryUUID, modifyTimestamp) are only returned when asked for by name
+        controls.setReturningAttributes(new String[]{
+                idAttribute, emailAttribute, firstNameAttribute, lastNameAttribute, modifiedAttribute});
+
+        // The paging cookie is only valid on the connection that issued it
+        SingleContextSource.doWithSingleContext(ldapTemplate.getContextSource(), operations -> {
+            PagedResultsDirContextProcessor processor = new PagedResultsDirContextProcessor(pageSize);
+            do {
+                List<LdapUserEntry> page = operations.search(base, encoded, controls, entryMapper(), processor);
+                if (!page.isEmpty()) {
+                    pageHandler.accept(page);
+                }
+            } while (processor.hasMore());
+            return null;
+        });
+    }
+
+    /**
+     * Normalized DNs of the admin group's members, or null if no admin group is configured (roles
+     * are then left alone). Large groups are read in ranges where the server requires it (AD).
+     */
+    Set<String> adminMembers() {
+        if (adminGroup.isBlank()) {
+            return null;
+        }
+        List<Object> values = DefaultIncrementalAttributesMapper.lookupAttributeValues(
+                ldapTemplate, adminGroup, memberAttribute);
+        Set<String> members = new HashSet<>(values.size() * 2);
+        for (Object value : values) {
+            members.add(LdapValues.normalizeDn(value.toString()));
+        }
+        return members;
+    }
+
+    private ContextMapper<LdapUserEntry> entryMapper() {
+        return context -> {
+            DirContextAdapter entry = (DirContextAdapter) context;
+            return new LdapUserEntry(
+                    LdapValues.entryId(entry.getObjectAttribute(idAttribute)),
+                    LdapValues.normalizeDn(entry.getNameInNamespace()),
+                    trim(entry.getStringAttribute(emailAttribute)),
+                    trim(entry.getStringAttribute(firstNameAttribute)),
+                    trim(entry.getStringAttribute(lastNameAttribute)),
+                    modified(entry));
+        };
+    }
+
+    private Instant modified(DirContextAdapter entry) {
+        String value = entry.getStringAttribute(modifiedAttribute);
+        try {
+            return LdapValues.parseGeneralizedTime(value);
+        } catch (DateTimeParseException ex) {
+            // The entry is still synced, it just can't move the watermark
+            log.warn("Unreadable {} '{}' on {}", modifiedAttribute, value, entry.getNameInNamespace());
+            return null;
+        }
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+}
@@ -0,0 +1,26 @@
+package com.im.usermanagement.ldap;
+
+import java.time.Instant;
+
+/**
+ * The attributes of one directory person the sync maps onto a User.
+ * @param entryId  stable id of the entry (entryUUID / objectGUID)
+ * @param dn       normalized DN (see LdapValues.normalizeDn)
+ * @param modified modifyTimestamp (whenChanged on Active Directory), null if the server did not send it
+ */
+record LdapUserEntry(String entryId,
+                     String dn,
+                     String email,
+                     String firstName,
+                     String lastName,
+                     Instant modified) {
+
+    boolean isComplete() {
+        return entryId != null && !isBlank(email) && email.indexOf('@') > 0
+                && !isBlank(firstName) && !isBlank(lastName);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
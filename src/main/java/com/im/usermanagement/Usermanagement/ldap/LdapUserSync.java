@@ -0,0 +1,515 @@
+package com.im.usermanagement.ldap;
+
+import com.im.usermanagement.audit.AuditEventType;
+import com.im.usermanagement.audit.AuditLog;
+import com.im.usermanagement.config.ReplicaStickiness;
+import com.im.usermanagement.dto.LdapSyncReport;
+import com.im.usermanagement.dto.LdapSyncReport.Mode;
+import com.im.usermanagement.model.LdapEntryLink;
+import com.im.usermanagement.model.LdapSyncState;
+import com.im.usermanagement.model.Role;
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.repository.LdapEntryLinkRepository;
+import com.im.usermanagement.repository.LdapSyncStateRepository;
+import com.im.usermanagement.repository.UserRepository;
+import com.im.usermanagement.search.UserSearchIndex;
+import com.im.usermanagement.security.crypto.BoundedPasswordEncoder;
+import com.im.usermanagement.security.service.RefreshTokenService;
+import com.im.usermanagement.security.service.TokenVersionStore;
+import com.im.usermanagement.service.RoleRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Mirrors the people of a corporate directory into the user store.
+ *
+ * 1. The first run, and one run every {@code fullIntervalMs}, reads the whole directory. The runs in
+ *    between only read entries whose modifyTimestamp is at or after the watermark of the last
+ *    completed run.
+ * 2. Entries arrive a page at a time (see {@link LdapDirectory}) and each page is applied in one
+ *    transaction: a fixed handful of queries to find the users it maps to, then batched inserts and
+ *    updates. Users whose fields did not change are not written (their version, and ETag, stay).
+ * 3. Entries are matched to users through ldap_entries (stable entry id). An entry whose email is
+ *    already a local account's is a conflict and skipped, unless ldap.sync.adopt-local-accounts is on:
+ *    then the account is adopted (linked to the entry, its names and admin role follow the directory
+ *    from then on, its password keeps working).
+ * 4. A delta can't see deletions. After each full run, synced users whose entry was not read are
+ *    soft-deleted (isActive = false) like DELETE /api/v1/users/{id} does, tokens revoked included;
+ *    they are reactivated if the entry shows up again.
+ * 5. If an admin group is configured, membership decides ROLE_ADMIN for synced users on every run.
+ *
+ * A run that fails leaves the watermark where it was, so the next run reads the same entries again;
+ * applying an entry twice changes nothing. Runs are serialized within the instance, not across instances.
+ * Every read of a run goes to the primary (read replicas may not have the previous pages or runs yet).
+ *
+ * Synced users get a password hash nothing matches: password login is for local accounts only.
+ * Metrics: ldap.sync (timer, by mode), ldap.sync.entries (by outcome), ldap.sync.failures.
+ */
+@Service
+@ConditionalOnProperty(name = "ldap.sync.enabled", havingValue = "true")
+public class LdapUserSync {
+
+    private static final Logger log = LoggerFactory.getLogger(LdapUserSync.class);
+
+    static final String STATE = "users";
+    // Audit actor of the changes made by the sync
+    static final String ACTOR = "ldap-sync";
+    // Keeps IN lists well below database limits
+    private static final int IN_BATCH = 500;
+
+    private final LdapDirectory directory;
+    private final UserRepository userRepository;
+    private final LdapEntryLinkRepository linkRepository;
+    private final LdapSyncStateRepository stateRepository;
+    private final RoleRegistry roleRegistry;
+    private final TokenVersionStore tokenVersions;
+    private final RefreshTokenService refreshTokenService;
+    private final AuditLog auditLog;
+    private final UserSearchIndex searchIndex;
+    private final ReplicaStickiness replicaStickiness;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long fullIntervalMs;
+    private final long overlapSeconds;
+    private final boolean adoptLocalAccounts;
+
+    // One hash of a random, forgotten secret: no password ever matches it. Computed once instead of
+    // once per user, a BCrypt hash per entry would dominate a 100k entry first run.
+    private final String unusablePassword;
+
+    // A lock rather than 'synchronized': a run does LDAP and JDBC I/O, which would pin a virtual thread
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    private final MeterRegistry meterRegistry;
+    private final Counter failures;
+
+    public LdapUserSync(LdapDirectory directory,
+                        UserRepository userRepository,
+                        LdapEntryLinkRepository linkRepository,
+                        LdapSyncStateRepository stateRepository,
+                        RoleRegistry roleRegistry,
+                        TokenVersionStore tokenVersions,
+                        RefreshTokenService refreshTokenService,
+                        AuditLog auditLog,
+                        UserSearchIndex searchIndex,
+                        ReplicaStickiness replicaStickiness,
+                        EntityManager entityManager,
+                        PlatformTransactionManager transactionManager,
+                        PasswordEncoder passwordEncoder,
+                        MeterRegistry meterRegistry,
+                        @Value("${ldap.sync.page-size:500}") int batchSize,
+                        @Value("${ldap.sync.full-interval-ms:86400000}") long fullIntervalMs,
+                        @Value("${ldap.sync.overlap-seconds:60}") long overlapSeconds,
+                        @Value("${ldap.sync.adopt-local-accounts:false}") boolean adoptLocalAccounts) {
+        this.directory = directory;
+        this.userRepository = userRepository;
+        this.linkRepository = linkRepository;
+        this.stateRepository = stateRepository;
+        this.roleRegistry = roleRegistry;
+        this.tokenVersions = tokenVersions;
+        this.refreshTokenService = refreshTokenService;
+        this.auditLog = auditLog;
+        this.searchIndex = searchIndex;
+        this.replicaStickiness = replicaStickiness;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.fullIntervalMs = fullIntervalMs;
+        this.overlapSeconds = overlapSeconds;
+        this.adoptLocalAccounts = adoptLocalAccounts;
+        // Not through the bounded interactive pool: startup must not compete with logins for it
+        PasswordEncoder encoder = passwordEncoder instanceof BoundedPasswordEncoder bounded
+                ? bounded.getDelegate()
+                : passwordEncoder;
+        this.unusablePassword = encoder.encode(UUID.randomUUID().toString());
+
+        this.meterRegistry = meterRegistry;
+        this.failures = Counter.builder("ldap.sync.failures")
+                .description("Directory sync runs that failed")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${ldap.sync.interval-ms:300000}",
+            initialDelayString = "${ldap.sync.initial-delay-ms:60000}")
+    void scheduledSync() {
+        try {
+            sync();
+        } catch (RuntimeException ex) {
+            log.error("Directory sync failed, the next run starts from the same watermark", ex);
+        }
+    }
+
+    /**
+     * Runs a delta sync, or a full one if none has completed within the full interval.
+     */
+    public LdapSyncReport sync() {
+        return run(false);
+    }
+
+    /**
+     * Reads the whole directory, and soft-deletes the synced users whose entry is gone.
+     */
+    public LdapSyncReport fullSync() {
+        return run(true);
+    }
+
+    private LdapSyncReport run(boolean forceFull) {
+        runLock.lock();
+        try {
+            long start = System.nanoTime();
+            Instant startedAt = Instant.now();
+            // A replica behind the last run would hand out its run number again
+            LdapSyncState state = replicaStickiness.onPrimary(() -> stateRepository.findById(STATE)).orElseGet(() -> {
+                LdapSyncState initial = new LdapSyncState();
+                initial.setName(STATE);
+                return initial;
+            });
+            boolean full = forceFull
+                    || state.getWatermark() == null
+                    || state.getLastFullSyncAt() == null
+                    || state.getLastFullSyncAt().isBefore(startedAt.minusMillis(fullIntervalMs));
+
+            LdapSyncReport report = new LdapSyncReport();
+            report.setMode(full ? Mode.FULL : Mode.DELTA);
+            report.setRun(state.getRuns() + 1);
+
+            // Read first: a missing group must fail the run, not demote every admin
+            Set<String> admins = directory.adminMembers();
+
+            Instant[] newest = new Instant[1];
+            directory.forEachPage(full ? null : state.getWatermark(), page -> {
+                report.setPages(report.getPages() + 1);
+                report.setRead(report.getRead() + page.size());
+                transactionTemplate.executeWithoutResult(status -> applyPage(page, report));
+                for (LdapUserEntry entry : page) {
+                    if (entry.modified() != null && (newest[0] == null || entry.modified().isAfter(newest[0]))) {
+                        newest[0] = entry.modified();
+                    }
+                }
+            });
+
+            if (full) {
+                deactivateMissing(report);
+            }
+            if (admins != null) {
+                transactionTemplate.executeWithoutResult(status -> reconcileAdmins(admins, report));
+            }
+
+            state.setWatermark(nextWatermark(state.getWatermark(), newest[0], startedAt));
+            state.setRuns(report.getRun());
+            if (full) {
+                state.setLastFullSyncAt(startedAt);
+            }
+            stateRepository.save(state);
+
+            report.setWatermark(state.getWatermark());
+            report.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            record(report, System.nanoTime() - start);
+            auditLog.record(AuditEventType.USERS_SYNCED, ACTOR, null, report.summary());
+            log.info("Directory sync run {}: {} in {} ms", report.getRun(), report.summary(), report.getElapsedMs());
+            return report;
+        } catch (RuntimeException ex) {
+            failures.increment();
+            throw ex;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /*
+     * An entry modified while the run was reading other pages can carry an older timestamp than the
+     * newest one read: never move the watermark past the start of the run (minus the allowed clock
+     * difference with the directory server). Entries re-read because of the overlap change nothing.
+     */
+    private Instant nextWatermark(Instant current, Instant newest, Instant startedAt) {
+        if (newest == null) {
+            return current;
+        }
+        Instant limit = startedAt.minusSeconds(overlapSeconds);
+        Instant candidate = newest.isBefore(limit) ? newest : limit;
+        return current == null || candidate.isAfter(current) ? candidate : current;
+    }
+
+    private void applyPage(List<LdapUserEntry> page, LdapSyncReport report) {
+        List<LdapUserEntry> entries = new ArrayList<>(page.size());
+        Set<String> seen = new HashSet<>(page.size() * 2);
+        for (LdapUserEntry entry : page) {
+            if (entry.entryId() != null) {
+                // Still in the directory, even if it can't be mapped: not a reason to deactivate
+                seen.add(entry.entryId());
+            }
+            if (entry.isComplete()) {
+                entries.add(entry);
+            } else {
+                report.setSkipped(report.getSkipped() + 1);
+                log.debug("Skipping directory entry {}: id, email or names missing", entry.dn());
+            }
+        }
+
+        // 1. The links of the page's entries
+        Map<String, LdapEntryLink> linkByEntry = new HashMap<>(entries.size() * 2);
+        for (LdapEntryLink link : linkRepository.findAllById(seen)) {
+            linkByEntry.put(link.getEntryId(), link);
+        }
+        // 2. The users owning the page's emails (other synced users, or local accounts to adopt) and their links
+        Set<String> emails = new HashSet<>(entries.size() * 2);
+        entries.forEach(entry -> emails.add(entry.email()));
+        Map<String, User> userByEmail = new HashMap<>(entries.size() * 2);
+        Map<Long, User> userById = new HashMap<>(entries.size() * 2);
+        for (User user : userRepository.findAllByEmailIn(emails)) {
+            userByEmail.put(user.getEmail(), user);
+            userById.put(user.getId(), user);
+        }
+        Map<Long, LdapEntryLink> linkByUser = new HashMap<>(entries.size() * 2);
+        for (LdapEntryLink link : linkRepository.findByUserIdIn(userById.keySet())) {
+            linkByUser.put(link.getUserId(), link);
+        }
+        // 3. The users of the links (mostly from the second-level cache)
+        Set<Long> linkedIds = new HashSet<>();
+        for (LdapEntryLink link : linkByEntry.values()) {
+            linkByUser.put(link.getUserId(), link);
+            if (!userById.containsKey(link.getUserId())) {
+                linkedIds.add(link.getUserId());
+            }
+        }
+        for (User user : userRepository.findAllById(linkedIds)) {
+            userById.put(user.getId(), user);
+        }
+
+        for (LdapUserEntry entry : entries) {
+            LdapEntryLink link = linkByEntry.get(entry.entryId());
+            User user = link == null ? null : userById.get(link.getUserId());
+
+            // A linked user can't take an email someone else has. An unlinked entry may adopt a local
+            // account only if that is switched on (a matching email alone proves nothing about who owns
+            // the account), and never another entry's user, unless that entry has left the directory (the
+            // same person removed and re-created): then it takes the user over and reactivates it.
+            User owner = userByEmail.get(entry.email());
+            LdapEntryLink ownerLink = owner == null || owner == user ? null : linkByUser.get(owner.getId());
+            boolean takeOver = user == null && ownerLink != null && ownerLink.isDeactivatedBySync();
+            boolean adopt = user == null && owner != null && ownerLink == null && adoptLocalAccounts;
+            if (owner != null && owner != user && !takeOver && !adopt) {
+                report.setConflicts(report.getConflicts() + 1);
+                log.warn("Directory entry {} has the email {} of another user, skipped", entry.dn(), entry.email());
+                continue;
+            }
+
+            if (user == null && owner == null) {
+                user = newUser(entry);
+                entityManager.persist(user);
+                userByEmail.put(user.getEmail(), user);
+                relink(link, entry, user.getId(), linkByUser);
+                report.setCreated(report.getCreated() + 1);
+                searchIndex.put(user);
+                continue;
+            }
+            if (user == null) {
+                user = owner;
+                if (takeOver) {
+                    entityManager.remove(ownerLink);
+                    // Deletes are flushed after inserts: free user_id before the new link takes it
+                    entityManager.flush();
+                }
+                link = relink(link, entry, user.getId(), linkByUser);
+                link.setDeactivatedBySync(takeOver);
+            }
+            applyEntry(entry, user, link, userByEmail, report);
+        }
+
+        // Everything above as JDBC batches, then one statement marks the whole page as seen
+        entityManager.flush();
+        if (!seen.isEmpty()) {
+            linkRepository.markSeen(seen, report.getRun());
+        }
+        // Keep the session from growing with the directory
+        entityManager.clear();
+    }
+
+    private void applyEntry(LdapUserEntry entry, User user, LdapEntryLink link,
+                            Map<String, User> userByEmail, LdapSyncReport report) {
+        boolean changed = !Objects.equals(user.getEmail(), entry.email())
+                || !Objects.equals(user.getFirstName(), entry.firstName())
+                || !Objects.equals(user.getLastName(), entry.lastName());
+        if (changed) {
+            userByEmail.remove(user.getEmail());
+            user.setEmail(entry.email());
+            user.setFirstName(entry.firstName());
+            user.setLastName(entry.lastName());
+            userByEmail.put(user.getEmail(), user);
+        }
+
+        boolean reactivated = !user.isActive() && link.isDeactivatedBySync();
+        if (reactivated) {
+            user.setActive(true);
+            link.setDeactivatedBySync(false);
+            report.setReactivated(report.getReactivated() + 1);
+        }
+        if (!link.getDn().equals(entry.dn())) {
+            link.setDn(entry.dn());
+        }
+
+        if (changed) {
+            report.setUpdated(report.getUpdated() + 1);
+        } else if (!reactivated) {
+            report.setUnchanged(report.getUnchanged() + 1);
+        }
+        if ((changed || reactivated) && user.isActive()) {
+            searchIndex.put(user);
+        }
+    }
+
+    private User newUser(LdapUserEntry entry) {
+        User user = new User();
+        user.setEmail(entry.email());
+        user.setFirstName(entry.firstName());
+        user.setLastName(entry.lastName());
+        user.setPassword(unusablePassword);
+        // Admins are granted afterwards, from the group (reconcileAdmins)
+        user.setRoles(new ArrayList<>(List.of(roleRegistry.get(RoleName.ROLE_USER))));
+        return user;
+    }
+
+    // The link of a new entry, or of one whose user row was removed behind our back
+    private LdapEntryLink relink(LdapEntryLink link, LdapUserEntry entry, Long userId,
+                                 Map<Long, LdapEntryLink> linkByUser) {
+        if (link == null) {
+            link = newLink(entry, userId);
+        } else {
+            link.setUserId(userId);
+        }
+        linkByUser.put(userId, link);
+        return link;
+    }
+
+    private LdapEntryLink newLink(LdapUserEntry entry, Long userId) {
+        LdapEntryLink link = new LdapEntryLink();
+        link.setEntryId(entry.entryId());
+        link.setUserId(userId);
+        link.setDn(entry.dn());
+        entityManager.persist(link);
+        return link;
+    }
+
+    // Keyset over the synced users this run did not read, one transaction per batch
+    private void deactivateMissing(LdapSyncReport report) {
+        if (report.getRead() == 0) {
+            // A wrong base or filter (or an empty response) must not deactivate every synced user
+            log.warn("Full directory sync read no entries, nobody is deactivated (check ldap.sync.base and ldap.sync.filter)");
+            return;
+        }
+        long afterUserId = 0;
+        while (true) {
+            // Not from a replica: one that has not caught up with this run's markSeen sees every user as stale
+            long after = afterUserId;
+            List<Long> ids = replicaStickiness.onPrimary(
+                    () -> linkRepository.findStaleUserIds(report.getRun(), after, Limit.of(batchSize)));
+            if (ids.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> deactivate(ids));
+            report.setDeactivated(report.getDeactivated() + ids.size());
+            afterUserId = ids.get(ids.size() - 1);
+        }
+    }
+
+    // Same effects as UserService.softDeleteUser, for a batch
+    private void deactivate(List<Long> ids) {
+        for (User user : userRepository.findAllById(ids)) {
+            user.setActive(false);
+        }
+        linkRepository.markDeactivated(ids);
+        for (Long id : ids) {
+            tokenVersions.revokeAll(id);
+            refreshTokenService.revokeAll(id);
+            auditLog.record(AuditEventType.USER_DELETED, ACTOR, id, "removed from the directory");
+            searchIndex.remove(id);
+        }
+    }
+
+    private void reconcileAdmins(Set<String> adminDns, LdapSyncReport report) {
+        Set<Long> wanted = new HashSet<>();
+        List<String> dns = new ArrayList<>(adminDns);
+        for (int from = 0; from < dns.size(); from += IN_BATCH) {
+            for (LdapEntryLink link : linkRepository.findByDnIn(dns.subList(from, Math.min(dns.size(), from + IN_BATCH)))) {
+                wanted.add(link.getUserId());
+            }
+        }
+        Set<Long> current = new HashSet<>(linkRepository.findUserIdsWithRole(RoleName.ROLE_ADMIN));
+
+        Set<Long> promote = new HashSet<>(wanted);
+        promote.removeAll(current);
+        Set<Long> demote = new HashSet<>(current);
+        demote.removeAll(wanted);
+        if (promote.isEmpty() && demote.isEmpty()) {
+            return;
+        }
+
+        Role admin = roleRegistry.get(RoleName.ROLE_ADMIN);
+        for (User user : userRepository.findAllById(promote)) {
+            user.getRoles().add(admin);
+            auditLog.record(AuditEventType.USER_UPDATED, ACTOR, user.getId(), "roles");
+        }
+        for (User user : userRepository.findAllById(demote)) {
+            user.getRoles().removeIf(role -> role.getName() == RoleName.ROLE_ADMIN);
+            auditLog.record(AuditEventType.USER_UPDATED, ACTOR, user.getId(), "roles");
+        }
+        entityManager.flush();
+        // Tokens issued before carry the admin permissions
+        demote.forEach(tokenVersions::revokeAll);
+
+        report.setPromoted(promote.size());
+        report.setDemoted(demote.size());
+    }
+
+    private void record(LdapSyncReport report, long elapsedNanos) {
+        Timer.builder("ldap.sync")
+                .description("Directory sync runs")
+                .tag("mode", report.getMode().name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        count("created", report.getCreated());
+        count("updated", report.getUpdated());
+        count("unchanged", report.getUnchanged());
+        count("reactivated", report.getReactivated());
+        count("deactivated", report.getDeactivated());
+        count("promoted", report.getPromoted());
+        count("demoted", report.getDemoted());
+        count("skipped", report.getSkipped());
+        count("conflict", report.getConflicts());
+    }
+
+    private void count(String outcome, long amount) {
+        Counter.builder("ldap.sync.entries")
+                .description("Directory entries applied by the sync, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(amount);
+    }
+}
@@ -0,0 +1,68 @@
+package com.im.usermanagement.ldap;
+
+import org.springframework.ldap.support.LdapUtils;
+
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Conversions between directory attribute values and what the sync stores.
+ */
+final class LdapValues {
+
+    // GeneralizedTime as servers send it: "20261017145808Z", "20261017145808.123Z", "20261017165808+0200"
+    private static final DateTimeFormatter GENERALIZED_TIME = new DateTimeFormatterBuilder()
+            .appendPattern("uuuuMMddHHmmss")
+            .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).optionalEnd()
+            .appendOffset("+HHmm", "Z")
+            .toFormatter(Locale.ROOT);
+
+    // Whole seconds: every server accepts it in a filter, and >= on a truncated value only re-reads
+    private static final DateTimeFormatter FILTER_TIME = DateTimeFormatter.ofPattern("uuuuMMddHHmmss'Z'", Locale.ROOT)
+            .withZone(ZoneOffset.UTC);
+
+    private LdapValues() {
+    }
+
+    static Instant parseGeneralizedTime(String value) {
+        return value == null ? null : GENERALIZED_TIME.parse(value.trim(), Instant::from);
+    }
+
+    static String formatGeneralizedTime(Instant instant) {
+        return FILTER_TIME.format(instant.truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * "CN=Jane Doe, OU=People,DC=Bank" -> "cn=jane doe,ou=people,dc=bank": the form stored in
+     * ldap_entries.dn, so DNs written differently by the server still compare equal in SQL.
+     */
+    static String normalizeDn(String dn) {
+        LdapName name = LdapUtils.newLdapName(dn);
+        StringBuilder out = new StringBuilder(dn.length());
+        // LdapName lists RDNs right to left
+        for (int i = name.size() - 1; i >= 0; i--) {
+            Rdn rdn = name.getRdn(i);
+            if (out.length() > 0) {
+                out.append(',');
+            }
+            out.append(rdn.getType()).append('=').append(Rdn.escapeValue(rdn.getValue()));
+        }
+        return out.toString().toLowerCase(Locale.ROOT);
+    }
+
+    // entryUUID is a string, Active Directory's objectGUID comes as bytes
+    static String entryId(Object value) {
+        if (value instanceof byte[] bytes) {
+            return HexFormat.of().formatHex(bytes);
+        }
+        return value == null ? null : value.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,49 @@
+package com.im.usermanagement.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Row of the audit trail. Written only by JdbcAuditSink with batched plain JDBC, never through
+ * the EntityManager; mapped here so the table is part of the schema like every other one.
+ */
+@Entity
+@Table(name = "audit_events",
+        indexes = {
+                @Index(name = "ix_audit_events_user", columnList = "user_id"),
+                @Index(name = "ix_audit_events_occurred", columnList = "occurred_at")
+        })
+@Data
+@NoArgsConstructor
+public class AuditEntry {
+
+    public static final int ACTOR_LENGTH = 255;
+    public static final int DETAIL_LENGTH = 1000;
+
+    // Identity: the inserts come from JDBC batches that don't know about Hibernate sequences
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_type", nullable = false, length = 40)
+    private String eventType;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    @Column(length = ACTOR_LENGTH)
+    private String actor;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    // Long enough for an IPv6 address
+    @Column(name = "client_ip", length = 45)
+    private String clientIp;
+
+    @Column(length = DETAIL_LENGTH)
+    private String detail;
+}
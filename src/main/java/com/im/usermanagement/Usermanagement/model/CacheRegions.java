@@ -0,0 +1,20 @@
+package com.im.usermanagement.model;
+
+import java.util.List;
+
+/**
+ * Names of the Hibernate second-level cache regions.
+ * Each one must be configured (size, TTL) in ehcache.xml and hazelcast-cache.xml.
+ */
+public final class CacheRegions {
+
+    public static final String USERS = "users";
+    public static final String USERS_BY_EMAIL = "users-by-email";
+    public static final String USER_ROLES = "user-roles";
+    public static final String ROLES = "roles";
+
+    public static final List<String> ALL = List.of(USERS, USERS_BY_EMAIL, USER_ROLES, ROLES);
+
+    private CacheRegions() {
+    }
+}
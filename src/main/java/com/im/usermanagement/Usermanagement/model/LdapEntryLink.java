@@ -0,0 +1,45 @@
+package com.im.usermanagement.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Which directory entry a user is synced from (see LdapUserSync). Keyed by the entry's stable id
+ * (entryUUID / objectGUID), so renames and email changes in the directory update the same user.
+ * Users without a link are local accounts and are never touched by the sync.
+ */
+@Entity
+@Table(name = "ldap_entries",
+        indexes = {
+                @Index(name = "ux_ldap_entries_user", columnList = "user_id", unique = true),
+                // Admin group members are matched by DN
+                @Index(name = "ix_ldap_entries_dn", columnList = "dn"),
+                // Full sync: links not seen by the current run
+                @Index(name = "ix_ldap_entries_seen_run", columnList = "seen_run")
+        })
+@Data
+@NoArgsConstructor
+public class LdapEntryLink {
+
+    @Id
+    @Column(name = "entry_id", length = 64)
+    private String entryId;
+
+    // Plain id, not a relation: the sync loads users in bulk by id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Normalized (lower case, no spaces) so it can be compared with group member values in SQL
+    @Column(nullable = false, length = 512)
+    private String dn;
+
+    // Number of the last sync run that read this entry
+    @Column(name = "seen_run", nullable = false)
+    private long seenRun;
+
+    // Deactivated because the entry left the directory: reactivated if it comes back. Users
+    // deactivated through the API stay deactivated.
+    @Column(name = "deactivated_by_sync", nullable = false)
+    private boolean deactivatedBySync;
+}
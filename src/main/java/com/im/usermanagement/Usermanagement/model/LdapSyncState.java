@@ -0,0 +1,32 @@
+package com.im.usermanagement.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Progress of the directory sync, one row per synced source. Only written when a run completes,
+ * so a failed run is simply repeated from the same watermark.
+ */
+@Entity
+@Table(name = "ldap_sync_state")
+@Data
+@NoArgsConstructor
+public class LdapSyncState {
+
+    @Id
+    @Column(length = 40)
+    private String name;
+
+    // Delta runs fetch entries modified at or after this instant; null until the first full run
+    private Instant watermark;
+
+    @Column(name = "last_full_sync_at")
+    private Instant lastFullSyncAt;
+
+    // Number of completed runs, also the seen_run marker of the next one
+    @Column(nullable = false)
+    private long runs;
+}
@@ -0,0 +1,67 @@
+package com.im.usermanagement.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A refresh token, stored as the SHA-256 of its value (the token itself is only ever sent to the client).
+ * Each refresh rotates the token: the used one is marked rotated and a new one is issued in the same
+ * family. Presenting a rotated token again means it was stolen (or replayed), and revokes the family.
+ * A family ends at the absolute lifetime measured from its first token, after which the user logs in again.
+ */
+@Entity
+@Table(name = "refresh_tokens",
+        indexes = {
+                // Refresh: the one lookup per call
+                @Index(name = "ux_refresh_tokens_hash", columnList = "token_hash", unique = true),
+                // Revoke everything of a user / of a family, purge by expiry
+                @Index(name = "ix_refresh_tokens_user", columnList = "user_id"),
+                @Index(name = "ix_refresh_tokens_family", columnList = "family_id"),
+                @Index(name = "ix_refresh_tokens_expires", columnList = "expires_at")
+        })
+@Data
+@NoArgsConstructor
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refresh_tokens_seq")
+    @SequenceGenerator(name = "refresh_tokens_seq", sequenceName = "refresh_tokens_seq", allocationSize = 50)
+    private Long id;
+
+    // Base64url SHA-256 of the token value
+    @Column(name = "token_hash", nullable = false, length = 43)
+    private String tokenHash;
+
+    // Plain id, not a relation: the refresh path reads the user from the second-level cache
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // All tokens descending from one login share the family id
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    // User.tokenVersion when issued: revoking the user's access tokens revokes these too
+    @Column(nullable = false)
+    private int tokenVersion;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // When the family's first token was issued (the login): rotations carry it over, so the family
+    // as a whole cannot outlive jwt.refresh.max-lifetime-ms however often it is used
+    @Column(name = "family_started_at", nullable = false)
+    private Instant familyStartedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    // Set once the token has been exchanged for a new one
+    @Column(name = "rotated_at")
+    private Instant rotatedAt;
+
+    @Column(nullable = false)
+    private boolean revoked;
+}
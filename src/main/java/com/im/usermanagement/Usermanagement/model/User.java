@@ -1,9 +1,18 @@
 package com.im.usermanagement.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -12,16 +21,25 @@ import java.util.List;
 
 @Entity
 @Table(name = "app_user")
+// Second-level cached: id lookups and (through the natural id) email lookups skip the database.
+// READ_WRITE keeps the cache in step with updates made through Hibernate, bulk JPQL updates
+// would evict the whole region, so change users through the entity instead.
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.USERS)
+@NaturalIdCache(region = CacheRegions.USERS_BY_EMAIL)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 // ⭐ NEW: Implement the UserDetails interface
 public class User implements UserDetails {
 
+    // Pooled sequence instead of IDENTITY: ids are handed out 50 at a time without a round trip,
+    // which is what lets Hibernate batch the inserts of a bulk import.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "app_user_seq")
+    @SequenceGenerator(name = "app_user_seq", sequenceName = "app_user_seq", allocationSize = 50)
     private Long id;
 
+    @NaturalId(mutable = true)
     @Column(nullable = false, unique = true)
     private String email;
 
@@ -32,11 +50,19 @@ public class User implements UserDetails {
     private String lastName;
 
     // ⭐ NEW: Field to store the HASHED password
+    // Accepted in request bodies, never written out (responses use UserResponse anyway)
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @Column(nullable = false)
     private String password;
 
     // ⭐ NEW: Relationship to Roles (Many-to-Many is standard)
-    @ManyToMany(fetch = FetchType.EAGER) // Fetch roles immediately on user load
+    // LAZY: queries that need roles say so with an entity graph (see UserRepository).
+    // When roles are touched on a list of users, they are loaded in batches instead of one select per user.
+    @ManyToMany(fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.USER_ROLES)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinTable(
             name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
@@ -47,6 +73,23 @@ public class User implements UserDetails {
     // Existing field (rename to match UserDetails isEnabled for consistency)
     private boolean isActive = true;
 
+    // Set on every load by CustomUserDetailsService from the LoginThrottle lockout; never stored
+    @Transient
+    @JsonIgnore
+    private boolean locked;
+
+    // Optimistic lock: every update checks and bumps it, so concurrent writers can't overwrite each
+    // other silently. Exposed to clients as the ETag (If-None-Match / If-Match on /api/v1/users/{id}).
+    @Version
+    @JsonIgnore
+    @Column(nullable = false)
+    private long version;
+
+    // Bumped to revoke every JWT issued to this user (see TokenVersionStore)
+    @JsonIgnore
+    @Column(nullable = false)
+    private int tokenVersion;
+
     // ----------------------------------------------------------------------
     // Implementation of UserDetails methods
     // ----------------------------------------------------------------------
@@ -71,10 +114,10 @@ public class User implements UserDetails {
         return true;
     }
 
-    // ⭐ 4. Indicates whether the user is locked or unlocked.
+    // ⭐ 4. Indicates whether the user is locked or unlocked (temporarily, after repeated failed logins).
     @Override
     public boolean isAccountNonLocked() {
-        return true;
+        return !locked;
     }
 
     // ⭐ 5. Indicates whether the user's credentials (password) has expired.
@@ -0,0 +1,54 @@
+package com.im.usermanagement.repository;
+
+import com.im.usermanagement.model.LdapEntryLink;
+import com.im.usermanagement.model.RoleName;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Queries of the directory sync. All of them take or return a batch, never the whole table.
+ */
+@Repository
+public interface LdapEntryLinkRepository extends JpaRepository<LdapEntryLink, String> {
+
+    List<LdapEntryLink> findByUserIdIn(Collection<Long> userIds);
+
+    List<LdapEntryLink> findByDnIn(Collection<String> dns);
+
+    // One statement per page instead of one update per entry
+    @Modifying(flushAutomatically = true)
+    @Query("update LdapEntryLink l set l.seenRun = :run where l.entryId in :entryIds")
+    int markSeen(@Param("entryIds") Collection<String> entryIds, @Param("run") long run);
+
+    /**
+     * Keyset page of active synced users whose entry was not read by run {@code run}, i.e. that
+     * have left the directory (or the sync filter) if that run read the whole directory.
+     */
+    @Query("""
+            select l.userId from LdapEntryLink l, User u
+            where u.id = l.userId
+              and l.seenRun < :run
+              and u.isActive = true
+              and l.userId > :afterUserId
+            order by l.userId
+            """)
+    List<Long> findStaleUserIds(@Param("run") long run, @Param("afterUserId") long afterUserId, Limit limit);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update LdapEntryLink l set l.deactivatedBySync = true where l.userId in :userIds")
+    int markDeactivated(@Param("userIds") Collection<Long> userIds);
+
+    // Synced users currently holding the role
+    @Query("""
+            select l.userId from LdapEntryLink l
+            where exists (select 1 from User u join u.roles r where u.id = l.userId and r.name = :role)
+            """)
+    List<Long> findUserIdsWithRole(@Param("role") RoleName role);
+}
@@ -0,0 +1,9 @@
+package com.im.usermanagement.repository;
+
+import com.im.usermanagement.model.LdapSyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LdapSyncStateRepository extends JpaRepository<LdapSyncState, String> {
+}
@@ -0,0 +1,169 @@
+package com.im.usermanagement.repository;
+
+import com.im.usermanagement.dto.UserResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Readable;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Non-blocking reads of the user tables over R2DBC, for the reactive read API
+ * (see ReactiveUserController). Same schema as the JPA side, but plain SQL: no persistence context,
+ * no second-level cache, and a connection is only held while rows are being read.
+ *
+ * Results are streamed: a Flux pulls rows from the driver's cursor only as fast as the subscriber
+ * (the HTTP response) asks for them.
+ *
+ * The connection pool belongs to this repository and is deliberately not a bean: a
+ * ConnectionFactory bean would make Spring Boot skip the JDBC DataSource that JPA runs on.
+ * Metrics: r2dbc.pool.acquired/idle/pending (tagged name=users).
+ */
+@Repository
+public class ReactiveUserRepository {
+
+    // Each user row repeated once per role; u.* comes first so rows group by consecutive id
+    private static final String SELECT = """
+            select u.id, u.email, u.first_name, u.last_name, u.is_active, u.version, r.name as role
+            """;
+    private static final String JOIN_ROLES = """
+            left join user_roles ur on ur.user_id = u.id
+            left join roles r on r.id = ur.role_id
+            """;
+
+    private final ConnectionPool pool;
+    private final DatabaseClient client;
+
+    public ReactiveUserRepository(@Value("${users.reactive.url}") String url,
+                                  @Value("${users.reactive.username:${spring.datasource.username:}}") String username,
+                                  @Value("${users.reactive.password:${spring.datasource.password:}}") String password,
+                                  @Value("${users.reactive.pool.max-size:20}") int maxSize,
+                                  @Value("${users.reactive.pool.max-acquire-time-ms:3000}") long maxAcquireTimeMs,
+                                  MeterRegistry meterRegistry) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("users")
+                .initialSize(0)
+                .maxSize(maxSize)
+                // Waiting for a connection holds no thread, but give up eventually (pool exhaustion)
+                .maxAcquireTime(Duration.ofMillis(maxAcquireTimeMs))
+                .maxIdleTime(Duration.ofMinutes(10))
+                .build());
+        this.client = DatabaseClient.create(pool);
+
+        PoolMetrics metrics = pool.getMetrics().orElseThrow();
+        poolGauge(meterRegistry, "r2dbc.pool.acquired", "Connections in use", metrics, PoolMetrics::acquiredSize);
+        poolGauge(meterRegistry, "r2dbc.pool.idle", "Idle connections", metrics, PoolMetrics::idleSize);
+        poolGauge(meterRegistry, "r2dbc.pool.pending", "Requests waiting for a connection", metrics,
+                PoolMetrics::pendingAcquireSize);
+    }
+
+    private static void poolGauge(MeterRegistry registry, String name, String description,
+                                  PoolMetrics metrics, ToDoubleFunction<PoolMetrics> value) {
+        Gauge.builder(name, metrics, value)
+                .description(description)
+                .tag("name", "users")
+                .register(registry);
+    }
+
+    @PreDestroy
+    void close() {
+        pool.dispose();
+    }
+
+    /**
+     * The user with its roles and version, or empty.
+     */
+    public Mono<VersionedUser> findById(long id) {
+        return single(client.sql(SELECT + "from app_user u\n" + JOIN_ROLES + "where u.id = :id")
+                .bind("id", id));
+    }
+
+    /**
+     * The user with its roles and version, or empty.
+     */
+    public Mono<VersionedUser> findByEmail(String email) {
+        return single(client.sql(SELECT + "from app_user u\n" + JOIN_ROLES + "where u.email = :email")
+                .bind("email", email));
+    }
+
+    /**
+     * Keyset page, like {@link UserRepository#findPageAfter}: the next {@code limit} users with an
+     * id greater than {@code afterId}, in id order, with their roles. A null {@code active} is ignored.
+     */
+    public Flux<UserResponse> findPageAfter(long afterId, Boolean active, int limit) {
+        // The limit applies to users, not to user x role rows, hence the derived table
+        DatabaseClient.GenericExecuteSpec spec = client.sql(SELECT + """
+                        from (select * from app_user
+                              where id > :afterId and (:active is null or is_active = :active)
+                              order by id
+                              limit :limit) u
+                        """ + JOIN_ROLES + "order by u.id")
+                .bind("afterId", afterId)
+                .bind("limit", limit);
+        spec = active == null ? spec.bindNull("active", Boolean.class) : spec.bind("active", active);
+
+        return spec.map(ReactiveUserRepository::readRow).all()
+                .bufferUntilChanged(Row::id)
+                .map(rows -> toUser(rows).user());
+    }
+
+    private static Mono<VersionedUser> single(DatabaseClient.GenericExecuteSpec spec) {
+        return spec.map(ReactiveUserRepository::readRow).all()
+                .collectList()
+                .filter(rows -> !rows.isEmpty())
+                .map(ReactiveUserRepository::toUser);
+    }
+
+    private static Row readRow(Readable row) {
+        return new Row(
+                row.get("id", Long.class),
+                row.get("email", String.class),
+                row.get("first_name", String.class),
+                row.get("last_name", String.class),
+                Boolean.TRUE.equals(row.get("is_active", Boolean.class)),
+                row.get("version", Long.class),
+                row.get("role", String.class));
+    }
+
+    // All the rows of one user
+    private static VersionedUser toUser(List<Row> rows) {
+        Row first = rows.get(0);
+        List<String> roles = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (row.role() != null) {
+                roles.add(row.role());
+            }
+        }
+        UserResponse user = new UserResponse(first.id(), first.email(), first.firstName(), first.lastName(),
+                first.active(), roles);
+        return new VersionedUser(user, first.version() == null ? 0 : first.version());
+    }
+
+    private record Row(Long id, String email, String firstName, String lastName, boolean active,
+                       Long version, String role) {
+    }
+
+    /**
+     * A user and its @Version, for the ETag.
+     */
+    public record VersionedUser(UserResponse user, long version) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.im.usermanagement.repository;
+
+import com.im.usermanagement.model.RefreshToken;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Every query here is backed by one of the indexes declared on {@link RefreshToken}.
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Marks the token rotated unless that already happened: 0 rows means another request
+     * used it first, which is treated as reuse. Guards against two concurrent refreshes both
+     * winning without taking a row lock.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update RefreshToken t set t.rotatedAt = :now where t.id = :id and t.rotatedAt is null and t.revoked = false")
+    int markRotated(@Param("id") Long id, @Param("now") Instant now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update RefreshToken t set t.revoked = true where t.familyId = :familyId and t.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update RefreshToken t set t.revoked = true where t.userId = :userId and t.revoked = false")
+    int revokeAllOfUser(@Param("userId") Long userId);
+
+    // One purge batch: ids first (seek on the expiry index), then a delete by primary key
+    @Query("select t.id from RefreshToken t where t.expiresAt < :now order by t.expiresAt")
+    List<Long> findExpiredIds(@Param("now") Instant now, Limit limit);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,17 @@
+package com.im.usermanagement.repository;
+
+import com.im.usermanagement.model.User;
+
+import java.util.Optional;
+
+/**
+ * Lookups served by the second-level cache (see UserLookupRepositoryImpl).
+ */
+public interface UserLookupRepository {
+
+    /**
+     * The user with this email, roles initialized. Resolved through the natural-id cache,
+     * so a warm lookup runs no SQL at all (unlike findByEmail, which is a query).
+     */
+    Optional<User> findByNaturalEmail(String email);
+}
@@ -0,0 +1,29 @@
+package com.im.usermanagement.repository;
+
+import com.im.usermanagement.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+// Spring Data fragment, picked up by naming convention and mixed into UserRepository
+class UserLookupRepositoryImpl implements UserLookupRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByNaturalEmail(String email) {
+        // email -> id from the natural-id region, then the user, its role ids and roles from their regions
+        Optional<User> user = entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(email);
+        // Callers use the authorities after the session is gone
+        user.ifPresent(found -> Hibernate.initialize(found.getRoles()));
+        return user;
+    }
+}
@@ -1,16 +1,137 @@
 package com.im.usermanagement.repository;
 
+import com.im.usermanagement.dto.UserResponse;
+import com.im.usermanagement.model.RoleName;
 import com.im.usermanagement.model.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional; // Crucial import for this method
+import java.util.Set;
+import java.util.stream.Stream;
 
+/**
+ * Fetch plans: roles are LAZY on the entity. Methods that always need them (login, single-user
+ * responses, exports) join-fetch them through an entity graph; list queries rely on batch fetching
+ * (@BatchSize on User.roles), and everything else never touches the user_roles table.
+ *
+ * Users are second-level cached: findById and findByNaturalEmail can be served without SQL,
+ * the @Query methods always hit the database.
+ */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserLookupRepository {
 
     // Existing method
     boolean existsByEmail(String email);
 
     // ⭐ FIX: UNCOMMENT THIS LINE AND ENSURE IT'S ACTIVE CODE!
+    // Roles are fetched in the same select: authentication needs the authorities
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByEmail(String email);
-}
\ No newline at end of file
+
+    // findById plus roles in one select; plain findById stays lazy for callers that only need the user row
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findWithRolesById(Long id);
+
+    // Set-wise uniqueness check for bulk imports: one query per chunk instead of one per row
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // The users owning any of these emails, for the directory sync (one query per page)
+    @Query("select u from User u where u.email in :emails")
+    List<User> findAllByEmailIn(@Param("emails") Collection<String> emails);
+
+    // Scalar read used by TokenVersionStore, avoids loading the whole user
+    @Query("select u.tokenVersion from User u where u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    // Scalar read used at login to check a cached user against the database
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Row lock for read-modify-write on the entity (token version bump). A bulk JPQL update
+    // would evict every cached user instead of just this one.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from User u where u.id = :id")
+    Optional<User> findForUpdateById(@Param("id") Long id);
+
+    /**
+     * Keyset page: the next {@code limit} users with an id greater than {@code afterId}.
+     * Seeks on the primary key index, so page N costs the same as page 1 (unlike OFFSET).
+     * Null filters are ignored; {@code emailPattern} is a LIKE pattern with '\' as escape.
+     * Selects only the response columns (no entities in the persistence context, no password hash);
+     * roles come separately from {@link #findRoleNamesByUserIds}.
+     */
+    @Query("""
+            select new com.im.usermanagement.dto.UserResponse(u.id, u.email, u.firstName, u.lastName, u.isActive)
+            from User u
+            where u.id > :afterId
+              and (:active is null or u.isActive = :active)
+              and (:emailPattern is null or u.email like :emailPattern escape '\\')
+              and (:role is null or exists (
+                    select 1 from User u2 join u2.roles r where u2 = u and r.name = :role))
+            order by u.id
+            """)
+    List<UserResponse> findPageAfter(@Param("afterId") long afterId,
+                                     @Param("active") Boolean active,
+                                     @Param("emailPattern") String emailPattern,
+                                     @Param("role") RoleName role,
+                                     Limit limit);
+
+    // Role names of a whole page of users in one query
+    @Query("select u.id as userId, r.name as role from User u join u.roles r where u.id in :ids")
+    List<UserRoleRow> findRoleNamesByUserIds(@Param("ids") Collection<Long> ids);
+
+    interface UserRoleRow {
+        Long getUserId();
+
+        RoleName getRole();
+    }
+
+    /**
+     * Same filters as {@link #findPageAfter}, but as a forward-only cursor for exports.
+     * Roles are join-fetched: batch fetching can't help once each row is detached after writing.
+     * Must be consumed inside a transaction and closed; detach rows once written to keep memory flat.
+     * (MySQL only streams with useCursorFetch=true on the JDBC URL, otherwise it buffers the result.)
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @EntityGraph(attributePaths = "roles")
+    @Query("""
+            select u from User u
+            where (:active is null or u.isActive = :active)
+              and (:emailPattern is null or u.email like :emailPattern escape '\\')
+              and (:role is null or exists (
+                    select 1 from User u2 join u2.roles r where u2 = u and r.name = :role))
+            order by u.id
+            """)
+    Stream<User> streamAll(@Param("active") Boolean active,
+                           @Param("emailPattern") String emailPattern,
+                           @Param("role") RoleName role);
+
+    /**
+     * The searchable columns of every active user, as a forward-only cursor for seeding the search index.
+     * Must be consumed inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select new com.im.usermanagement.dto.UserResponse(u.id, u.email, u.firstName, u.lastName, u.isActive)
+            from User u
+            where u.isActive = true
+            order by u.id
+            """)
+    Stream<UserResponse> streamActiveForSearch();
+}
@@ -0,0 +1,127 @@
+package com.im.usermanagement.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * How user fields and queries are cut into index terms: lower-cased, accents stripped, split on
+ * anything that is not a letter or digit. A query token containing '@' is kept whole so it can
+ * match the full email by prefix.
+ */
+final class SearchTerms {
+
+    // Term kinds, they weigh differently in the ranking (see UserSearchIndex)
+    static final byte EMAIL = 0;
+    static final byte EMAIL_PART = 1;
+    static final byte NAME = 2;
+
+    // Shorter tokens are too ambiguous for typo matching; shorter names are not in the typo dictionary
+    static final int FUZZY_MIN_QUERY_LENGTH = 4;
+    static final int FUZZY_MIN_TERM_LENGTH = 3;
+
+    static final int MAX_QUERY_TOKENS = 5;
+
+    private SearchTerms() {
+    }
+
+    static String normalize(String value) {
+        boolean ascii = true;
+        for (int i = 0; i < value.length() && ascii; i++) {
+            ascii = value.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            return value.toLowerCase(Locale.ROOT);
+        }
+        // "Zoë" -> "Zoe" + combining diaeresis -> "zoe"
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                out.append(c);
+            }
+        }
+        return out.toString().toLowerCase(Locale.ROOT);
+    }
+
+    // Letter/digit runs of an already normalized value
+    static void words(String normalized, Set<String> out) {
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                out.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * The distinct tokens of a query, at most {@link #MAX_QUERY_TOKENS}.
+     */
+    static List<String> queryTokens(String query) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (query != null) {
+            for (String piece : normalize(query).trim().split("\\s+")) {
+                if (piece.indexOf('@') >= 0) {
+                    tokens.add(piece);
+                } else {
+                    words(piece, tokens);
+                }
+            }
+        }
+        List<String> result = new ArrayList<>(tokens);
+        return result.size() > MAX_QUERY_TOKENS ? result.subList(0, MAX_QUERY_TOKENS) : result;
+    }
+
+    /**
+     * True if {@code a} and {@code b} are at most one edit apart: one insertion, deletion,
+     * substitution or swap of adjacent characters.
+     */
+    static boolean withinOneEdit(String a, String b) {
+        int la = a.length();
+        int lb = b.length();
+        if (Math.abs(la - lb) > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < la && i < lb && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (i == la && i == lb) {
+            return true;
+        }
+        if (la == lb) {
+            if (a.regionMatches(i + 1, b, i + 1, la - i - 1)) {
+                return true;
+            }
+            return i + 1 < la
+                    && a.charAt(i) == b.charAt(i + 1)
+                    && a.charAt(i + 1) == b.charAt(i)
+                    && a.regionMatches(i + 2, b, i + 2, la - i - 2);
+        }
+        return la > lb
+                ? a.regionMatches(i + 1, b, i, lb - i)
+                : b.regionMatches(i + 1, a, i, la - i);
+    }
+
+    /**
+     * The term itself and every way of deleting one character from it. Two words within one edit of
+     * each other always share at least one of these, which is how typo candidates are found without
+     * comparing the query against the whole dictionary.
+     */
+    static Set<String> deletes(String term) {
+        Set<String> variants = new LinkedHashSet<>(term.length() + 1);
+        variants.add(term);
+        for (int i = 0; i < term.length(); i++) {
+            variants.add(term.substring(0, i) + term.substring(i + 1));
+        }
+        return variants;
+    }
+}
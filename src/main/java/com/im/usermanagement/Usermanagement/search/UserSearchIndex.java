@@ -0,0 +1,715 @@
+package com.im.usermanagement.search;
+
+import com.im.usermanagement.dto.UserPage;
+import com.im.usermanagement.dto.UserResponse;
+import com.im.usermanagement.dto.UserSearchHit;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.support.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory search index over the active users' email, first and last name.
+ *
+ * 1. Terms (see {@link SearchTerms}) live in one sorted map per kind (email, email part, name), so a
+ *    prefix is one range scan; each term points to the sorted ids of the users that have it
+ *    (copy-on-write arrays).
+ * 2. Typo tolerance (one edit) on names: every name term is also filed under its one-character
+ *    deletions, and the query token's deletions find the candidates.
+ * 3. A query is driven by its most selective token. Its id lists are scanned best score first and
+ *    the scan stops as soon as no remaining user can make the requested page, so a broad query like
+ *    "j" touches about a page worth of users, not every match. At most {@code maxCandidates} users
+ *    are checked in any case (search.query.truncated counts the queries that hit the cap).
+ *
+ * Reads are lock-free; writes are serialized. Changes made inside a transaction are applied once it
+ * commits. Seeded at startup by {@link UserSearchIndexLoader}; until then results are partial.
+ *
+ * One index per instance, and only this instance's commits reach it directly. A user created, renamed
+ * or deleted through another instance (or by SQL) shows up here at the next reconcile, which the loader
+ * runs every {@code search.reconcile.interval-ms}: results may be that far behind the database. Each
+ * reconcile reads every active user's id, email and names, about what the seeding reads.
+ *
+ * Memory: about 600 MB of heap per million active users (terms, id arrays and typo variants included).
+ *
+ * Metrics: search.query, search.query.truncated, search.index.documents, search.index.ready,
+ * search.index.load.failures, search.index.reconciled.
+ */
+@Component
+public class UserSearchIndex {
+
+    public static final int MAX_PAGE_SIZE = 100;
+    // Deepest rank a client can page to: ranking deeper than this is noise for a search box
+    public static final int MAX_WINDOW = 1000;
+
+    // Score of a match by term kind (EMAIL, EMAIL_PART, NAME); any exact match beats any prefix match
+    private static final double[] EXACT = {12, 8, 10};
+    private static final double[] PREFIX = {4, 5, 6};
+    private static final double FUZZY = 3;
+
+    private static final int COST_SAMPLE_TERMS = 256;
+
+    private static final Comparator<Scored> BEST_FIRST = Comparator
+            .comparingDouble(Scored::score).reversed()
+            .thenComparingLong(scored -> scored.doc().id());
+    private static final Comparator<Source> HIGHEST_SCORE = Comparator.comparingDouble(Source::score).reversed();
+
+    private final int maxCandidates;
+    private final int maxPrefixTerms;
+
+    private final ConcurrentHashMap<Long, Doc> docs = new ConcurrentHashMap<>();
+    // Indexed by term kind
+    private final List<ConcurrentSkipListMap<String, long[]>> postings = List.of(
+            new ConcurrentSkipListMap<>(), new ConcurrentSkipListMap<>(), new ConcurrentSkipListMap<>());
+    // One-deletion variant -> name terms having it
+    private final ConcurrentHashMap<String, String[]> typoVariants = new ConcurrentHashMap<>();
+
+    // Writer state, guarded by writeLock
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Map<String, Integer> nameTermRefs = new HashMap<>();
+    private final Set<Long> removedWhileLoading = new HashSet<>();
+    private final Set<Long> changedWhileReconciling = new HashSet<>();
+    private boolean loading;
+    private boolean reconciling;
+    private volatile boolean ready;
+
+    private final Timer queryTimer;
+    private final Counter truncated;
+    private final Counter loadFailures;
+    private final Counter reconciled;
+
+    public UserSearchIndex(@Value("${search.max-candidates:20000}") int maxCandidates,
+                           @Value("${search.max-prefix-terms:2000}") int maxPrefixTerms,
+                           MeterRegistry meterRegistry) {
+        this.maxCandidates = maxCandidates;
+        this.maxPrefixTerms = maxPrefixTerms;
+
+        this.queryTimer = Timer.builder("search.query")
+                .description("Time to answer a user search from the index")
+                .register(meterRegistry);
+        this.truncated = Counter.builder("search.query.truncated")
+                .description("Searches that stopped at the candidate cap")
+                .register(meterRegistry);
+        Gauge.builder("search.index.documents", docs, Map::size)
+                .description("Users in the search index")
+                .register(meterRegistry);
+        Gauge.builder("search.index.ready", this, index -> index.ready ? 1 : 0)
+                .description("1 once the index has been seeded from the database (0 after a failed seeding, until a reconcile completes)")
+                .register(meterRegistry);
+        this.loadFailures = Counter.builder("search.index.load.failures")
+                .description("Seedings from the database that failed, leaving the index partial")
+                .register(meterRegistry);
+        this.reconciled = Counter.builder("search.index.reconciled")
+                .description("Users added, rewritten or dropped by a reconcile: changes this instance did not see")
+                .register(meterRegistry);
+    }
+
+    // --- Updates ---
+
+    /**
+     * Indexes the user as it is now (or drops it if inactive), once the current transaction commits.
+     */
+    public void put(User user) {
+        Doc doc = Doc.of(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName());
+        boolean active = user.isActive();
+        AfterCommit.run(() -> apply(doc.id(), active ? doc : null));
+    }
+
+    /**
+     * Indexes a batch of new users (bulk import) once the current transaction commits.
+     */
+    public void putAll(Collection<User> users) {
+        List<Doc> batch = new ArrayList<>(users.size());
+        for (User user : users) {
+            batch.add(Doc.of(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName()));
+        }
+        AfterCommit.run(() -> applyBatch(batch, false));
+    }
+
+    /**
+     * Drops the user from the index once the current transaction commits.
+     */
+    public void remove(Long id) {
+        AfterCommit.run(() -> apply(id, null));
+    }
+
+    // --- Startup seeding (UserSearchIndexLoader) ---
+
+    void loadStarted() {
+        writeLock.lock();
+        try {
+            loading = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Adds rows read from the database, unless the live updates already got there first:
+     * a user changed or deleted since the loader's read is not overwritten with the stale row.
+     */
+    void load(List<UserResponse> rows) {
+        List<Doc> batch = new ArrayList<>(rows.size());
+        for (UserResponse row : rows) {
+            if (row.isActive()) {
+                batch.add(Doc.of(row.getId(), row.getEmail(), row.getFirstName(), row.getLastName()));
+            }
+        }
+        applyBatch(batch, true);
+    }
+
+    /**
+     * Ends the seeding. Live updates apply normally from now on either way, but an index whose
+     * seeding failed only holds part of the users: it is not reported ready until a reconcile completes.
+     */
+    void loadFinished(boolean complete) {
+        writeLock.lock();
+        try {
+            loading = false;
+            removedWhileLoading.clear();
+            ready = complete;
+        } finally {
+            writeLock.unlock();
+        }
+        if (!complete) {
+            loadFailures.increment();
+        }
+    }
+
+    // --- Periodic reconcile (UserSearchIndexLoader) ---
+
+    void reconcileStarted() {
+        writeLock.lock();
+        try {
+            reconciling = true;
+            changedWhileReconciling.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Adds the active users read from the database that the index is missing, and rewrites the ones
+     * it holds differently; users changed on this instance since the reconcile began are left alone.
+     */
+    void reconcile(List<UserResponse> rows) {
+        int corrected = 0;
+        writeLock.lock();
+        try {
+            for (UserResponse row : rows) {
+                Doc current = docs.get(row.getId());
+                if (changedWhileReconciling.contains(row.getId())
+                        || (current != null && current.sameAs(row.getEmail(), row.getFirstName(), row.getLastName()))) {
+                    continue;
+                }
+                replace(row.getId(), Doc.of(row.getId(), row.getEmail(), row.getFirstName(), row.getLastName()));
+                corrected++;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        reconciled.increment(corrected);
+    }
+
+    /**
+     * Ends the reconcile. If it read every active user, the users it did not read (deactivated or
+     * deleted since) are dropped, and the index is complete: ready, even after a failed seeding.
+     * @param readIds the ids of every row passed to {@link #reconcile}, ascending
+     */
+    void reconcileFinished(long[] readIds, boolean complete) {
+        int dropped = 0;
+        writeLock.lock();
+        try {
+            if (complete) {
+                for (Long id : docs.keySet()) {
+                    if (Arrays.binarySearch(readIds, id) < 0 && !changedWhileReconciling.contains(id)) {
+                        replace(id, null);
+                        dropped++;
+                    }
+                }
+                ready = true;
+            }
+            reconciling = false;
+            changedWhileReconciling.clear();
+        } finally {
+            writeLock.unlock();
+        }
+        reconciled.increment(dropped);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return docs.size();
+    }
+
+    // A change committed on this instance (doc == null removes the user): wins over the rows a
+    // seeding or reconcile in progress has read
+    private void apply(long id, Doc doc) {
+        writeLock.lock();
+        try {
+            if (doc == null && loading) {
+                removedWhileLoading.add(id);
+            }
+            if (reconciling) {
+                changedWhileReconciling.add(id);
+            }
+            replace(id, doc);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // doc == null removes the user. Caller holds writeLock
+    private void replace(long id, Doc doc) {
+        if (doc != null) {
+            canonicalize(doc);
+        }
+        Doc old = doc == null ? docs.remove(id) : docs.put(id, doc);
+        if (old != null) {
+            for (int i = 0; i < old.terms().length; i++) {
+                if (doc == null || !doc.has(old.terms()[i], old.kinds()[i])) {
+                    removeTerm(old.terms()[i], old.kinds()[i], id);
+                }
+            }
+        }
+        if (doc != null) {
+            for (int i = 0; i < doc.terms().length; i++) {
+                if (old == null || !old.has(doc.terms()[i], doc.kinds()[i])) {
+                    addTerm(doc.terms()[i], doc.kinds()[i], new long[]{id});
+                }
+            }
+        }
+    }
+
+    // Merges each term's new ids once per batch instead of copying its array once per user
+    private void applyBatch(List<Doc> batch, boolean skipKnown) {
+        writeLock.lock();
+        try {
+            List<Map<String, List<Long>>> added = List.of(new HashMap<>(), new HashMap<>(), new HashMap<>());
+            for (Doc doc : batch) {
+                if (!skipKnown && reconciling) {
+                    changedWhileReconciling.add(doc.id());
+                }
+                if (docs.containsKey(doc.id()) || removedWhileLoading.contains(doc.id())) {
+                    if (!skipKnown) {
+                        apply(doc.id(), doc);
+                    }
+                    continue;
+                }
+                canonicalize(doc);
+                docs.put(doc.id(), doc);
+                for (int i = 0; i < doc.terms().length; i++) {
+                    added.get(doc.kinds()[i]).computeIfAbsent(doc.terms()[i], t -> new ArrayList<>()).add(doc.id());
+                }
+            }
+            for (byte kind = 0; kind < added.size(); kind++) {
+                for (Map.Entry<String, List<Long>> entry : added.get(kind).entrySet()) {
+                    long[] ids = entry.getValue().stream().mapToLong(Long::longValue).sorted().toArray();
+                    addTerm(entry.getKey(), kind, ids);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Shares one String per distinct term: "john" is stored once, not once per John
+    private void canonicalize(Doc doc) {
+        for (int i = 0; i < doc.terms().length; i++) {
+            String known = postings.get(doc.kinds()[i]).ceilingKey(doc.terms()[i]);
+            if (doc.terms()[i].equals(known)) {
+                doc.terms()[i] = known;
+            }
+        }
+    }
+
+    private void addTerm(String term, byte kind, long[] sortedIds) {
+        ConcurrentSkipListMap<String, long[]> terms = postings.get(kind);
+        long[] existing = terms.get(term);
+        terms.put(term, union(existing, sortedIds));
+        if (existing == null && kind == SearchTerms.NAME) {
+            retainNameTerm(term);
+        }
+    }
+
+    private void removeTerm(String term, byte kind, long id) {
+        ConcurrentSkipListMap<String, long[]> terms = postings.get(kind);
+        long[] ids = without(terms.get(term), id);
+        if (ids != null) {
+            terms.put(term, ids);
+        } else if (terms.remove(term) != null && kind == SearchTerms.NAME) {
+            releaseNameTerm(term);
+        }
+    }
+
+    private void retainNameTerm(String term) {
+        if (term.length() < SearchTerms.FUZZY_MIN_TERM_LENGTH || nameTermRefs.merge(term, 1, Integer::sum) > 1) {
+            return;
+        }
+        for (String variant : SearchTerms.deletes(term)) {
+            typoVariants.compute(variant, (key, terms) -> {
+                if (terms == null) {
+                    return new String[]{term};
+                }
+                String[] grown = Arrays.copyOf(terms, terms.length + 1);
+                grown[terms.length] = term;
+                return grown;
+            });
+        }
+    }
+
+    private void releaseNameTerm(String term) {
+        if (nameTermRefs.remove(term) == null) {
+            return;
+        }
+        for (String variant : SearchTerms.deletes(term)) {
+            typoVariants.computeIfPresent(variant, (key, terms) -> {
+                String[] kept = Arrays.stream(terms).filter(t -> !t.equals(term)).toArray(String[]::new);
+                return kept.length == 0 ? null : kept;
+            });
+        }
+    }
+
+    // --- Queries ---
+
+    /**
+     * One page of the users matching every token of {@code query}, best first.
+     * @param cursor rank to start from: the nextCursor of the previous page, or null for the first page.
+     * @param limit page size, capped at {@link #MAX_PAGE_SIZE}.
+     */
+    public UserPage<UserSearchHit> search(String query, Long cursor, int limit) {
+        return queryTimer.record(() -> doSearch(query, cursor == null ? 0 : cursor, limit));
+    }
+
+    private UserPage<UserSearchHit> doSearch(String query, long offset, int limit) {
+        List<String> tokens = SearchTerms.queryTokens(query);
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        if (tokens.isEmpty() || offset < 0 || offset >= MAX_WINDOW) {
+            return new UserPage<>(List.of(), null);
+        }
+        int window = (int) Math.min(offset + size, MAX_WINDOW);
+
+        // 1. What each token can match; the most selective token drives the scan.
+        //    The other tokens can add at most their best score to a candidate.
+        String driverToken = null;
+        List<Source> driver = null;
+        long driverCost = Long.MAX_VALUE;
+        double othersBest = 0;
+        // Longer tokens first: usually the selective ones, so the cost budget tightens early
+        List<String> byLength = new ArrayList<>(tokens);
+        byLength.sort(Comparator.comparingInt(String::length).reversed());
+        for (String token : byLength) {
+            List<Source> sources = sources(token);
+            if (sources.isEmpty()) {
+                return new UserPage<>(List.of(), null);
+            }
+            othersBest += sources.get(0).score();
+            long cost = tokens.size() == 1 ? 0 : cost(token, sources, driverCost);
+            if (cost < driverCost || driver == null) {
+                driverToken = token;
+                driver = sources;
+                driverCost = cost;
+            }
+        }
+        othersBest -= driver.get(0).score();
+
+        // 2. Best sources first; stop once nothing left can displace the worst of the `window` best
+        PriorityQueue<Source> pending = new PriorityQueue<>(HIGHEST_SCORE);
+        pending.addAll(driver);
+        PriorityQueue<Scored> best = new PriorityQueue<>(window + 1, BEST_FIRST.reversed());
+        Set<Long> seen = new HashSet<>();
+        boolean more = false;
+        Source source;
+        scan:
+        while ((source = pending.poll()) != null) {
+            double bound = source.score() + othersBest;
+            if (best.size() == window && best.peek().score() > bound) {
+                more = true;
+                break;
+            }
+            if (source.ids() == null) {
+                pending.addAll(expand(driverToken, source.kind()));
+                continue;
+            }
+            for (long id : source.ids()) {
+                if (best.size() == window) {
+                    Scored worst = best.peek();
+                    if (worst.score() > bound) {
+                        more = true;
+                        break scan;
+                    }
+                    // Ids only grow along a list: nobody further down this one can win the tie
+                    if (worst.score() == bound && id > worst.doc().id()) {
+                        more = true;
+                        break;
+                    }
+                }
+                if (!seen.add(id)) {
+                    continue;
+                }
+                if (seen.size() > maxCandidates) {
+                    truncated.increment();
+                    more = true;
+                    break scan;
+                }
+                Doc doc = docs.get(id);
+                double score = doc == null ? 0 : score(doc, tokens);
+                if (score > 0) {
+                    best.offer(new Scored(doc, score));
+                    if (best.size() > window) {
+                        best.poll();
+                        more = true;
+                    }
+                }
+            }
+        }
+
+        // 3. Cut the page out of the window
+        List<Scored> ranked = new ArrayList<>(best);
+        ranked.sort(BEST_FIRST);
+        List<UserSearchHit> items = new ArrayList<>(size);
+        for (int i = (int) offset; i < ranked.size(); i++) {
+            Doc doc = ranked.get(i).doc();
+            double score = Math.round(ranked.get(i).score() * 100) / 100.0;
+            items.add(new UserSearchHit(doc.id(), doc.email(), doc.firstName(), doc.lastName(), score));
+        }
+        // More may exist past the window (a multi-token next page can still come back empty)
+        Long nextCursor = more && ranked.size() == window && window < MAX_WINDOW ? (long) window : null;
+        return new UserPage<>(items, nextCursor);
+    }
+
+    /**
+     * What a token matches, best score first: the exact term of each kind, the one-typo name terms,
+     * and per kind a placeholder for the terms it prefixes. Prefix scores of a kind fall in a range
+     * of their own ([PREFIX, PREFIX + 1)), so that range is only expanded if the scan gets to it.
+     */
+    private List<Source> sources(String token) {
+        List<Source> sources = new ArrayList<>();
+        for (byte kind = 0; kind < postings.size(); kind++) {
+            ConcurrentSkipListMap<String, long[]> terms = postings.get(kind);
+            long[] exact = terms.get(token);
+            if (exact != null) {
+                sources.add(new Source(exact, EXACT[kind], kind));
+            }
+            String next = terms.higherKey(token);
+            if (next != null && next.startsWith(token)) {
+                double bestPrefix = PREFIX[kind] + (double) token.length() / (token.length() + 1);
+                sources.add(new Source(null, bestPrefix, kind));
+            }
+        }
+        if (token.length() >= SearchTerms.FUZZY_MIN_QUERY_LENGTH) {
+            Set<String> typos = new LinkedHashSet<>();
+            for (String variant : SearchTerms.deletes(token)) {
+                String[] terms = typoVariants.get(variant);
+                if (terms != null) {
+                    typos.addAll(Arrays.asList(terms));
+                }
+            }
+            for (String term : typos) {
+                long[] ids = postings.get(SearchTerms.NAME).get(term);
+                if (ids != null && !term.startsWith(token) && SearchTerms.withinOneEdit(token, term)) {
+                    sources.add(new Source(ids, FUZZY, SearchTerms.NAME));
+                }
+            }
+        }
+        sources.sort(HIGHEST_SCORE);
+        return sources;
+    }
+
+    // The terms of this kind the token prefixes (at most maxPrefixTerms), each with its score
+    private List<Source> expand(String token, byte kind) {
+        List<Source> lists = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry
+                : postings.get(kind).subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+            if (lists.size() == maxPrefixTerms) {
+                break;
+            }
+            lists.add(new Source(entry.getValue(), termScore(token, entry.getKey(), kind), kind));
+        }
+        return lists;
+    }
+
+    // Ids the token's sources hold, counted only up to `budget` (the cheapest token so far);
+    // prefix matches are sampled from their first COST_SAMPLE_TERMS terms
+    private long cost(String token, List<Source> sources, long budget) {
+        long cost = 0;
+        for (Source source : sources) {
+            if (source.ids() != null) {
+                cost += source.ids().length;
+            } else {
+                int visited = 0;
+                for (long[] ids : postings.get(source.kind())
+                        .subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                    cost += ids.length;
+                    if (cost >= budget || ++visited == COST_SAMPLE_TERMS) {
+                        break;
+                    }
+                }
+            }
+            if (cost >= budget) {
+                return cost;
+            }
+        }
+        return cost;
+    }
+
+    // Sum of each token's best match on the user; 0 if any token matches nothing
+    private static double score(Doc doc, List<String> tokens) {
+        double total = 0;
+        for (String token : tokens) {
+            double tokenBest = 0;
+            for (int i = 0; i < doc.terms().length; i++) {
+                tokenBest = Math.max(tokenBest, termScore(token, doc.terms()[i], doc.kinds()[i]));
+            }
+            if (tokenBest == 0) {
+                return 0;
+            }
+            total += tokenBest;
+        }
+        return total;
+    }
+
+    private static double termScore(String token, String term, byte kind) {
+        if (term.equals(token)) {
+            return EXACT[kind];
+        }
+        if (term.startsWith(token)) {
+            // Closer to the whole term ranks higher: "smit" is a better match for smith than smithson
+            return PREFIX[kind] + (double) token.length() / term.length();
+        }
+        if (kind == SearchTerms.NAME
+                && token.length() >= SearchTerms.FUZZY_MIN_QUERY_LENGTH
+                && term.length() >= SearchTerms.FUZZY_MIN_TERM_LENGTH
+                && SearchTerms.withinOneEdit(token, term)) {
+            return FUZZY;
+        }
+        return 0;
+    }
+
+    // Sorted union of two sorted id arrays (either may be null)
+    private static long[] union(long[] a, long[] b) {
+        if (a == null || a.length == 0) {
+            return b;
+        }
+        long[] merged = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            long next;
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                next = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                next = b[j++];
+            } else {
+                next = a[i++];
+                j++;
+            }
+            merged[n++] = next;
+        }
+        return n == merged.length ? merged : Arrays.copyOf(merged, n);
+    }
+
+    // The array without id, or null if nothing is left
+    private static long[] without(long[] ids, long id) {
+        if (ids == null) {
+            return null;
+        }
+        int at = Arrays.binarySearch(ids, id);
+        if (at < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return null;
+        }
+        long[] kept = new long[ids.length - 1];
+        System.arraycopy(ids, 0, kept, 0, at);
+        System.arraycopy(ids, at + 1, kept, at, ids.length - at - 1);
+        return kept;
+    }
+
+    // The ids of one matched term and their score for the token, or (ids == null) the prefix
+    // matches of one kind, not expanded yet, scoring at most `score`
+    private record Source(long[] ids, double score, byte kind) {
+    }
+
+    private record Scored(Doc doc, double score) {
+    }
+
+    /**
+     * What the index keeps of a user: the fields it returns, and its distinct terms with their kinds.
+     */
+    private record Doc(long id, String email, String firstName, String lastName, String[] terms, byte[] kinds) {
+
+        static Doc of(Long id, String email, String firstName, String lastName) {
+            List<String> terms = new ArrayList<>();
+            List<Byte> kinds = new ArrayList<>();
+            if (email != null) {
+                String normalized = SearchTerms.normalize(email);
+                add(terms, kinds, Set.of(normalized), SearchTerms.EMAIL);
+                int at = normalized.indexOf('@');
+                Set<String> parts = new LinkedHashSet<>();
+                SearchTerms.words(at < 0 ? normalized : normalized.substring(0, at), parts);
+                add(terms, kinds, parts, SearchTerms.EMAIL_PART);
+            }
+            Set<String> names = new LinkedHashSet<>();
+            if (firstName != null) {
+                SearchTerms.words(SearchTerms.normalize(firstName), names);
+            }
+            if (lastName != null) {
+                SearchTerms.words(SearchTerms.normalize(lastName), names);
+            }
+            add(terms, kinds, names, SearchTerms.NAME);
+
+            byte[] kindArray = new byte[kinds.size()];
+            for (int i = 0; i < kindArray.length; i++) {
+                kindArray[i] = kinds.get(i);
+            }
+            return new Doc(id, email, firstName, lastName, terms.toArray(new String[0]), kindArray);
+        }
+
+        private static void add(List<String> terms, List<Byte> kinds, Set<String> values, byte kind) {
+            for (String value : values) {
+                terms.add(value);
+                kinds.add(kind);
+            }
+        }
+
+        boolean sameAs(String email, String firstName, String lastName) {
+            return Objects.equals(this.email, email)
+                    && Objects.equals(this.firstName, firstName)
+                    && Objects.equals(this.lastName, lastName);
+        }
+
+        boolean has(String term, byte kind) {
+            for (int i = 0; i < terms.length; i++) {
+                if (kinds[i] == kind && terms[i].equals(term)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
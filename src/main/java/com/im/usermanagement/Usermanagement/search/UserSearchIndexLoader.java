@@ -0,0 +1,137 @@
+package com.im.usermanagement.search;
+
+import com.im.usermanagement.config.ReplicaStickiness;
+import com.im.usermanagement.dto.UserResponse;
+import com.im.usermanagement.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Seeds the {@link UserSearchIndex} from the database once the application is up, on a background
+ * thread so startup doesn't wait for it. Updates committed meanwhile go straight to the index and
+ * win over the rows read here.
+ *
+ * Then reconciles the index with the database every {@code search.reconcile.interval-ms}, which is how
+ * changes committed through other instances reach this one (and how a failed seeding is completed).
+ */
+@Component
+class UserSearchIndexLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchIndexLoader.class);
+
+    private final UserSearchIndex index;
+    private final UserRepository userRepository;
+    private final ReplicaStickiness replicaStickiness;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    // The seeding and the reconciles never overlap: a reconcile due meanwhile is skipped
+    private final ReentrantLock running = new ReentrantLock();
+
+    UserSearchIndexLoader(UserSearchIndex index,
+                          UserRepository userRepository,
+                          ReplicaStickiness replicaStickiness,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${search.load.batch-size:5000}") int batchSize) {
+        this.index = index;
+        this.userRepository = userRepository;
+        this.replicaStickiness = replicaStickiness;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread loader = new Thread(this::load, "search-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void load() {
+        running.lock();
+        long start = System.currentTimeMillis();
+        index.loadStarted();
+        boolean complete = false;
+        try {
+            readActiveUsers(index::load);
+            complete = true;
+            log.info("Search index loaded: {} users in {} ms", index.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException ex) {
+            // Still serves the users created or changed since startup, but isn't ready until the
+            // next reconcile has added the rest
+            log.error("Search index load failed, results will be incomplete", ex);
+        } finally {
+            index.loadFinished(complete);
+            running.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.reconcile.interval-ms:300000}",
+            initialDelayString = "${search.reconcile.interval-ms:300000}")
+    void reconcile() {
+        if (!running.tryLock()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        index.reconcileStarted();
+        long[][] readIds = {new long[1024]};
+        int[] read = {0};
+        boolean complete = false;
+        try {
+            // From the primary: a lagging replica would take back what this instance has just committed
+            replicaStickiness.onPrimary(() -> {
+                readActiveUsers(batch -> {
+                    for (UserResponse row : batch) {
+                        if (read[0] == readIds[0].length) {
+                            readIds[0] = Arrays.copyOf(readIds[0], read[0] * 2);
+                        }
+                        readIds[0][read[0]++] = row.getId();
+                    }
+                    index.reconcile(batch);
+                });
+                return null;
+            });
+            complete = true;
+            log.debug("Search index reconciled: {} users in {} ms", read[0], System.currentTimeMillis() - start);
+        } catch (RuntimeException ex) {
+            // Nothing is dropped on a partial read; the next reconcile tries again
+            log.warn("Search index reconcile failed", ex);
+        } finally {
+            index.reconcileFinished(Arrays.copyOf(readIds[0], read[0]), complete);
+            running.unlock();
+        }
+    }
+
+    // Every active user in id order, handed over batchSize rows at a time
+    private void readActiveUsers(Consumer<List<UserResponse>> consumer) {
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<UserResponse> rows = userRepository.streamActiveForSearch()) {
+                List<UserResponse> batch = new ArrayList<>(batchSize);
+                Iterator<UserResponse> it = rows.iterator();
+                while (it.hasNext()) {
+                    batch.add(it.next());
+                    if (batch.size() == batchSize) {
+                        consumer.accept(batch);
+                        batch.clear();
+                    }
+                }
+                consumer.accept(batch);
+            }
+        });
+    }
+}
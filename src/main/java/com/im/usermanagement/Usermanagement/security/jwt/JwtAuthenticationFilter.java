@@ -0,0 +1,73 @@
+package com.im.usermanagement.security.jwt;
+
+import com.im.usermanagement.security.service.TokenVersionStore;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Authenticates requests carrying an "Authorization: Bearer &lt;jwt&gt;" header.
+ * The Authentication is built from the signed claims alone: no UserDetailsService call and
+ * no database round trip. Revoked tokens are rejected through an in-memory version check.
+ *
+ * Not a @Component on purpose: it is only added to the security chain, never to the servlet chain.
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtTokenProvider tokenProvider;
+    private final TokenVersionStore tokenVersions;
+
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, TokenVersionStore tokenVersions) {
+        this.tokenProvider = tokenProvider;
+        this.tokenVersions = tokenVersions;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            authenticate(header.substring(BEARER_PREFIX.length()).trim());
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private void authenticate(String token) {
+        try {
+            // 1. Signature + expiry (served from the verified-token cache for hot clients)
+            JwtClaims claims = tokenProvider.verify(token);
+
+            // 2. Revocation: tokens issued before the user's last revoke carry an older version
+            if (!tokenVersions.isCurrent(claims.getUserId(), claims.getTokenVersion())) {
+                tokenProvider.countRevoked();
+                log.debug("Rejected revoked JWT for {}", claims.getSubject());
+                return;
+            }
+
+            // 3. Trust the signed roles; the principal is the claims object itself
+            UsernamePasswordAuthenticationToken authentication =
+                    UsernamePasswordAuthenticationToken.authenticated(claims, null, claims.getAuthorities());
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(authentication);
+            SecurityContextHolder.setContext(context);
+        } catch (JwtException | IllegalArgumentException ex) {
+            // Leave the request anonymous; the entry point answers 401 if the endpoint needs a user
+            log.debug("Rejected JWT: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.im.usermanagement.security.jwt;
+
+import com.im.usermanagement.security.authz.RolePermissions;
+import io.jsonwebtoken.Claims;
+import lombok.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Typed, immutable view of the claims of a token that has already been verified.
+ * Instances are shared through the verified-token cache, so they must never be mutated.
+ * It doubles as the authenticated principal, so requests never have to reload the user.
+ */
+@Value
+public class JwtClaims implements Principal {
+
+    static final String USER_ID = "uid";
+    static final String ROLES = "roles";
+    static final String TOKEN_VERSION = "ver";
+
+    String subject;
+    Long userId;
+    List<String> roles;
+    int tokenVersion;
+    long issuedAt;   // epoch millis, 0 when absent
+    long expiresAt;  // epoch millis, 0 when absent
+
+    // Built once per verified token instead of once per request
+    List<GrantedAuthority> authorities;
+    // Permission bits of the roles (see RolePermissions), for AccessPolicy
+    long permissions;
+
+    static JwtClaims from(Claims claims) {
+        List<String> roles = stringList(claims.get(ROLES));
+        List<GrantedAuthority> authorities = new ArrayList<>(roles.size());
+        for (String role : roles) {
+            authorities.add(new SimpleGrantedAuthority(role));
+        }
+
+        Number userId = claims.get(USER_ID, Number.class);
+        Number version = claims.get(TOKEN_VERSION, Number.class);
+        return new JwtClaims(
+                claims.getSubject(),
+                userId == null ? null : userId.longValue(),
+                roles,
+                version == null ? 0 : version.intValue(),
+                toMillis(claims.getIssuedAt()),
+                toMillis(claims.getExpiration()),
+                Collections.unmodifiableList(authorities),
+                RolePermissions.maskOf(roles)
+        );
+    }
+
+    // Principal name is the email, the same value UserDetails.getUsername() returns
+    @Override
+    public String getName() {
+        return subject;
+    }
+
+    private static List<String> stringList(Object value) {
+        if (!(value instanceof Collection<?> values)) {
+            return Collections.emptyList();
+        }
+        List<String> strings = new ArrayList<>(values.size());
+        for (Object item : values) {
+            strings.add(String.valueOf(item));
+        }
+        return Collections.unmodifiableList(strings);
+    }
+
+    private static long toMillis(Date date) {
+        return date == null ? 0L : date.getTime();
+    }
+}
@@ -1,72 +1,217 @@
 package com.im.usermanagement.security.jwt;
 
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.security.service.TokenVersionStore;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.io.DecodingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
 import java.security.Key;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Issues and verifies the access tokens: RS256, signed with the current key of the {@link SigningKeyRing}
+ * and carrying its id in the "kid" header, so anyone holding the published JWKS can verify them.
+ * Metrics: jwt.generate, jwt.verify (tagged result=verified|cached|rejected) and
+ * jwt.verify.failures (tagged reason=signature|expired|malformed|unsupported|empty|revoked|invalid).
+ */
 @Component
 public class JwtTokenProvider {
 
-    // ⭐ You MUST define this secret key in your application.properties!
-    // Example: jwt.secret=YourSuperLongAndSecureSecretKeyThatIsAtLeast32Bytes
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenProvider.class);
 
-    // Token expiration time (e.g., 1 day)
-    @Value("${jwt.expiration.ms}")
-    private int jwtExpirationInMs;
+    private final SigningKeyRing keyRing;
+    private final JwtParser parser;
+    private final int jwtExpirationInMs;
+    private final VerifiedTokenCache verifiedTokens;
+    private final TokenVersionStore tokenVersions;
 
-    private Key key() {
-        // Generate a secure key for signing
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    private final MeterRegistry meterRegistry;
+    private final Timer generateTimer;
+    private final Timer verifiedTimer;
+    private final Timer cachedTimer;
+    private final Timer rejectedTimer;
+    private final Map<String, Counter> failures = new ConcurrentHashMap<>();
+
+    public JwtTokenProvider(SigningKeyRing keyRing,
+                            @Value("${jwt.expiration.ms}") int jwtExpirationInMs,
+                            @Value("${jwt.verified-cache.max-entries:10000}") int verifiedCacheMaxEntries,
+                            TokenVersionStore tokenVersions,
+                            MeterRegistry meterRegistry) {
+        // The parser is immutable and thread-safe, so build it once; it picks the key per token by kid
+        this.keyRing = keyRing;
+        this.parser = Jwts.parserBuilder().setSigningKeyResolver(new KeyRingResolver(keyRing)).build();
+        this.jwtExpirationInMs = jwtExpirationInMs;
+        this.verifiedTokens = new VerifiedTokenCache(verifiedCacheMaxEntries);
+        this.tokenVersions = tokenVersions;
+
+        this.meterRegistry = meterRegistry;
+        this.generateTimer = Timer.builder("jwt.generate")
+                .description("Time to build and sign an access token")
+                .register(meterRegistry);
+        this.verifiedTimer = verifyTimer("verified");
+        this.cachedTimer = verifyTimer("cached");
+        this.rejectedTimer = verifyTimer("rejected");
+    }
+
+    private Timer verifyTimer(String result) {
+        return Timer.builder("jwt.verify")
+                .description("Time to verify an access token (signature check, or verified-token cache hit)")
+                .tag("result", result)
+                .register(meterRegistry);
     }
 
     // 1. Generate token
+    // The token carries everything the JwtAuthenticationFilter needs (user id, roles, version),
+    // so authenticated requests never have to load the user again.
     public String generateToken(Authentication authentication) {
+        return generateTimer.record(() -> buildToken(authentication));
+    }
+
+    private String buildToken(Authentication authentication) {
         String username = authentication.getName();
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
-        return Jwts.builder()
+        List<String> roles = new ArrayList<>();
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            roles.add(authority.getAuthority());
+        }
+
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(username)
-                .setIssuedAt(new Date())
+                .claim(JwtClaims.ROLES, roles);
+        if (authentication.getPrincipal() instanceof User user) {
+            builder.claim(JwtClaims.USER_ID, user.getId())
+                    .claim(JwtClaims.TOKEN_VERSION, tokenVersions.currentVersion(user.getId()));
+        }
+
+        SigningKeyRing.SigningKey signingKey = keyRing.current();
+        return builder
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+                .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(key(), SignatureAlgorithm.HS512)
+                .signWith(signingKey.privateKey(), SignatureAlgorithm.RS256)
                 .compact();
     }
 
+    // Only RS256 with a kid of the ring: refuses "alg": "none" / HS256 tokens and unknown or retired keys
+    private static final class KeyRingResolver extends SigningKeyResolverAdapter {
+
+        private final SigningKeyRing keyRing;
+
+        private KeyRingResolver(SigningKeyRing keyRing) {
+            this.keyRing = keyRing;
+        }
+
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            if (!SignatureAlgorithm.RS256.getValue().equals(header.getAlgorithm())) {
+                throw new UnsupportedJwtException("Unexpected signing algorithm " + header.getAlgorithm());
+            }
+            Key key = keyRing.verificationKey(header.getKeyId());
+            if (key == null) {
+                throw new io.jsonwebtoken.security.SignatureException("Unknown signing key " + header.getKeyId());
+            }
+            return key;
+        }
+    }
+
+    /**
+     * Verifies the token once and returns its claims.
+     * Recently verified tokens are served from a bounded cache keyed by the token digest,
+     * so repeat callers skip the signature check until the token expires.
+     * @throws JwtException if the token is malformed, unsigned, tampered with or expired.
+     * @throws IllegalArgumentException if the token is empty.
+     */
+    public JwtClaims verify(String token) {
+        long start = System.nanoTime();
+        Timer outcome = rejectedTimer;
+        try {
+            if (token == null || token.isBlank()) {
+                throw new IllegalArgumentException("JWT claims string is empty.");
+            }
+
+            long now = System.currentTimeMillis();
+            ByteBuffer digest = verifiedTokens.digest(token);
+            JwtClaims cached = verifiedTokens.get(digest, now);
+            if (cached != null) {
+                outcome = cachedTimer;
+                return cached;
+            }
+
+            JwtClaims claims = JwtClaims.from(parser.parseClaimsJws(token).getBody());
+            verifiedTokens.put(digest, claims, now);
+            outcome = verifiedTimer;
+            return claims;
+        } catch (JwtException | IllegalArgumentException ex) {
+            countFailure(reason(ex));
+            throw ex;
+        } finally {
+            outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // A valid token whose version was revoked (see JwtAuthenticationFilter)
+    void countRevoked() {
+        countFailure("revoked");
+    }
+
+    private void countFailure(String reason) {
+        failures.computeIfAbsent(reason, r -> Counter.builder("jwt.verify.failures")
+                        .description("Access tokens rejected, by reason")
+                        .tag("reason", r)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    private static String reason(RuntimeException ex) {
+        if (ex instanceof io.jsonwebtoken.security.SignatureException || ex instanceof SignatureException) {
+            return "signature";
+        }
+        if (ex instanceof ExpiredJwtException) {
+            return "expired";
+        }
+        if (ex instanceof MalformedJwtException || ex instanceof DecodingException) {
+            return "malformed";
+        }
+        if (ex instanceof UnsupportedJwtException) {
+            return "unsupported";
+        }
+        if (ex instanceof IllegalArgumentException) {
+            return "empty";
+        }
+        return "invalid";
+    }
+
     // 2. Get username from token
     public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getSubject();
+        return verify(token).getSubject();
     }
 
     // 3. Validate token
     public boolean validateToken(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(authToken);
+            verify(authToken);
             return true;
-        } catch (SignatureException ex) {
-            System.out.println("Invalid JWT signature");
-        } catch (MalformedJwtException ex) {
-            System.out.println("Invalid JWT token");
-        } catch (ExpiredJwtException ex) {
-            System.out.println("Expired JWT token");
-        } catch (UnsupportedJwtException ex) {
-            System.out.println("Unsupported JWT token");
-        } catch (IllegalArgumentException ex) {
-            System.out.println("JWT claims string is empty.");
+        } catch (JwtException | IllegalArgumentException ex) {
+            // Already counted in jwt.verify.failures; per-token detail only when debugging
+            log.debug("Invalid JWT ({}): {}", reason(ex), ex.getMessage());
+            return false;
         }
-        return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,284 @@
+package com.im.usermanagement.security.jwt;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ResourceUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The RSA keys access tokens are signed (RS256) and verified with, published as a JWKS so other
+ * services can verify tokens locally.
+ *
+ * Three kinds of keys are published at any time:
+ * 1. current: signs new tokens;
+ * 2. next: generated one rotation ahead, so verifiers caching the JWKS already know it when it
+ *    starts signing;
+ * 3. retired: former current keys, kept until the last token they signed has expired.
+ *
+ * The whole ring is one immutable snapshot swapped on rotation: readers never lock.
+ *
+ * By default keys are generated in memory and rotated on a schedule: every instance (and every
+ * restart) has its own ring, so tokens only verify on the instance that issued them. With
+ * jwt.signing.keystore.location set, the ring is read from that keystore instead and never rotated
+ * in process: every instance signs with the same key (signing-alias) and accepts every other key of
+ * the keystore, which is how keys are rotated (add the new key, then switch the alias, then remove
+ * the old one once its tokens have expired).
+ */
+@Component
+public class SigningKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(SigningKeyRing.class);
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    public record SigningKey(String kid, KeyPair keyPair, Instant retireAt) {
+
+        public PrivateKey privateKey() {
+            return keyPair.getPrivate();
+        }
+
+        public PublicKey publicKey() {
+            return keyPair.getPublic();
+        }
+    }
+
+    private record Snapshot(SigningKey current, SigningKey next, List<SigningKey> retired,
+                            String jwks, String etag) {
+    }
+
+    private final int keySize;
+    private final long retainAfterUseMs;
+    private final boolean fromKeystore;
+    private volatile Snapshot snapshot;
+
+    /**
+     * A ring of generated keys, rotated in memory.
+     */
+    public SigningKeyRing(int keySize, long tokenLifetimeMs, long clockSkewMs) {
+        this(keySize, tokenLifetimeMs, clockSkewMs, "", "", "PKCS12", "");
+    }
+
+    @Autowired
+    public SigningKeyRing(@Value("${jwt.signing.key-size:2048}") int keySize,
+                          @Value("${jwt.expiration.ms}") long tokenLifetimeMs,
+                          @Value("${jwt.signing.clock-skew-ms:60000}") long clockSkewMs,
+                          @Value("${jwt.signing.keystore.location:}") String keystoreLocation,
+                          @Value("${jwt.signing.keystore.password:}") String keystorePassword,
+                          @Value("${jwt.signing.keystore.type:PKCS12}") String keystoreType,
+                          @Value("${jwt.signing.keystore.signing-alias:}") String signingAlias) {
+        this.keySize = keySize;
+        // A retired key must outlive every token it signed
+        this.retainAfterUseMs = tokenLifetimeMs + clockSkewMs;
+        this.fromKeystore = !keystoreLocation.isBlank();
+        if (fromKeystore) {
+            this.snapshot = load(keystoreLocation, keystorePassword.toCharArray(), keystoreType, signingAlias);
+            log.info("JWT signing keys read from {}: signing with {}, {} other key(s) accepted",
+                    keystoreLocation, snapshot.current().kid(), snapshot.retired().size());
+        } else {
+            this.snapshot = snapshot(generate(), generate(), List.of());
+        }
+    }
+
+    // Key signing new tokens
+    public SigningKey current() {
+        return snapshot.current();
+    }
+
+    /**
+     * Public key for a kid found in a token header, or null if no key of the ring has that id.
+     */
+    public PublicKey verificationKey(String kid) {
+        Snapshot ring = snapshot;
+        if (ring.current().kid().equals(kid)) {
+            return ring.current().publicKey();
+        }
+        if (ring.next() != null && ring.next().kid().equals(kid)) {
+            return ring.next().publicKey();
+        }
+        Instant now = Instant.now();
+        for (SigningKey key : ring.retired()) {
+            if (key.kid().equals(kid) && key.retireAt().isAfter(now)) {
+                return key.publicKey();
+            }
+        }
+        return null;
+    }
+
+    // RFC 7517 JSON Web Key Set of every published key, rebuilt only when the ring changes
+    public String jwks() {
+        return snapshot.jwks();
+    }
+
+    // Strong ETag of jwks()
+    public String etag() {
+        return snapshot.etag();
+    }
+
+    /**
+     * Promotes the next key to current, retires the current one and generates a new next key.
+     * Does nothing for a ring read from a keystore: its keys change with the keystore.
+     */
+    @Scheduled(fixedRateString = "${jwt.signing.rotation-interval-ms:86400000}",
+            initialDelayString = "${jwt.signing.rotation-interval-ms:86400000}")
+    public synchronized void rotate() {
+        if (fromKeystore) {
+            return;
+        }
+        Snapshot ring = snapshot;
+        Instant now = Instant.now();
+
+        List<SigningKey> retired = new ArrayList<>();
+        for (SigningKey key : ring.retired()) {
+            if (key.retireAt().isAfter(now)) {
+                retired.add(key);
+            }
+        }
+        SigningKey old = ring.current();
+        retired.add(new SigningKey(old.kid(), old.keyPair(), now.plusMillis(retainAfterUseMs)));
+
+        snapshot = snapshot(ring.next(), generate(), List.copyOf(retired));
+        log.info("Rotated JWT signing key: now signing with {}, {} retired key(s) still accepted",
+                ring.next().kid(), retired.size());
+    }
+
+    private SigningKey generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(keySize);
+            KeyPair keyPair = generator.generateKeyPair();
+            return new SigningKey(thumbprint((RSAPublicKey) keyPair.getPublic()), keyPair, Instant.MAX);
+        } catch (NoSuchAlgorithmException ex) {
+            // Every JRE is required to ship RSA
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // Key entries sign (only signingAlias, which may be omitted when there is a single one) and verify;
+    // certificate entries only verify. Sorted by alias, so every instance publishes the same JWKS and ETag.
+    private static Snapshot load(String location, char[] password, String type, String signingAlias) {
+        try (InputStream in = ResourceUtils.getURL(location).openStream()) {
+            KeyStore store = KeyStore.getInstance(type);
+            store.load(in, password);
+
+            List<String> aliases = Collections.list(store.aliases());
+            Collections.sort(aliases);
+            List<String> keyAliases = aliases.stream().filter(alias -> isKeyEntry(store, alias)).toList();
+            String signing = signingAlias.isBlank() && keyAliases.size() == 1 ? keyAliases.get(0) : signingAlias;
+            if (!keyAliases.contains(signing)) {
+                throw new IllegalStateException("No private key '" + signing + "' in " + location
+                        + " (key entries: " + keyAliases + "), set jwt.signing.keystore.signing-alias");
+            }
+
+            SigningKey current = null;
+            List<SigningKey> others = new ArrayList<>();
+            for (String alias : aliases) {
+                Certificate certificate = store.getCertificate(alias);
+                if (certificate == null || !(certificate.getPublicKey() instanceof RSAPublicKey publicKey)) {
+                    continue;
+                }
+                PrivateKey privateKey = alias.equals(signing) ? (PrivateKey) store.getKey(alias, password) : null;
+                SigningKey key = new SigningKey(thumbprint(publicKey), new KeyPair(publicKey, privateKey), Instant.MAX);
+                if (privateKey != null) {
+                    current = key;
+                } else {
+                    others.add(key);
+                }
+            }
+            if (current == null) {
+                throw new IllegalStateException("Key '" + signing + "' in " + location + " is not an RSA key");
+            }
+            return snapshot(current, null, List.copyOf(others));
+        } catch (GeneralSecurityException | IOException ex) {
+            throw new IllegalStateException("Cannot read the JWT signing keys from " + location, ex);
+        }
+    }
+
+    private static boolean isKeyEntry(KeyStore store, String alias) {
+        try {
+            return store.isKeyEntry(alias);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Snapshot snapshot(SigningKey current, SigningKey next, List<SigningKey> retired) {
+        List<Map<String, String>> keys = new ArrayList<>();
+        keys.add(jwk(current));
+        if (next != null) {
+            keys.add(jwk(next));
+        }
+        retired.forEach(key -> keys.add(jwk(key)));
+        try {
+            String jwks = JSON.writeValueAsString(Map.of("keys", keys));
+            String etag = "\"" + BASE64URL.encodeToString(sha256(jwks)) + "\"";
+            return new Snapshot(current, next, retired, jwks, etag);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Map<String, String> jwk(SigningKey key) {
+        RSAPublicKey publicKey = (RSAPublicKey) key.publicKey();
+        Map<String, String> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "RSA");
+        jwk.put("use", "sig");
+        jwk.put("alg", "RS256");
+        jwk.put("kid", key.kid());
+        jwk.put("n", base64url(publicKey.getModulus()));
+        jwk.put("e", base64url(publicKey.getPublicExponent()));
+        return jwk;
+    }
+
+    // RFC 7638 JWK thumbprint: the kid is derived from the key, so it is stable and unique
+    private static String thumbprint(RSAPublicKey publicKey) {
+        String canonical = "{\"e\":\"" + base64url(publicKey.getPublicExponent())
+                + "\",\"kty\":\"RSA\",\"n\":\"" + base64url(publicKey.getModulus()) + "\"}";
+        return BASE64URL.encodeToString(sha256(canonical));
+    }
+
+    // Unsigned big-endian bytes, as JWK requires (BigInteger adds a sign byte)
+    private static String base64url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return BASE64URL.encodeToString(bytes);
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException ex) {
+            // Every JRE is required to ship SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.im.usermanagement.security.jwt;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import com.im.usermanagement.support.BoundedMapSweeper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of tokens whose signature has already been checked.
+ * Keys are SHA-256 digests of the compact token (never the token itself), values are the
+ * verified claims. An entry is dropped as soon as the token it belongs to expires.
+ */
+class VerifiedTokenCache {
+
+    private final int maxEntries;
+    private final Map<ByteBuffer, JwtClaims> entries;
+    private final BoundedMapSweeper<ByteBuffer, JwtClaims> sweeper;
+
+    VerifiedTokenCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new ConcurrentHashMap<>(Math.max(16, maxEntries / 4));
+        this.sweeper = new BoundedMapSweeper<>(entries, maxEntries);
+    }
+
+    ByteBuffer digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException ex) {
+            // Every JRE is required to ship SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    JwtClaims get(ByteBuffer key, long now) {
+        JwtClaims claims = entries.get(key);
+        if (claims == null) {
+            return null;
+        }
+        if (claims.getExpiresAt() <= now) {
+            entries.remove(key, claims);
+            return null;
+        }
+        return claims;
+    }
+
+    void put(ByteBuffer key, JwtClaims claims, long now) {
+        // Tokens without an expiry are never cached: we could not tell when to evict them
+        if (maxEntries <= 0 || claims.getExpiresAt() <= now) {
+            return;
+        }
+        // Expired tokens go first
+        sweeper.makeRoom(cached -> cached.getExpiresAt() <= now);
+        entries.put(key, claims);
+    }
+
+    int size() {
+        return entries.size();
+    }
+}
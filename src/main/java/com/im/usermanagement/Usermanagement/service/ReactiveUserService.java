@@ -0,0 +1,53 @@
+package com.im.usermanagement.service;
+
+import com.im.usermanagement.dto.UserResponse;
+import com.im.usermanagement.exception.ResourceNotFoundException;
+import com.im.usermanagement.repository.ReactiveUserRepository;
+import com.im.usermanagement.repository.ReactiveUserRepository.VersionedUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-only user lookups that never block a request thread, for callers that fan out many
+ * concurrent reads (see ReactiveUserController). Writes stay on {@link UserService}.
+ * Reads here go to the database every time: the second-level cache is on the JPA side only.
+ */
+@Service
+public class ReactiveUserService {
+
+    private final ReactiveUserRepository reactiveUserRepository;
+    private final int maxStreamSize;
+
+    public ReactiveUserService(ReactiveUserRepository reactiveUserRepository,
+                               @Value("${users.reactive.max-stream-size:10000}") int maxStreamSize) {
+        this.reactiveUserRepository = reactiveUserRepository;
+        this.maxStreamSize = maxStreamSize;
+    }
+
+    /**
+     * Emits ResourceNotFoundException if there is no such user.
+     */
+    public Mono<VersionedUser> getUserById(long id) {
+        return reactiveUserRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("User not found with id: " + id)));
+    }
+
+    /**
+     * Emits ResourceNotFoundException if there is no such user.
+     */
+    public Mono<VersionedUser> getUserByEmail(String email) {
+        return reactiveUserRepository.findByEmail(email)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("User not found with email: " + email)));
+    }
+
+    /**
+     * Up to {@code limit} users after {@code cursor}, in id order, streamed as they are read.
+     * The limit is capped at users.reactive.max-stream-size; continue from the last id received.
+     */
+    public Flux<UserResponse> streamUsers(Long cursor, int limit, Boolean active) {
+        int size = Math.max(1, Math.min(limit, maxStreamSize));
+        return reactiveUserRepository.findPageAfter(cursor == null ? 0L : cursor, active, size);
+    }
+}
@@ -0,0 +1,89 @@
+package com.im.usermanagement.service;
+
+import com.im.usermanagement.model.Role;
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.repository.RoleRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Startup-loaded cache of the (tiny, almost static) roles table, indexed by RoleName.
+ * Any RoleName missing from the database is inserted on startup, so a fresh database works
+ * without manual seeding. Lookups never hit the database; call {@link #refresh()} after an
+ * admin changes the roles table.
+ *
+ * The returned Role instances are shared and detached: reference them from users, never modify them.
+ */
+@Service
+public class RoleRegistry implements SmartInitializingSingleton {
+
+    private final RoleRepository roleRepository;
+
+    // Replaced wholesale on refresh, never mutated in place, so readers need no locking
+    private volatile Map<RoleName, Role> roles = Collections.emptyMap();
+
+    // A lock rather than 'synchronized': refresh does JDBC I/O, which would pin a virtual thread
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    public RoleRegistry(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    // Runs once all singletons exist, i.e. before the web server starts taking requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        refresh();
+    }
+
+    /**
+     * Returns the Role entity for the given name without querying the database.
+     */
+    public Role get(RoleName name) {
+        Role role = roles.get(name);
+        if (role == null) {
+            // Only possible if the table was emptied behind our back; reload and seed again
+            refresh();
+            role = roles.get(name);
+        }
+        return role;
+    }
+
+    /**
+     * Reloads every role from the database, inserting any RoleName that is still missing.
+     */
+    public void refresh() {
+        refreshLock.lock();
+        try {
+            Map<RoleName, Role> loaded = new EnumMap<>(RoleName.class);
+            for (Role role : roleRepository.findAll()) {
+                loaded.put(role.getName(), role);
+            }
+
+            for (RoleName name : RoleName.values()) {
+                if (!loaded.containsKey(name)) {
+                    loaded.put(name, seed(name));
+                }
+            }
+            roles = loaded;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private Role seed(RoleName name) {
+        Role role = new Role();
+        role.setName(name);
+        try {
+            return roleRepository.save(role);
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance seeded it first (roles.name is unique)
+            return roleRepository.findByName(name).orElseThrow(() -> ex);
+        }
+    }
+}
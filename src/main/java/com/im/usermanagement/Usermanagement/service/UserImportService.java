@@ -0,0 +1,269 @@
+package com.im.usermanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.im.usermanagement.audit.AuditEventType;
+import com.im.usermanagement.audit.AuditLog;
+import com.im.usermanagement.dto.ImportReport;
+import com.im.usermanagement.dto.ImportRowResult;
+import com.im.usermanagement.dto.ImportRowResult.Status;
+import com.im.usermanagement.dto.UserImportRecord;
+import com.im.usermanagement.model.Role;
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.repository.UserRepository;
+import com.im.usermanagement.search.UserSearchIndex;
+import com.im.usermanagement.security.crypto.BoundedPasswordEncoder;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk import of users from CSV or NDJSON uploads.
+ * The file is streamed and processed in chunks: one email-uniqueness query per chunk, passwords
+ * hashed in parallel, and one transaction per chunk whose inserts go out as JDBC batches.
+ * A failing chunk never rolls back the chunks before it.
+ * Memory is bounded by the chunk size: created rows are only counted, and the report lists at most
+ * users.import.max-reported-rows rejected ones.
+ */
+@Service
+public class UserImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private final UserRepository userRepository;
+    private final RoleRegistry roleRegistry;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService hashingPool;
+    private final AuditLog auditLog;
+    private final UserSearchIndex searchIndex;
+    private final int chunkSize;
+    private final int maxReportedRows;
+
+    public UserImportService(UserRepository userRepository,
+                             RoleRegistry roleRegistry,
+                             PasswordEncoder passwordEncoder,
+                             ObjectMapper objectMapper,
+                             EntityManager entityManager,
+                             PlatformTransactionManager transactionManager,
+                             AuditLog auditLog,
+                             UserSearchIndex searchIndex,
+                             @Value("${users.import.chunk-size:500}") int chunkSize,
+                             @Value("${users.import.max-reported-rows:1000}") int maxReportedRows,
+                             @Value("${users.import.hash-threads:0}") int hashThreads) {
+        this.userRepository = userRepository;
+        this.roleRegistry = roleRegistry;
+        // Bypass the bounded interactive pool: a big import must not push logins into 503s.
+        // This service's own hashing pool is the import's CPU budget instead.
+        this.passwordEncoder = passwordEncoder instanceof BoundedPasswordEncoder bounded
+                ? bounded.getDelegate()
+                : passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxReportedRows = maxReportedRows;
+        this.auditLog = auditLog;
+        this.searchIndex = searchIndex;
+
+        // BCrypt is CPU bound: more threads than cores only adds contention.
+        // 0 = half the cores, leaving the rest to the interactive login/register pool.
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.hashingPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "user-import-hash-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashingPool.shutdownNow();
+    }
+
+    /**
+     * Imports every record of the upload and returns the totals and the rejected rows.
+     * Not @Transactional on purpose: each chunk commits on its own.
+     */
+    public ImportReport importUsers(InputStream in, Format format) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportReport report = new ImportReport(maxReportedRows);
+
+        // Emails of the current chunk, to flag duplicates within it. A repeat of an email from an
+        // earlier chunk is caught by the uniqueness query, since that chunk has committed by then.
+        Set<String> chunkEmails = new HashSet<>();
+
+        try (UserRecordReader reader = format == Format.CSV
+                ? UserRecordReader.csv(in)
+                : UserRecordReader.ndjson(in, objectMapper)) {
+
+            List<UserImportRecord> chunk = new ArrayList<>(chunkSize);
+            UserImportRecord record;
+            while ((record = reader.next()) != null) {
+                String problem = reader.parseError != null ? reader.parseError : validate(record);
+                if (problem != null) {
+                    report.add(new ImportRowResult(record.getLine(), record.getEmail(), Status.INVALID, problem));
+                } else if (!chunkEmails.add(record.getEmail())) {
+                    report.add(new ImportRowResult(record.getLine(), record.getEmail(), Status.DUPLICATE,
+                            "Email appears more than once in the file"));
+                } else {
+                    chunk.add(record);
+                }
+
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, report);
+                    chunk.clear();
+                    chunkEmails.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, report);
+            }
+        }
+
+        // Rows are reported as they are decided (invalid ones first); give them back in file order
+        report.getRows().sort(Comparator.comparingLong(ImportRowResult::getLine));
+        report.setElapsedMs(System.currentTimeMillis() - start);
+
+        // One entry per upload, not per row
+        auditLog.record(AuditEventType.USERS_IMPORTED, null,
+                "format=" + format + ", rows=" + report.getTotal() + ", created=" + report.getCreated());
+        return report;
+    }
+
+    private void importChunk(List<UserImportRecord> chunk, ImportReport report) {
+        // 1. One query for the whole chunk instead of existsByEmail per row
+        Set<String> emails = new LinkedHashSet<>();
+        chunk.forEach(record -> emails.add(record.getEmail()));
+        Set<String> existing = userRepository.findExistingEmails(emails);
+
+        List<UserImportRecord> accepted = new ArrayList<>(chunk.size());
+        for (UserImportRecord record : chunk) {
+            if (existing.contains(record.getEmail())) {
+                report.add(new ImportRowResult(record.getLine(), record.getEmail(), Status.DUPLICATE,
+                        "User with email " + record.getEmail() + " already exists."));
+            } else {
+                accepted.add(record);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        // 2. Hash every password of the chunk in parallel, outside the transaction
+        List<User> users = hashAndBuild(accepted);
+
+        // 3. Insert the chunk in one transaction (JDBC batches); fall back to row by row on conflict
+        try {
+            transactionTemplate.executeWithoutResult(status -> saveBatch(users));
+            // Committed: one index merge for the whole chunk
+            searchIndex.putAll(users);
+            report.addCreated(users.size());
+        } catch (DataIntegrityViolationException ex) {
+            // Someone registered one of these emails since step 1, or a row breaks a column constraint:
+            // find out which row it was
+            for (int i = 0; i < users.size(); i++) {
+                ImportRowResult rejected = saveSingle(accepted.get(i), users.get(i));
+                if (rejected == null) {
+                    report.addCreated(1);
+                } else {
+                    report.add(rejected);
+                }
+            }
+        }
+    }
+
+    private List<User> hashAndBuild(List<UserImportRecord> records) {
+        Role defaultRole = roleRegistry.get(RoleName.ROLE_USER);
+
+        List<CompletableFuture<String>> hashes = new ArrayList<>(records.size());
+        for (UserImportRecord record : records) {
+            hashes.add(CompletableFuture.supplyAsync(() -> passwordEncoder.encode(record.getPassword()), hashingPool));
+        }
+
+        List<User> users = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            UserImportRecord record = records.get(i);
+            User user = new User();
+            user.setEmail(record.getEmail());
+            user.setFirstName(record.getFirstName());
+            user.setLastName(record.getLastName());
+            user.setPassword(hashes.get(i).join());
+            user.setRoles(List.of(defaultRole));
+            users.add(user);
+        }
+        return users;
+    }
+
+    private void saveBatch(List<User> users) {
+        userRepository.saveAll(users);
+        // Flush the batch now and drop the entities so the session doesn't grow with the file.
+        // Through the repository: its proxy turns a constraint violation into DataIntegrityViolationException.
+        userRepository.flush();
+        entityManager.clear();
+    }
+
+    // Null once the user is created, else the reason it was not
+    private ImportRowResult saveSingle(UserImportRecord record, User user) {
+        // Undo what the failed batch attached to the entity: its id and Hibernate's collection wrapper
+        user.setId(null);
+        user.setRoles(List.of(roleRegistry.get(RoleName.ROLE_USER)));
+        try {
+            transactionTemplate.executeWithoutResult(status -> userRepository.save(user));
+            searchIndex.put(user);
+            return null;
+        } catch (DataIntegrityViolationException ex) {
+            if (userRepository.existsByEmail(record.getEmail())) {
+                return new ImportRowResult(record.getLine(), record.getEmail(), Status.DUPLICATE,
+                        "User with email " + record.getEmail() + " already exists.");
+            }
+            // Not the email: a value the table does not accept (e.g. longer than its column)
+            return new ImportRowResult(record.getLine(), record.getEmail(), Status.FAILED,
+                    "Rejected by the database: " + ex.getMostSpecificCause().getMessage());
+        } catch (RuntimeException ex) {
+            return new ImportRowResult(record.getLine(), record.getEmail(), Status.FAILED, ex.getMessage());
+        }
+    }
+
+    // Same rules as RegisterRequestDTO
+    private static String validate(UserImportRecord record) {
+        if (isBlank(record.getEmail()) || record.getEmail().indexOf('@') < 1) {
+            return "Must be a valid email format";
+        }
+        if (isBlank(record.getFirstName())) {
+            return "First name is required";
+        }
+        if (isBlank(record.getLastName())) {
+            return "Last name is required";
+        }
+        if (record.getPassword() == null || record.getPassword().length() < 6) {
+            return "Password must be at least 6 characters";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,199 @@
+package com.im.usermanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.im.usermanagement.dto.UserImportRecord;
+import com.im.usermanagement.exception.InvalidImportException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads bulk import records one line at a time from an upload, so the file is never held in memory.
+ * A line that can't be parsed is returned as a record with a {@link #parseError} instead of aborting
+ * the whole import.
+ */
+abstract class UserRecordReader implements Closeable {
+
+    private final BufferedReader reader;
+    protected long lineNumber;
+
+    // Set when the last record returned by next() could not be parsed
+    String parseError;
+
+    private UserRecordReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    static UserRecordReader csv(InputStream in) {
+        return new Csv(in);
+    }
+
+    static UserRecordReader ndjson(InputStream in, ObjectMapper objectMapper) {
+        return new NdJson(in, objectMapper);
+    }
+
+    /**
+     * Returns the next record, or null at end of input. Blank lines are skipped.
+     */
+    UserImportRecord next() {
+        String line = readLine();
+        while (line != null && line.isBlank()) {
+            line = readLine();
+        }
+        if (line == null) {
+            return null;
+        }
+
+        parseError = null;
+        UserImportRecord record;
+        try {
+            record = parse(line);
+        } catch (IllegalArgumentException ex) {
+            parseError = ex.getMessage();
+            record = new UserImportRecord();
+        }
+        record.setLine(lineNumber);
+        return record;
+    }
+
+    protected abstract UserImportRecord parse(String line);
+
+    protected String readLine() {
+        try {
+            String line = reader.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * CSV with a header row naming the columns (email, firstName, lastName, password; any order).
+     * Fields may be double-quoted, with "" as an escaped quote. Quoted line breaks are not supported.
+     */
+    private static final class Csv extends UserRecordReader {
+
+        private Map<String, Integer> columns;
+
+        private Csv(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        UserImportRecord next() {
+            if (columns == null) {
+                readHeader();
+            }
+            return super.next();
+        }
+
+        private void readHeader() {
+            String header = readLine();
+            columns = new HashMap<>();
+            if (header == null) {
+                return;
+            }
+            List<String> names = split(header.startsWith("\uFEFF") ? header.substring(1) : header);
+            for (int i = 0; i < names.size(); i++) {
+                columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            for (String required : new String[]{"email", "firstname", "lastname", "password"}) {
+                if (!columns.containsKey(required)) {
+                    throw new InvalidImportException("CSV header is missing the '" + required + "' column");
+                }
+            }
+        }
+
+        @Override
+        protected UserImportRecord parse(String line) {
+            List<String> fields = split(line);
+            UserImportRecord record = new UserImportRecord();
+            record.setEmail(field(fields, "email"));
+            record.setFirstName(field(fields, "firstname"));
+            record.setLastName(field(fields, "lastname"));
+            record.setPassword(field(fields, "password"));
+            return record;
+        }
+
+        private String field(List<String> fields, String column) {
+            int index = columns.get(column);
+            return index < fields.size() ? fields.get(index).trim() : null;
+        }
+
+        private static List<String> split(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        current.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(current.toString());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("Unterminated quoted field");
+            }
+            fields.add(current.toString());
+            return fields;
+        }
+    }
+
+    /**
+     * One JSON object per line: {"email":..,"firstName":..,"lastName":..,"password":..}
+     */
+    private static final class NdJson extends UserRecordReader {
+
+        private final ObjectMapper objectMapper;
+
+        private NdJson(InputStream in, ObjectMapper objectMapper) {
+            super(in);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        protected UserImportRecord parse(String line) {
+            try {
+                UserImportRecord record = objectMapper.readValue(line, UserImportRecord.class);
+                if (record == null) {
+                    throw new IllegalArgumentException("Expected a JSON object");
+                }
+                return record;
+            } catch (JsonProcessingException ex) {
+                throw new IllegalArgumentException("Malformed JSON: " + ex.getOriginalMessage());
+            }
+        }
+    }
+}
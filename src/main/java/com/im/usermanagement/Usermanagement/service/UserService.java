@@ -1,46 +1,176 @@
 package com.im.usermanagement.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.im.usermanagement.audit.AuditEventType;
+import com.im.usermanagement.audit.AuditLog;
+import com.im.usermanagement.config.ReplicaStickiness;
+import com.im.usermanagement.dto.UserFilter;
+import com.im.usermanagement.dto.UserPage;
+import com.im.usermanagement.dto.UserResponse;
 import com.im.usermanagement.exception.UserAlreadyExistsException; // We will create this later
 import com.im.usermanagement.model.User;
+import com.im.usermanagement.dto.UserSearchHit;
 import com.im.usermanagement.repository.UserRepository;
+import com.im.usermanagement.search.UserSearchIndex;
+import com.im.usermanagement.security.service.RefreshTokenService;
+import com.im.usermanagement.security.service.TokenVersionStore;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // Import for transaction management
 
 
+import com.im.usermanagement.exception.PreconditionFailedException;
 import com.im.usermanagement.exception.ResourceNotFoundException; // <-- ADD THIS LINE
 // ... other imports
 import com.im.usermanagement.exception.UserAlreadyExistsException; // <-- ADD THIS LINE (for createUser method)
 
 // ... rest of the UserService code
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 @Service // 1. Marks this class as a Spring business service
 public class UserService {
 
     private final UserRepository userRepository; // 2. Final field for dependency injection
+    private final TokenVersionStore tokenVersions;
+    private final RefreshTokenService refreshTokenService;
+    private final AuditLog auditLog;
+    private final UserSearchIndex searchIndex;
+    private final ReplicaStickiness replicaStickiness;
+    private final EntityManager entityManager;
+    private final ObjectWriter exportWriter;
+
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final int EXPORT_FLUSH_EVERY = 500;
 
     // 3. Constructor Injection: The preferred way to inject dependencies
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository,
+                       TokenVersionStore tokenVersions,
+                       RefreshTokenService refreshTokenService,
+                       AuditLog auditLog,
+                       UserSearchIndex searchIndex,
+                       ReplicaStickiness replicaStickiness,
+                       EntityManager entityManager,
+                       ObjectMapper objectMapper) {
         this.userRepository = userRepository;
+        this.tokenVersions = tokenVersions;
+        this.refreshTokenService = refreshTokenService;
+        this.auditLog = auditLog;
+        this.searchIndex = searchIndex;
+        this.replicaStickiness = replicaStickiness;
+        this.entityManager = entityManager;
+        // We flush in chunks ourselves; flushing after every row defeats the buffering
+        this.exportWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     // --- CRUD Operations ---
 
     /**
-     * Retrieves all active users from the database.
+     * Retrieves one keyset page of users, ordered by id.
+     * @param cursor the nextCursor of the previous page, or null for the first page.
+     * @param limit page size, capped at {@link #MAX_PAGE_SIZE}.
+     */
+    @Transactional(readOnly = true)
+    public UserPage<UserResponse> getUsersPage(Long cursor, int limit, UserFilter filter) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // Fetch one extra row to know whether another page exists without a COUNT query
+        List<UserResponse> users = userRepository.findPageAfter(
+                cursor == null ? 0L : cursor,
+                filter.getActive(),
+                filter.emailPattern(),
+                filter.getRole(),
+                Limit.of(size + 1));
+
+        Long nextCursor = null;
+        if (users.size() > size) {
+            users = users.subList(0, size);
+            nextCursor = users.get(size - 1).getId();
+        }
+        addRoles(users);
+        return new UserPage<>(users, nextCursor);
+    }
+
+    // One query for the roles of the whole page
+    private void addRoles(List<UserResponse> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Map<Long, UserResponse> byId = new HashMap<>(users.size() * 2);
+        for (UserResponse user : users) {
+            byId.put(user.getId(), user);
+        }
+        for (UserRepository.UserRoleRow row : userRepository.findRoleNamesByUserIds(byId.keySet())) {
+            byId.get(row.getUserId()).getRoles().add(row.getRole().name());
+        }
+    }
+
+    /**
+     * Ranked prefix/typo-tolerant search over email, first and last name of the active users,
+     * answered from the in-memory {@link UserSearchIndex} (no SQL).
+     * @param cursor the nextCursor of the previous page, or null for the first page.
+     */
+    public UserPage<UserSearchHit> searchUsers(String query, Long cursor, int limit) {
+        return searchIndex.search(query, cursor, limit);
+    }
+
+    /**
+     * Streams every matching user to {@code out} as newline-delimited JSON.
+     * Rows are read from a database cursor and detached once written, so memory stays flat
+     * regardless of the table size.
+     * @return the number of users written.
      */
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    @Transactional(readOnly = true)
+    public long exportUsers(UserFilter filter, OutputStream out) throws IOException {
+        long written = 0;
+        try (Stream<User> users = userRepository.streamAll(filter.getActive(), filter.emailPattern(), filter.getRole());
+             JsonGenerator generator = exportWriter.createGenerator(out)) {
+
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            Iterator<User> it = users.iterator();
+            while (it.hasNext()) {
+                User user = it.next();
+                exportWriter.writeValue(generator, UserResponse.from(user));
+                // Serialize first (roles may still need loading), then let the persistence context forget it
+                entityManager.detach(user);
+
+                if (++written % EXPORT_FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+            if (written > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+        return written;
     }
 
     /**
      * Retrieves a user by their ID.
      * @throws com.im.usermanagement.exception.ResourceNotFoundException if user is not found.
      */
+    @Transactional(readOnly = true)
     public User getUserById(Long id) {
-        return userRepository.findById(id)
+        // findById and the roles are both served by the second-level cache once warm
+        User user = userRepository.findById(id)
                 .orElseThrow(() -> new com.im.usermanagement.exception.ResourceNotFoundException("User not found with id: " + id));
+        Hibernate.initialize(user.getRoles());
+        return user;
     }
 
     /**
@@ -56,7 +186,12 @@ public class UserService {
 
         // Business Rule 2: You could add logic here to sanitize input, encrypt password (later), etc.
 
-        return userRepository.save(user); // Save the user to the database
+        User saved = userRepository.save(user); // Save the user to the database
+        auditLog.record(AuditEventType.USER_CREATED, saved.getId(), null);
+        searchIndex.put(saved);
+        // The caller's next reads come from the primary until the replicas have caught up
+        replicaStickiness.markWrite();
+        return saved;
     }
 
     /**
@@ -65,13 +200,42 @@ public class UserService {
      */
     @Transactional
     public User updateUser(Long id, User userDetails) {
+        return updateUser(id, userDetails, null);
+    }
+
+    /**
+     * Updates an existing user's details if its version is one of {@code expectedVersions}
+     * (the If-Match of the request; null means unconditional).
+     * A concurrent update that commits first still fails this one at flush (@Version).
+     * @throws ResourceNotFoundException if user is not found.
+     * @throws PreconditionFailedException if the user has changed since the client read it.
+     */
+    @Transactional
+    public User updateUser(Long id, User userDetails, Collection<Long> expectedVersions) {
+        // Cached read; the save below updates the cached entry as well (READ_WRITE region)
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        checkVersion(existingUser, expectedVersions);
+        // The updated user is returned with its roles
+        Hibernate.initialize(existingUser.getRoles());
 
         // Business Logic: Apply updates to the existing entity
         // Note: We don't change the ID
+        // The audit entry names the changed fields, not their values
+        List<String> changed = new ArrayList<>(2);
+        if (!Objects.equals(existingUser.getFirstName(), userDetails.getFirstName())) {
+            changed.add("firstName");
+        }
+        if (!Objects.equals(existingUser.getLastName(), userDetails.getLastName())) {
+            changed.add("lastName");
+        }
         existingUser.setFirstName(userDetails.getFirstName());
         existingUser.setLastName(userDetails.getLastName());
+        if (!changed.isEmpty()) {
+            auditLog.record(AuditEventType.USER_UPDATED, id, String.join(",", changed));
+            searchIndex.put(existingUser);
+            replicaStickiness.markWrite();
+        }
 
         // Note on email update: Handling email updates requires extra checks (like uniqueness)
         // and is often more complex, so we omit it for simplicity here.
@@ -88,11 +252,39 @@ public class UserService {
      */
     @Transactional
     public void softDeleteUser(Long id) {
+        softDeleteUser(id, null);
+    }
+
+    /**
+     * Soft-deletes a user if its version is one of {@code expectedVersions} (null means unconditional).
+     * Unlike reads and updates, this holds a row lock on the user until commit: revoking the user's
+     * tokens bumps the token version under PESSIMISTIC_WRITE (see TokenVersionStore.revokeAll).
+     * @throws ResourceNotFoundException if user is not found.
+     * @throws PreconditionFailedException if the user has changed since the client read it.
+     */
+    @Transactional
+    public void softDeleteUser(Long id, Collection<Long> expectedVersions) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        checkVersion(user, expectedVersions);
 
         // Business Rule 3: Soft Delete (preferred over permanent delete in I&M bank systems)
         user.setActive(false);
         userRepository.save(user); // Persist the change
+
+        // Requests are authorized from the token alone, so outstanding tokens must be revoked explicitly
+        // (the version bump alone already voids the refresh tokens; marking them keeps the table honest)
+        tokenVersions.revokeAll(id);
+        refreshTokenService.revokeAll(id);
+        auditLog.record(AuditEventType.USER_DELETED, id, null);
+        searchIndex.remove(id);
+        replicaStickiness.markWrite();
+    }
+
+    private static void checkVersion(User user, Collection<Long> expectedVersions) {
+        if (expectedVersions != null && !expectedVersions.contains(user.getVersion())) {
+            throw new PreconditionFailedException(
+                    "User " + user.getId() + " has been modified since it was read", user.getVersion());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package com.im.usermanagement.support;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Keeps a concurrent map of re-computable entries near {@code maxEntries}. Once it is full, the
+ * expired entries are dropped; if that is not enough, an arbitrary eighth of the rest goes too, so a
+ * map full of live entries isn't swept again on every insert.
+ *
+ * Only one thread sweeps at a time; the others insert anyway and let the sweeper catch up, so the
+ * map may briefly hold a few more than {@code maxEntries}.
+ */
+public final class BoundedMapSweeper<K, V> {
+
+    private final Map<K, V> map;
+    private final int maxEntries;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    public BoundedMapSweeper(Map<K, V> map, int maxEntries) {
+        this.map = map;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Call before an insert: sweeps if the map is full.
+     * @param expired the entries that can go first
+     */
+    public void makeRoom(Predicate<? super V> expired) {
+        if (map.size() < maxEntries || !sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            map.values().removeIf(expired);
+
+            int excess = map.size() - maxEntries + Math.max(1, maxEntries / 8);
+            Iterator<K> it = map.keySet().iterator();
+            while (excess-- > 0 && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
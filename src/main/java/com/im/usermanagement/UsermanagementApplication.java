@@ -2,11 +2,18 @@ package com.im.usermanagement;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class UsermanagementApplication {
 
+    // Enough for every bean of the context; steps past the limit are dropped, not buffered
+    private static final int STARTUP_STEPS = 4096;
+
     public static void main(String[] args) {
-        SpringApplication.run(UsermanagementApplication.class, args);
+        SpringApplication application = new SpringApplication(UsermanagementApplication.class);
+        // Times each startup step (bean instantiation, refresh phases), served by /actuator/startup
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        application.run(args);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package com.im.usermanagement.security.authz;
+
+/**
+ * Fine-grained rights checked by {@link AccessPolicy}. Roles map to sets of these
+ * (see {@link RolePermissions}); each permission is one bit of a long.
+ */
+public enum Permission {
+    USER_READ,
+    USER_LIST,
+    USER_CREATE,
+    USER_UPDATE,
+    USER_DELETE,
+    USER_IMPORT,
+    USER_EXPORT,
+    USER_SEARCH,
+    // Actuator endpoints other than health, when reached on the application port
+    METRICS_READ;
+
+    // Fixed by declaration order; at most 64 permissions fit in the mask
+    private final long bit = 1L << ordinal();
+
+    public long bit() {
+        return bit;
+    }
+}
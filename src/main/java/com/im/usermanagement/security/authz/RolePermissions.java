@@ -0,0 +1,53 @@
+package com.im.usermanagement.security.authz;
+
+import com.im.usermanagement.model.RoleName;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Role to permission grants, precomputed once as one bitmask per role.
+ * The mask of a principal is the OR of its roles' masks, computed once per verified token
+ * (see JwtClaims); an authorization decision is then a single AND.
+ */
+public final class RolePermissions {
+
+    // ROLE_USER has no permission of its own: it may only read and update itself (see AccessPolicy)
+    private static final Map<RoleName, Set<Permission>> GRANTS = Map.of(
+            RoleName.ROLE_USER, EnumSet.noneOf(Permission.class),
+            RoleName.ROLE_ADMIN, EnumSet.allOf(Permission.class)
+    );
+
+    // Keyed by authority string, the form roles take in tokens and GrantedAuthority
+    private static final Map<String, Long> MASKS = new HashMap<>();
+
+    static {
+        for (RoleName role : RoleName.values()) {
+            long mask = 0;
+            for (Permission permission : GRANTS.getOrDefault(role, Set.of())) {
+                mask |= permission.bit();
+            }
+            MASKS.put(role.name(), mask);
+        }
+    }
+
+    private RolePermissions() {
+    }
+
+    /**
+     * Permission mask of a principal holding these roles; unknown role names grant nothing.
+     */
+    public static long maskOf(Collection<String> roles) {
+        long mask = 0;
+        for (String role : roles) {
+            Long roleMask = MASKS.get(role);
+            if (roleMask != null) {
+                mask |= roleMask;
+            }
+        }
+        return mask;
+    }
+}
@@ -1,25 +1,56 @@
 package com.im.usermanagement.security;
 
+import com.im.usermanagement.security.authz.AccessPolicy;
+import com.im.usermanagement.security.authz.Permission;
+import com.im.usermanagement.security.crypto.BoundedPasswordEncoder;
+import com.im.usermanagement.security.crypto.PasswordEncoders;
+import com.im.usermanagement.security.jwt.JwtAuthenticationFilter;
+import com.im.usermanagement.security.jwt.JwtTokenProvider;
+import com.im.usermanagement.security.service.TokenVersionStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 @EnableWebSecurity
+// @PreAuthorize on the controllers, with the rules of the @authz bean (AccessPolicy)
+@EnableMethodSecurity
 public class SecurityConfig {
 
     // 1. PasswordEncoder Bean (REQUIRED for hashing)
+    // Hashes are stored as {id}hash (see PasswordEncoders) and hashing runs on a dedicated,
+    // bounded pool (see BoundedPasswordEncoder), never on the request thread
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        // BCrypt is the industry standard for secure password hashing
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.encoder:bcrypt}") String encoderId,
+                                           @Value("${security.password.bcrypt-strength:10}") int bcryptStrength,
+                                           @Value("${security.password.argon2.memory-kb:19456}") int argon2MemoryKb,
+                                           @Value("${security.password.argon2.iterations:2}") int argon2Iterations,
+                                           @Value("${security.password.pbkdf2.iterations:310000}") int pbkdf2Iterations,
+                                           @Value("${security.password.hashing.pool-size:0}") int poolSize,
+                                           @Value("${security.password.hashing.queue-capacity:64}") int queueCapacity,
+                                           @Value("${security.password.hashing.max-wait-ms:2000}") long maxWaitMs,
+                                           MeterRegistry meterRegistry) {
+        PasswordEncoder encoder = PasswordEncoders.delegating(
+                encoderId, bcryptStrength, argon2MemoryKb, argon2Iterations, pbkdf2Iterations);
+
+        // 0 = one thread per core: hashing is pure CPU, more threads would only queue on the cores
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(encoder, threads, queueCapacity, maxWaitMs, meterRegistry);
     }
 
     // 2. AuthenticationManager Bean (REQUIRED by AuthController)
@@ -33,17 +64,44 @@ public class SecurityConfig {
 
     // 3. Security Filter Chain (The main configuration)
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   JwtTokenProvider tokenProvider,
+                                                   TokenVersionStore tokenVersions,
+                                                   AccessPolicy accessPolicy,
+                                                   @Value("${server.port:8080}") int serverPort,
+                                                   @Value("${management.server.port:-1}") int managementPort) throws Exception {
+        // Requests reaching the actuator's own port (management.server.port), which is kept off the public
+        // network; the same filter chain serves both ports. A random management port (0) is not recognised.
+        RequestMatcher managementPortRequests = request -> managementPort > 0 && managementPort != serverPort
+                && request.getLocalPort() == managementPort;
+
         http
                 .csrf(csrf -> csrf.disable()) // Disable CSRF for stateless REST APIs (using modern syntax)
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS) // Make the API stateless
                 )
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/v1/auth/login", "/api/v1/auth/register").permitAll() // Allow login and registration
+                        // Async results (Mono/Flux endpoints) are written on a second dispatch that carries
+                        // no token; the request was authorized, @PreAuthorize included, on its first one
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers("/api/auth/login", "/api/auth/register", "/api/auth/refresh").permitAll() // Allow login, registration and refresh
                         .requestMatchers("/h2-console/**").permitAll() // Allow H2 console
+                        // Public keys for verifying our tokens, fetched by other services
+                        .requestMatchers("/.well-known/jwks.json").permitAll()
+                        // Probed by the orchestrator, which carries no JWT
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        // Scraped by Prometheus without a JWT, but only on the management port
+                        .requestMatchers(managementPortRequests).permitAll()
+                        // Metrics on the public port: admins only (user counts, lockouts... are not public)
+                        .requestMatchers("/actuator/**").access((authentication, context) ->
+                                new AuthorizationDecision(accessPolicy.has(authentication.get(), Permission.METRICS_READ.name())))
                         .anyRequest().authenticated() // Secure everything else
-                );
+                )
+                // Missing or rejected bearer token -> 401 instead of the default 403
+                .exceptionHandling(ex -> ex.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                // Authenticate bearer tokens from their signed claims (no DB lookup per request)
+                .addFilterBefore(new JwtAuthenticationFilter(tokenProvider, tokenVersions),
+                        UsernamePasswordAuthenticationFilter.class);
 
         // Security headers configuration (for H2 console compatibility)
         http.headers(headers -> headers.frameOptions(frame -> frame.sameOrigin()));
@@ -0,0 +1,71 @@
+package com.im.usermanagement.security.crypto;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+/**
+ * PBKDF2-HMAC-SHA256 hashes that carry their iteration count: "310000$" followed by what
+ * Pbkdf2PasswordEncoder writes (hex salt and hash). Spring's encoder stores no parameters, so it
+ * could never tell that a hash was made with fewer iterations than configured; this one reports
+ * upgradeEncoding() = true for those.
+ *
+ * A hash without a count predates the format: it is verified with the configured count (the only
+ * one it can have been made with, unless the setting changed since) and upgraded on next login.
+ */
+final class IterationCountingPbkdf2Encoder implements PasswordEncoder {
+
+    private static final char SEPARATOR = '$';
+
+    private final int iterations;
+    private final Pbkdf2PasswordEncoder encoder;
+
+    IterationCountingPbkdf2Encoder(int iterations) {
+        this.iterations = iterations;
+        this.encoder = pbkdf2(iterations);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return iterations + String.valueOf(SEPARATOR) + encoder.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        int separator = encodedPassword.indexOf(SEPARATOR);
+        if (separator < 0) {
+            return encoder.matches(rawPassword, encodedPassword);
+        }
+        int count = count(encodedPassword, separator);
+        if (count <= 0) {
+            return false;
+        }
+        String hash = encodedPassword.substring(separator + 1);
+        // Outdated hashes are only met once per user: building an encoder for them is not worth caching
+        return (count == iterations ? encoder : pbkdf2(count)).matches(rawPassword, hash);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        int separator = encodedPassword.indexOf(SEPARATOR);
+        return separator < 0 || count(encodedPassword, separator) < iterations;
+    }
+
+    private static int count(String encodedPassword, int separator) {
+        try {
+            return Integer.parseInt(encodedPassword, 0, separator, 10);
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static Pbkdf2PasswordEncoder pbkdf2(int iterations) {
+        return new Pbkdf2PasswordEncoder("", 16, iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+}
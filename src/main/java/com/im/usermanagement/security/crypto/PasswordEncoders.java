@@ -0,0 +1,60 @@
+package com.im.usermanagement.security.crypto;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the delegating encoder behind every stored hash.
+ *
+ * New hashes are written as "{id}hash" with the configured id and parameters. Any supported id can
+ * still be verified, and legacy hashes without a prefix are treated as BCrypt. A hash whose id or
+ * parameters are outdated reports upgradeEncoding() = true, and is re-hashed on the user's next
+ * successful login (see CustomUserDetailsService.updatePassword): a lower BCrypt cost, less Argon2
+ * memory or passes, or fewer PBKDF2 iterations (recorded in the hash, see IterationCountingPbkdf2Encoder).
+ */
+public final class PasswordEncoders {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+    public static final String PBKDF2 = "pbkdf2";
+
+    private PasswordEncoders() {
+    }
+
+    /**
+     * @param idForEncode       scheme for new hashes: bcrypt, argon2 or pbkdf2
+     * @param bcryptStrength    BCrypt cost factor (log2 rounds)
+     * @param argon2MemoryKb    Argon2id memory per hash, in KiB
+     * @param argon2Iterations  Argon2id passes over that memory
+     * @param pbkdf2Iterations  PBKDF2-HMAC-SHA256 iterations
+     */
+    public static DelegatingPasswordEncoder delegating(String idForEncode,
+                                                       int bcryptStrength,
+                                                       int argon2MemoryKb,
+                                                       int argon2Iterations,
+                                                       int pbkdf2Iterations) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt);
+        // 16 byte salt, 32 byte hash, parallelism 1 (parallelism is a per-request cost on a shared server)
+        encoders.put(ARGON2, new Argon2PasswordEncoder(16, 32, 1, argon2MemoryKb, argon2Iterations));
+        // Same salt and hash as Pbkdf2PasswordEncoder, plus the iteration count
+        encoders.put(PBKDF2, new IterationCountingPbkdf2Encoder(pbkdf2Iterations));
+
+        if (!encoders.containsKey(idForEncode)) {
+            throw new IllegalArgumentException("Unknown password encoder '" + idForEncode
+                    + "', expected one of " + encoders.keySet());
+        }
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(idForEncode, encoders);
+        // Hashes stored before prefixes were introduced are plain BCrypt
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegating;
+    }
+}
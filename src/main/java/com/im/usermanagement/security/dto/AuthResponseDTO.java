@@ -6,10 +6,12 @@ import lombok.AllArgsConstructor; // Add this for the full constructor
 
 @Data
 @NoArgsConstructor // Required if your DTO is used in Spring/Jackson deserialization
-@AllArgsConstructor // ⭐ NEW: Generates a constructor with all fields (accessToken and tokenType)
+@AllArgsConstructor // ⭐ NEW: Generates a constructor with all fields (accessToken, refreshToken and tokenType)
 public class AuthResponseDTO {
 
     private String accessToken;
+    // Opaque, single use: exchange it at /api/auth/refresh for a new pair
+    private String refreshToken;
     private String tokenType = "Bearer";
 
     // ⭐ FIX: Add this explicit constructor back to resolve the error in AuthController
@@ -19,4 +21,10 @@ public class AuthResponseDTO {
         // tokenType defaults to "Bearer" but can be set explicitly
         this.tokenType = "Bearer";
     }
-}
\ No newline at end of file
+
+    public AuthResponseDTO(String accessToken, String refreshToken) {
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.tokenType = "Bearer";
+    }
+}
@@ -0,0 +1,11 @@
+package com.im.usermanagement.security.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class RefreshRequestDTO {
+
+    @NotBlank(message = "Refresh token is required")
+    private String refreshToken;
+}
@@ -1,5 +1,6 @@
 package com.im.usermanagement.security.jwt;
 
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,13 +13,16 @@ import java.util.Map;
 @Component
 public class JwtUtil {
 
-    // 1. JWT Secret Key (Should be stored securely, e.g., in application.properties)
-    @Value("${jwt.secret}")
-    private String secret;
+    // 1. Signing keys, shared with JwtTokenProvider (RS256, published at /.well-known/jwks.json)
+    private final SigningKeyRing keyRing;
 
-    // 2. Token expiration time (1 hour)
-    @Value("${jwt.expiration}")
-    private long expiration;
+    // 2. Token expiration time (same lifetime as the access tokens)
+    private final long expiration;
+
+    public JwtUtil(SigningKeyRing keyRing, @Value("${jwt.expiration.ms}") long expiration) {
+        this.keyRing = keyRing;
+        this.expiration = expiration;
+    }
 
     // --- Token Generation ---
     public String generateToken(UserDetails userDetails) {
@@ -27,14 +31,16 @@ public class JwtUtil {
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
+        SigningKeyRing.SigningKey signingKey = keyRing.current();
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid()) // Which published key verifies it
                 .setClaims(claims)
                 .setSubject(subject) // The username
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(SignatureAlgorithm.HS256, secret) // Use HS256 algorithm and the secret key
+                .signWith(signingKey.privateKey(), SignatureAlgorithm.RS256) // Use RS256 and the current ring key
                 .compact();
     }
 
     // --- Token Validation/Extraction methods (to be added later) ---
-}
\ No newline at end of file
+}
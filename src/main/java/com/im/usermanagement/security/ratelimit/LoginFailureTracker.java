@@ -0,0 +1,104 @@
+package com.im.usermanagement.security.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Counts failed logins per account over a sliding window and locks the account once
+ * {@code maxFailures} are reached. The window is approximated from two fixed windows (the previous
+ * one weighted by how much of it still overlaps), which needs two counters per account instead of
+ * a timestamp per failure. Lock-free like {@link TokenBucketLimiter}, and bounded the same way:
+ * when {@code maxKeys} accounts are tracked, failures of new accounts are not counted (the per-IP
+ * and per-account rate limits still apply to them).
+ * Times are {@link System#nanoTime()} values passed in by the caller.
+ */
+public class LoginFailureTracker {
+
+    private final int maxFailures;
+    private final long windowNanos;
+    private final long lockNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, AtomicReference<Window>> accounts = new ConcurrentHashMap<>();
+
+    public LoginFailureTracker(int maxFailures, long windowNanos, long lockNanos, int maxKeys) {
+        this.maxFailures = maxFailures;
+        this.windowNanos = windowNanos;
+        this.lockNanos = lockNanos;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Records a failed login.
+     * @return true if this failure locked the account.
+     */
+    public boolean recordFailure(String account, long now) {
+        AtomicReference<Window> ref = accounts.get(account);
+        if (ref == null) {
+            if (accounts.size() >= maxKeys) {
+                return false;
+            }
+            ref = accounts.computeIfAbsent(account, k -> new AtomicReference<>(new Window(now, 0, 0, now)));
+        }
+        while (true) {
+            Window current = ref.get();
+            if (current.lockedUntil - now > 0) {
+                return false; // already locked, attempts are rejected before the password check anyway
+            }
+            Window rolled = current.rollTo(now, windowNanos);
+            double elapsed = (double) (now - rolled.start) / windowNanos;
+            double failures = rolled.previous * (1 - elapsed) + rolled.current + 1;
+
+            Window next = failures >= maxFailures
+                    ? new Window(now, 0, 0, now + lockNanos)
+                    : new Window(rolled.start, rolled.previous, rolled.current + 1, rolled.lockedUntil);
+            if (ref.compareAndSet(current, next)) {
+                return failures >= maxFailures;
+            }
+        }
+    }
+
+    /**
+     * @return the nanoseconds the account stays locked, 0 if it is not locked.
+     */
+    public long lockedFor(String account, long now) {
+        AtomicReference<Window> ref = accounts.get(account);
+        return ref == null ? 0 : Math.max(0, ref.get().lockedUntil - now);
+    }
+
+    // A successful login forgets earlier failures
+    public void reset(String account) {
+        accounts.remove(account);
+    }
+
+    /**
+     * Drops accounts that are not locked and have had no failure for two windows.
+     * @return the number of accounts removed.
+     */
+    public int evictIdle(long now) {
+        int before = accounts.size();
+        accounts.values().removeIf(ref -> {
+            Window window = ref.get();
+            return window.lockedUntil - now <= 0 && now - window.start >= 2 * windowNanos;
+        });
+        return before - accounts.size();
+    }
+
+    public int size() {
+        return accounts.size();
+    }
+
+    private record Window(long start, int previous, int current, long lockedUntil) {
+
+        // Moves the fixed windows forward so that 'now' falls in the current one
+        Window rollTo(long now, long windowNanos) {
+            long elapsed = now - start;
+            if (elapsed < windowNanos) {
+                return this;
+            }
+            if (elapsed < 2 * windowNanos) {
+                return new Window(start + windowNanos, current, 0, lockedUntil);
+            }
+            return new Window(now, 0, 0, lockedUntil);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.im.usermanagement.security.ratelimit;
+
+import com.im.usermanagement.exception.LoginRateLimitedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Guards /api/auth/login before any password is hashed:
+ * 1. a token bucket per client IP and one per account name, so neither a single client nor a
+ *    distributed guess at one account can spend more than its share of BCrypt time (429);
+ * 2. a brute-force lockout: too many failures for an account within the window lock it for a while,
+ *    and a locked account fails in Spring Security's pre-authentication checks
+ *    (User.isAccountNonLocked), before the password is compared.
+ *
+ * Everything is in memory and per instance; idle keys are swept periodically.
+ */
+@Service
+public class LoginThrottle {
+
+    private final TokenBucketLimiter ipLimiter;
+    private final TokenBucketLimiter accountLimiter;
+    private final LoginFailureTracker failures;
+
+    private final Counter ipThrottled;
+    private final Counter accountThrottled;
+    private final Counter lockouts;
+
+    public LoginThrottle(@Value("${security.login.rate-limit.ip.capacity:20}") int ipCapacity,
+                         @Value("${security.login.rate-limit.ip.per-minute:20}") int ipPerMinute,
+                         @Value("${security.login.rate-limit.account.capacity:10}") int accountCapacity,
+                         @Value("${security.login.rate-limit.account.per-minute:10}") int accountPerMinute,
+                         @Value("${security.login.rate-limit.max-keys:100000}") int maxKeys,
+                         @Value("${security.login.rate-limit.idle-seconds:600}") long idleSeconds,
+                         @Value("${security.login.lockout.max-failures:5}") int maxFailures,
+                         @Value("${security.login.lockout.window-seconds:300}") long windowSeconds,
+                         @Value("${security.login.lockout.duration-seconds:900}") long lockSeconds,
+                         MeterRegistry meterRegistry) {
+        long now = System.nanoTime();
+        long idleNanos = TimeUnit.SECONDS.toNanos(idleSeconds);
+        this.ipLimiter = new TokenBucketLimiter(ipCapacity, ipPerMinute, maxKeys, idleNanos, now);
+        this.accountLimiter = new TokenBucketLimiter(accountCapacity, accountPerMinute, maxKeys, idleNanos, now);
+        this.failures = new LoginFailureTracker(maxFailures,
+                TimeUnit.SECONDS.toNanos(windowSeconds), TimeUnit.SECONDS.toNanos(lockSeconds), maxKeys);
+
+        this.ipThrottled = throttledCounter(meterRegistry, "ip");
+        this.accountThrottled = throttledCounter(meterRegistry, "account");
+        this.lockouts = Counter.builder("login.lockouts")
+                .description("Accounts locked after too many failed logins")
+                .register(meterRegistry);
+        Gauge.builder("login.throttle.keys", ipLimiter, TokenBucketLimiter::size).tag("type", "ip")
+                .description("Keys currently tracked by the login throttle").register(meterRegistry);
+        Gauge.builder("login.throttle.keys", accountLimiter, TokenBucketLimiter::size).tag("type", "account")
+                .description("Keys currently tracked by the login throttle").register(meterRegistry);
+        Gauge.builder("login.throttle.keys", failures, LoginFailureTracker::size).tag("type", "failures")
+                .description("Keys currently tracked by the login throttle").register(meterRegistry);
+    }
+
+    private static Counter throttledCounter(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("login.throttled")
+                .description("Login attempts refused by the rate limiter")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Spends one login attempt for this client and account.
+     * @throws LoginRateLimitedException (429) if either bucket is empty.
+     */
+    public void acquire(String clientIp, String username) {
+        long now = System.nanoTime();
+        long waitNanos = ipLimiter.tryAcquire(clientIp, now);
+        if (waitNanos > 0) {
+            ipThrottled.increment();
+            throw new LoginRateLimitedException("Too many login attempts from this address", seconds(waitNanos));
+        }
+        waitNanos = accountLimiter.tryAcquire(key(username), now);
+        if (waitNanos > 0) {
+            accountThrottled.increment();
+            throw new LoginRateLimitedException("Too many login attempts for this account", seconds(waitNanos));
+        }
+    }
+
+    public boolean isLocked(String username) {
+        return lockedForSeconds(username) > 0;
+    }
+
+    public long lockedForSeconds(String username) {
+        return seconds(failures.lockedFor(key(username), System.nanoTime()));
+    }
+
+    public void recordFailure(String username) {
+        if (failures.recordFailure(key(username), System.nanoTime())) {
+            lockouts.increment();
+        }
+    }
+
+    public void recordSuccess(String username) {
+        failures.reset(key(username));
+    }
+
+    @Scheduled(fixedDelayString = "${security.login.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        ipLimiter.evictIdle(now);
+        accountLimiter.evictIdle(now);
+        failures.evictIdle(now);
+    }
+
+    // "Alice@x.com" and "alice@x.com" must share their limits
+    private static String key(String username) {
+        return username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long seconds(long nanos) {
+        return nanos <= 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos + 999_999_999L));
+    }
+}
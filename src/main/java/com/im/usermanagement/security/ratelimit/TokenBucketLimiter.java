@@ -0,0 +1,92 @@
+package com.im.usermanagement.security.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Token buckets keyed by string (client IP, account), lock-free: each bucket is an immutable state
+ * swapped with compare-and-set, refilled lazily from the elapsed time on every attempt.
+ *
+ * Memory is bounded: at most {@code maxKeys} buckets are tracked, idle ones are dropped by
+ * {@link #evictIdle}, and keys that arrive while the map is full share one overflow bucket
+ * (so a flood of new keys throttles itself instead of growing the map).
+ * Times are {@link System#nanoTime()} values passed in by the caller.
+ */
+public class TokenBucketLimiter {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final int maxKeys;
+    private final long idleNanos;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Bucket overflow;
+
+    /**
+     * @param capacity      burst size (tokens in a full bucket)
+     * @param perMinute     tokens added back per minute
+     * @param maxKeys       most buckets kept at once
+     * @param idleNanos     a bucket untouched this long is dropped; never less than the time to refill,
+     *                      so dropping a bucket can't hand out more tokens than keeping it would
+     */
+    public TokenBucketLimiter(int capacity, int perMinute, int maxKeys, long idleNanos, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = perMinute / 60e9;
+        this.maxKeys = maxKeys;
+        this.idleNanos = Math.max(idleNanos, (long) Math.ceil(capacity / tokensPerNano));
+        this.overflow = new Bucket(now);
+    }
+
+    /**
+     * Takes one token from the key's bucket.
+     * @return 0 if the call is allowed, otherwise the nanoseconds until a token is available.
+     */
+    public long tryAcquire(String key, long now) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.size() < maxKeys
+                    ? buckets.computeIfAbsent(key, k -> new Bucket(now))
+                    : overflow;
+        }
+        return bucket.tryAcquire(now);
+    }
+
+    /**
+     * Drops buckets that have been idle long enough to be full again.
+     * @return the number of buckets removed.
+     */
+    public int evictIdle(long now) {
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> now - bucket.state.get().updatedAt >= idleNanos);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private record State(double tokens, long updatedAt) {
+    }
+
+    private final class Bucket {
+
+        private final AtomicReference<State> state;
+
+        private Bucket(long now) {
+            this.state = new AtomicReference<>(new State(capacity, now));
+        }
+
+        private long tryAcquire(long now) {
+            while (true) {
+                State current = state.get();
+                double tokens = Math.min(capacity,
+                        current.tokens + Math.max(0, now - current.updatedAt) * tokensPerNano);
+                if (tokens < 1) {
+                    return (long) Math.ceil((1 - tokens) / tokensPerNano);
+                }
+                if (state.compareAndSet(current, new State(tokens - 1, Math.max(now, current.updatedAt)))) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
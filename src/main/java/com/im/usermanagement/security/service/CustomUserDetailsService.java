@@ -1,20 +1,37 @@
 package com.im.usermanagement.security.service;
 
+import com.im.usermanagement.config.ReplicaStickiness;
 import com.im.usermanagement.model.User;
 import com.im.usermanagement.repository.UserRepository;
+import com.im.usermanagement.security.ratelimit.LoginThrottle;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final LoginThrottle loginThrottle;
+    private final ReplicaStickiness replicaStickiness;
+    private final EntityManagerFactory entityManagerFactory;
 
     // Inject the UserRepository (assuming you already have this repository interface)
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, LoginThrottle loginThrottle,
+                                    ReplicaStickiness replicaStickiness,
+                                    EntityManagerFactory entityManagerFactory) {
         this.userRepository = userRepository;
+        this.loginThrottle = loginThrottle;
+        this.replicaStickiness = replicaStickiness;
+        this.entityManagerFactory = entityManagerFactory;
     }
 
     /**
@@ -27,13 +44,60 @@ public class CustomUserDetailsService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // Find the user by their email
-        User user = userRepository.findByEmail(username)
+        // Find the user by their email (natural-id lookup: no SQL once the user is cached)
+        User user = userRepository.findByNaturalEmail(username)
+                // Missing on a read replica may only mean not replicated yet (registered a moment ago)
+                .or(() -> replicaStickiness.isEnabled()
+                        ? replicaStickiness.onPrimary(() -> userRepository.findByNaturalEmail(username))
+                        : Optional.empty())
                 .orElseThrow(() ->
                         new UsernameNotFoundException("User not found with email: " + username)
                 );
 
+        // The cached copy is this instance's: another instance may have deactivated the user, changed
+        // its email, roles or password, or revoked its tokens since. Every such write bumps the version,
+        // so one primary-key read on the primary says whether the copy can be trusted.
+        long cachedVersion = user.getVersion();
+        Long userId = user.getId();
+        boolean current = user.getEmail().equals(username)
+                && replicaStickiness.onPrimary(() -> userRepository.findVersionById(userId))
+                        .map(version -> version == cachedVersion)
+                        .orElse(false);
+        if (!current) {
+            Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+            cache.evictEntityData(User.class, userId);
+            cache.evictCollectionData(User.class.getName() + ".roles", userId);
+            // A query, not a cache lookup: the row and its roles as they are now
+            user = replicaStickiness.onPrimary(() -> userRepository.findByEmail(username))
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + username));
+        }
+
+        // Spring Security rejects a locked account before comparing the password
+        user.setLocked(loginThrottle.isLocked(username));
+
         // Return the User object which implements UserDetails
         return user;
     }
+
+    /**
+     * Stores a re-hashed password.
+     * Called by Spring Security's DaoAuthenticationProvider right after a successful login whenever
+     * the stored hash uses an outdated scheme or cost (PasswordEncoder.upgradeEncoding), so hashes
+     * migrate gradually without a bulk password reset.
+     *
+     * @param user        the user that just authenticated.
+     * @param newPassword the password re-hashed with the current encoder settings.
+     * @return the same user, carrying the new hash.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        // Through the entity so the cached copy is updated too
+        userRepository.findByNaturalEmail(user.getUsername())
+                .ifPresent(managed -> managed.setPassword(newPassword));
+        if (user instanceof User entity) {
+            entity.setPassword(newPassword);
+        }
+        return user;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,234 @@
+package com.im.usermanagement.security.service;
+
+import com.im.usermanagement.audit.AuditEventType;
+import com.im.usermanagement.audit.AuditLog;
+import com.im.usermanagement.exception.InvalidRefreshTokenException;
+import com.im.usermanagement.model.RefreshToken;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.repository.RefreshTokenRepository;
+import com.im.usermanagement.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and rotates refresh tokens.
+ * A refresh is one lookup on the token hash index plus one conditional update and one insert;
+ * the user (and roles) come from the second-level cache and no password is checked.
+ * Each token lives jwt.refresh.expiration.ms, and a family (one login and all its rotations) at most
+ * jwt.refresh.max-lifetime-ms: the newest token of a family never expires past that.
+ * Metrics: auth.refresh (tagged result=rotated|reused|expired|revoked|unknown).
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final RefreshTokenRepository refreshTokens;
+    private final UserRepository userRepository;
+    private final TokenVersionStore tokenVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditLog auditLog;
+    private final SecureRandom random = new SecureRandom();
+    private final Duration ttl;
+    private final Duration maxLifetime;
+    private final int purgeBatchSize;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> outcomes = new ConcurrentHashMap<>();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokens,
+                               UserRepository userRepository,
+                               TokenVersionStore tokenVersions,
+                               PlatformTransactionManager transactionManager,
+                               AuditLog auditLog,
+                               @Value("${jwt.refresh.expiration.ms:1209600000}") long ttlMs,
+                               @Value("${jwt.refresh.max-lifetime-ms:7776000000}") long maxLifetimeMs,
+                               @Value("${jwt.refresh.purge.batch-size:1000}") int purgeBatchSize,
+                               MeterRegistry meterRegistry) {
+        this.refreshTokens = refreshTokens;
+        this.userRepository = userRepository;
+        this.tokenVersions = tokenVersions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.auditLog = auditLog;
+        this.ttl = Duration.ofMillis(ttlMs);
+        this.maxLifetime = Duration.ofMillis(maxLifetimeMs);
+        this.purgeBatchSize = purgeBatchSize;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public record Rotation(User user, String refreshToken) {
+    }
+
+    /**
+     * Starts a new token family for a user who just authenticated with their password.
+     */
+    @Transactional
+    public String issue(User user) {
+        Instant now = Instant.now();
+        return create(user.getId(), UUID.randomUUID().toString(), now, now);
+    }
+
+    /**
+     * Exchanges a refresh token for a new one of the same family and returns the user to issue
+     * the access token for. The presented token can never be used again.
+     * Not rolled back on rejection: a detected reuse must stay revoked.
+     * @throws InvalidRefreshTokenException if the token is unknown, expired, revoked or was already used,
+     * or its family has reached the maximum lifetime.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotation rotate(String presented) {
+        Instant now = Instant.now();
+
+        // 1. The one indexed lookup
+        RefreshToken token = refreshTokens.findByTokenHash(hash(presented))
+                .orElseThrow(() -> reject("unknown", "Invalid refresh token"));
+
+        // 2. Already exchanged: the old token was copied. Kill every token of the family, so whichever
+        // side (attacker or user) holds the newest one has to log in again.
+        if (token.getRotatedAt() != null) {
+            revokeReused(token);
+        }
+        if (token.isRevoked()) {
+            throw reject("revoked", "Refresh token has been revoked");
+        }
+        if (!token.getExpiresAt().isAfter(now)) {
+            throw reject("expired", "Refresh token has expired");
+        }
+        // New tokens never expire past the family's end; this also holds families issued before the
+        // maximum lifetime was lowered to it
+        if (!token.getFamilyStartedAt().plus(maxLifetime).isAfter(now)) {
+            throw reject("expired", "Refresh token has reached its maximum lifetime, log in again");
+        }
+        // 3. The user's tokens were revoked since (logout everywhere, deactivation)
+        if (!tokenVersions.isCurrent(token.getUserId(), token.getTokenVersion())) {
+            refreshTokens.revokeFamily(token.getFamilyId());
+            throw reject("revoked", "Refresh token has been revoked");
+        }
+
+        // 4. Claim the token; losing the race to a concurrent refresh counts as reuse
+        if (refreshTokens.markRotated(token.getId(), now) == 0) {
+            revokeReused(token);
+        }
+
+        User user = userRepository.findById(token.getUserId())
+                .filter(User::isEnabled)
+                .orElse(null);
+        if (user == null) {
+            refreshTokens.revokeFamily(token.getFamilyId());
+            throw reject("revoked", "Refresh token has been revoked");
+        }
+        Hibernate.initialize(user.getRoles());
+
+        String next = create(user.getId(), token.getFamilyId(), token.getFamilyStartedAt(), now);
+        count("rotated");
+        return new Rotation(user, next);
+    }
+
+    /**
+     * Revokes every refresh token of the user (used with TokenVersionStore.revokeAll).
+     */
+    @Transactional
+    public void revokeAll(Long userId) {
+        refreshTokens.revokeAllOfUser(userId);
+    }
+
+    /**
+     * Deletes expired tokens in batches, one short transaction each, so the purge never holds
+     * locks on a large range of the table. Rotated and revoked tokens are kept until they expire:
+     * that is what lets a late replay still be recognised as reuse.
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh.purge.interval-ms:600000}",
+            initialDelayString = "${jwt.refresh.purge.interval-ms:600000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        int purged = 0;
+        int deleted;
+        do {
+            Integer batch = transactionTemplate.execute(status -> {
+                List<Long> ids = refreshTokens.findExpiredIds(now, Limit.of(purgeBatchSize));
+                return ids.isEmpty() ? 0 : refreshTokens.deleteByIds(ids);
+            });
+            deleted = batch == null ? 0 : batch;
+            purged += deleted;
+        } while (deleted == purgeBatchSize);
+
+        if (purged > 0) {
+            log.info("Purged {} expired refresh tokens", purged);
+        }
+    }
+
+    private String create(Long userId, String familyId, Instant familyStartedAt, Instant now) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String value = BASE64URL.encodeToString(bytes);
+
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(hash(value));
+        token.setUserId(userId);
+        token.setFamilyId(familyId);
+        token.setTokenVersion(tokenVersions.currentVersion(userId));
+        token.setCreatedAt(now);
+        token.setFamilyStartedAt(familyStartedAt);
+        Instant familyEnd = familyStartedAt.plus(maxLifetime);
+        token.setExpiresAt(now.plus(ttl).isBefore(familyEnd) ? now.plus(ttl) : familyEnd);
+        refreshTokens.save(token);
+        return value;
+    }
+
+    private void revokeReused(RefreshToken token) {
+        int revoked = refreshTokens.revokeFamily(token.getFamilyId());
+        log.warn("Refresh token reuse detected for user {}, revoked {} tokens of family {}",
+                token.getUserId(), revoked, token.getFamilyId());
+        // Written once this transaction commits (it is not rolled back on InvalidRefreshTokenException)
+        auditLog.record(AuditEventType.REFRESH_TOKEN_REUSED, null, token.getUserId(),
+                "family=" + token.getFamilyId() + ", revoked=" + revoked);
+        throw reject("reused", "Refresh token has already been used");
+    }
+
+    private InvalidRefreshTokenException reject(String result, String message) {
+        count(result);
+        return new InvalidRefreshTokenException(message);
+    }
+
+    private void count(String result) {
+        outcomes.computeIfAbsent(result, r -> Counter.builder("auth.refresh")
+                        .description("Refresh token exchanges, by outcome")
+                        .tag("result", r)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    // 256 random bits: a plain SHA-256 is enough, there is nothing to brute-force
+    private static String hash(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return BASE64URL.encodeToString(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException ex) {
+            // Every JRE is required to ship SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+}
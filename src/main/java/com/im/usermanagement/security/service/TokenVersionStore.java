@@ -0,0 +1,90 @@
+package com.im.usermanagement.security.service;
+
+import com.im.usermanagement.config.ReplicaStickiness;
+import com.im.usermanagement.repository.UserRepository;
+import com.im.usermanagement.support.AfterCommit;
+import com.im.usermanagement.support.BoundedMapSweeper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory view of each user's token version.
+ * Every JWT carries the version that was current when it was issued; bumping the version
+ * revokes all of the user's outstanding tokens at once. The check is a single map lookup.
+ *
+ * Entries are re-read from the primary once they are older than the access-token lifetime
+ * (jwt.token-versions.max-age-ms): a revoke committed on another instance is enforced here
+ * within that time, and a version read before a revoke can never be trusted for longer.
+ * The map is bounded (jwt.token-versions.max-entries); a dropped entry is simply read again.
+ */
+@Service
+public class TokenVersionStore {
+
+    private record Entry(int version, long loadedAt) {
+    }
+
+    private final UserRepository userRepository;
+    private final ReplicaStickiness replicaStickiness;
+    private final long maxAgeNanos;
+    private final Map<Long, Entry> versions = new ConcurrentHashMap<>();
+    private final BoundedMapSweeper<Long, Entry> sweeper;
+
+    public TokenVersionStore(UserRepository userRepository,
+                             ReplicaStickiness replicaStickiness,
+                             @Value("${jwt.token-versions.max-age-ms:${jwt.expiration.ms}}") long maxAgeMs,
+                             @Value("${jwt.token-versions.max-entries:100000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.replicaStickiness = replicaStickiness;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMs);
+        this.sweeper = new BoundedMapSweeper<>(versions, maxEntries);
+    }
+
+    /**
+     * Returns the version new tokens for this user must carry.
+     */
+    public int currentVersion(Long userId) {
+        long now = System.nanoTime();
+        Entry entry = versions.get(userId);
+        if (entry != null && now - entry.loadedAt() < maxAgeNanos) {
+            return entry.version();
+        }
+        // Load outside the map: computeIfAbsent would hold a bin lock (and pin a virtual thread)
+        // for the whole query. Always from the primary: a lagging replica may not have the last revoke.
+        int loaded = replicaStickiness.onPrimary(() -> userRepository.findTokenVersionById(userId)).orElse(0);
+        // Entries past their max age go first; any dropped entry is simply read again
+        sweeper.makeRoom(cached -> now - cached.loadedAt() >= maxAgeNanos);
+        // Versions only grow: a load racing with a revoke of this instance never lowers the entry
+        return versions.merge(userId, new Entry(loaded, now), TokenVersionStore::newer).version();
+    }
+
+    /**
+     * True if a token issued with the given version has not been revoked since.
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return userId != null && tokenVersion >= currentVersion(userId);
+    }
+
+    /**
+     * Revokes every token issued to the user so far (logout everywhere, deactivation, role change).
+     */
+    @Transactional
+    public void revokeAll(Long userId) {
+        // Locked so concurrent revokes can't both write the same version; updating the entity
+        // (not a bulk update) keeps the user's second-level cache entry in step
+        userRepository.findForUpdateById(userId).ifPresent(user -> {
+            int version = user.getTokenVersion() + 1;
+            user.setTokenVersion(version);
+            // Only once the bump is visible to other readers: a rollback must not revoke anything here
+            AfterCommit.run(() -> versions.merge(userId, new Entry(version, System.nanoTime()), TokenVersionStore::newer));
+        });
+    }
+
+    private static Entry newer(Entry current, Entry loaded) {
+        return new Entry(Math.max(current.version(), loaded.version()), Math.max(current.loadedAt(), loaded.loadedAt()));
+    }
+}
@@ -0,0 +1,82 @@
+-- Schema as of the entities in com.im.usermanagement.model. Never edit an applied migration: add V2__...
+
+create sequence app_user_seq start with 1 increment by 50;
+create sequence refresh_tokens_seq start with 1 increment by 50;
+create sequence roles_seq start with 1 increment by 1;
+
+create table app_user (
+    id bigint not null,
+    email varchar(255) not null,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    password varchar(255) not null,
+    is_active boolean not null,
+    version bigint not null,
+    token_version integer not null,
+    primary key (id),
+    constraint ux_app_user_email unique (email)
+);
+
+create table roles (
+    id bigint not null,
+    name enum ('ROLE_ADMIN', 'ROLE_USER'),
+    primary key (id),
+    constraint ux_roles_name unique (name)
+);
+
+create table user_roles (
+    user_id bigint not null,
+    role_id bigint not null,
+    constraint fk_user_roles_user foreign key (user_id) references app_user (id),
+    constraint fk_user_roles_role foreign key (role_id) references roles (id)
+);
+
+create table refresh_tokens (
+    id bigint not null,
+    token_hash varchar(43) not null,
+    user_id bigint not null,
+    family_id varchar(36) not null,
+    token_version integer not null,
+    created_at timestamp(6) with time zone not null,
+    expires_at timestamp(6) with time zone not null,
+    rotated_at timestamp(6) with time zone,
+    revoked boolean not null,
+    primary key (id),
+    constraint ux_refresh_tokens_hash unique (token_hash)
+);
+create index ix_refresh_tokens_user on refresh_tokens (user_id);
+create index ix_refresh_tokens_family on refresh_tokens (family_id);
+create index ix_refresh_tokens_expires on refresh_tokens (expires_at);
+
+create table audit_events (
+    id bigint generated by default as identity,
+    event_type varchar(40) not null,
+    occurred_at timestamp(6) with time zone not null,
+    actor varchar(255),
+    user_id bigint,
+    client_ip varchar(45),
+    detail varchar(1000),
+    primary key (id)
+);
+create index ix_audit_events_user on audit_events (user_id);
+create index ix_audit_events_occurred on audit_events (occurred_at);
+
+create table ldap_entries (
+    entry_id varchar(64) not null,
+    user_id bigint not null,
+    dn varchar(512) not null,
+    seen_run bigint not null,
+    deactivated_by_sync boolean not null,
+    primary key (entry_id),
+    constraint ux_ldap_entries_user unique (user_id)
+);
+create index ix_ldap_entries_dn on ldap_entries (dn);
+create index ix_ldap_entries_seen_run on ldap_entries (seen_run);
+
+create table ldap_sync_state (
+    name varchar(40) not null,
+    watermark timestamp(6) with time zone,
+    last_full_sync_at timestamp(6) with time zone,
+    runs bigint not null,
+    primary key (name)
+);
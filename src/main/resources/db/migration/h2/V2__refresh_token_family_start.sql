@@ -0,0 +1,8 @@
+-- Start of each refresh token family, carried by every rotation: bounds the family's total lifetime.
+-- Existing tokens only know when they were issued, which is the closest available start.
+-- A database created by ddl-auto=update after the column was mapped already has it, and is baselined
+-- at version 1 (application-prod.properties): every statement below must leave such a table as it is.
+
+alter table refresh_tokens add column if not exists family_started_at timestamp(6) with time zone;
+update refresh_tokens set family_started_at = created_at where family_started_at is null;
+alter table refresh_tokens alter column family_started_at set not null;
@@ -0,0 +1,18 @@
+-- Start of each refresh token family, carried by every rotation: bounds the family's total lifetime.
+-- Existing tokens only know when they were issued, which is the closest available start.
+-- A database created by ddl-auto=update after the column was mapped already has it, and is baselined
+-- at version 1 (application-prod.properties): every statement below must leave such a table as it is.
+-- MySQL has no "add column if not exists", hence the information_schema check.
+
+set @family_started_at_exists = (
+    select count(*) from information_schema.columns
+    where table_schema = database() and table_name = 'refresh_tokens' and column_name = 'family_started_at');
+set @add_family_started_at = if(@family_started_at_exists = 0,
+    'alter table refresh_tokens add column family_started_at datetime(6)',
+    'do 0');
+prepare add_family_started_at from @add_family_started_at;
+execute add_family_started_at;
+deallocate prepare add_family_started_at;
+
+update refresh_tokens set family_started_at = created_at where family_started_at is null;
+alter table refresh_tokens modify family_started_at datetime(6) not null;
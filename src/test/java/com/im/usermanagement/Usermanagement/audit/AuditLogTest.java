@@ -0,0 +1,85 @@
+package com.im.usermanagement.audit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The pipeline without Spring: a sink that can be held up, to fill the buffer on purpose.
+class AuditLogTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void everyAcceptedEventIsWrittenInBatchesBeforeStopReturns() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        HeldSink sink = new HeldSink(release);
+        AuditLog auditLog = new AuditLog(sink, 1000, 100, 20, 10_000, meterRegistry);
+        auditLog.start();
+
+        for (int i = 0; i < 250; i++) {
+            auditLog.record(AuditEventType.USER_UPDATED, "admin@example.com", (long) i, null);
+        }
+        release.countDown();
+        auditLog.stop();
+
+        assertThat(sink.events()).hasSize(250);
+        // Piled up behind the held first write, so drained in batches, never above the batch size
+        assertThat(sink.batchSizes).allMatch(size -> size <= 100);
+        assertThat(sink.batchSizes.size()).isLessThan(250);
+        assertThat(sink.closed).isTrue();
+        assertThat(meterRegistry.get("audit.events.written").counter().count()).isEqualTo(250);
+    }
+
+    @Test
+    void eventsAreDroppedAndCountedWhenTheBufferStaysFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        HeldSink sink = new HeldSink(release);
+        AuditLog auditLog = new AuditLog(sink, 10, 5, 1, 10_000, meterRegistry);
+        auditLog.start();
+
+        for (int i = 0; i < 100; i++) {
+            auditLog.record(AuditEventType.LOGIN_FAILED, "someone@example.com", null, "bad credentials");
+        }
+        double dropped = meterRegistry.get("audit.events.dropped").counter().count();
+        release.countDown();
+        auditLog.stop();
+
+        assertThat(dropped).isPositive();
+        assertThat(sink.events().size() + dropped).isEqualTo(100);
+    }
+
+    // Blocks its first write until released
+    private static final class HeldSink implements AuditSink {
+
+        private final CountDownLatch release;
+        private final List<AuditEvent> events = Collections.synchronizedList(new ArrayList<>());
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean closed;
+
+        private HeldSink(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void write(List<AuditEvent> batch) throws Exception {
+            release.await();
+            batchSizes.add(batch.size());
+            events.addAll(batch);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        List<AuditEvent> events() {
+            return events;
+        }
+    }
+}
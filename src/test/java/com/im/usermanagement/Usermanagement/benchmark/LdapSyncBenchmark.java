@@ -0,0 +1,124 @@
+package com.im.usermanagement.benchmark;
+
+import com.im.usermanagement.UsermanagementApplication;
+import com.im.usermanagement.dto.LdapSyncReport;
+import com.im.usermanagement.ldap.LdapUserSync;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.sdk.Attribute;
+import com.unboundid.ldap.sdk.Entry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Directory sync against an in-process LDAP server holding {@code benchmark.entries} people. Not a
+ * JUnit test, run it explicitly (the directory lives in the same heap, give it room):
+ *
+ * <pre>
+ * MAVEN_OPTS=-Xmx1g mvn test-compile org.codehaus.mojo:exec-maven-plugin:3.5.0:java \
+ *     -Dexec.classpathScope=test -Dexec.mainClass=com.im.usermanagement.benchmark.LdapSyncBenchmark \
+ *     -Dbenchmark.entries=100000
+ * </pre>
+ *
+ * Reports the full run, a delta run after {@code benchmark.changes} modifications, and how far the heap
+ * grew above the baseline (directory already loaded) while the full run was going: it should depend on
+ * the page size, not on the number of entries.
+ */
+public class LdapSyncBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int entries = Integer.getInteger("benchmark.entries", 100_000);
+        int changes = Integer.getInteger("benchmark.changes", 1_000);
+        int pageSize = Integer.getInteger("benchmark.page-size", 500);
+
+        InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig("dc=bank,dc=com");
+        config.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("ldap", 0));
+        InMemoryDirectoryServer directory = new InMemoryDirectoryServer(config);
+        directory.add("dn: dc=bank,dc=com", "objectClass: domain", "dc: bank");
+        directory.add("dn: ou=people,dc=bank,dc=com", "objectClass: organizationalUnit", "ou: people");
+        List<Entry> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < entries; i++) {
+            batch.add(new Entry("uid=u" + i + ",ou=people,dc=bank,dc=com",
+                    new Attribute("objectClass", "inetOrgPerson"),
+                    new Attribute("uid", "u" + i),
+                    new Attribute("cn", "First" + i + " Last" + i),
+                    new Attribute("givenName", "First" + i),
+                    new Attribute("sn", "Last" + i),
+                    new Attribute("mail", "u" + i + "@bank.com")));
+            if (batch.size() == 10_000) {
+                directory.addEntries(batch);
+                batch.clear();
+            }
+        }
+        directory.addEntries(batch);
+        directory.startListening();
+
+        String[] overrides = {
+                "--spring.datasource.url=jdbc:h2:mem:ldap-benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.ldap.urls=ldap://localhost:" + directory.getListenPort(),
+                "--spring.ldap.base=dc=bank,dc=com",
+                "--ldap.sync.enabled=true",
+                "--ldap.sync.initial-delay-ms=3600000",
+                "--ldap.sync.base=ou=people",
+                "--ldap.sync.page-size=" + pageSize,
+                "--ldap.sync.overlap-seconds=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"
+        };
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(UsermanagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(overrides)) {
+
+            LdapUserSync sync = context.getBean(LdapUserSync.class);
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            System.gc();
+            long baseline = memory.getHeapMemoryUsage().getUsed();
+
+            // Sampled, so a rough upper bound of what the run itself holds
+            AtomicLong peak = new AtomicLong();
+            Thread sampler = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+            });
+            sampler.setDaemon(true);
+            sampler.start();
+            LdapSyncReport full = sync.fullSync();
+            sampler.interrupt();
+            print(full);
+            System.out.printf("heap: baseline %d MB, peak during the full run +%d MB%n",
+                    baseline >> 20, (peak.get() - baseline) >> 20);
+
+            // Modifications land in a later second than the watermark
+            Thread.sleep(1100);
+            for (int i = 0; i < changes; i++) {
+                directory.modify("dn: uid=u" + (i * (entries / changes)) + ",ou=people,dc=bank,dc=com",
+                        "changetype: modify", "replace: sn", "sn: Changed" + i);
+            }
+            print(sync.sync());
+        } finally {
+            directory.shutDown(true);
+        }
+    }
+
+    private static void print(LdapSyncReport report) {
+        System.out.printf("%s: %d entries in %d pages, %d ms -> %.0f entries/s (created=%d, updated=%d, unchanged=%d)%n",
+                report.getMode(), report.getRead(), report.getPages(), report.getElapsedMs(),
+                report.getRead() * 1000.0 / Math.max(1, report.getElapsedMs()),
+                report.getCreated(), report.getUpdated(), report.getUnchanged());
+    }
+}
@@ -0,0 +1,71 @@
+package com.im.usermanagement.benchmark;
+
+import com.im.usermanagement.UsermanagementApplication;
+import com.im.usermanagement.dto.ImportReport;
+import com.im.usermanagement.service.UserImportService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Throughput benchmark for the bulk import path (parse, uniqueness check, parallel hashing, JDBC batches)
+ * against an in-memory H2 database. Not a JUnit test, run it explicitly:
+ *
+ * <pre>
+ * mvn test-compile org.codehaus.mojo:exec-maven-plugin:3.5.0:java \
+ *     -Dexec.classpathScope=test -Dexec.mainClass=com.im.usermanagement.benchmark.UserImportBenchmark \
+ *     -Dbenchmark.rows=20000 -Dbenchmark.bcrypt-strength=10
+ * </pre>
+ *
+ * Each round imports a fresh set of emails so every row is really inserted. The BCrypt cost defaults to 4
+ * so the numbers show the import pipeline itself; raise it to see the hashing-bound production rate.
+ */
+public class UserImportBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rows = Integer.getInteger("benchmark.rows", 5_000);
+        int rounds = Integer.getInteger("benchmark.rounds", 3);
+        int strength = Integer.getInteger("benchmark.bcrypt-strength", 4);
+
+        // Passed as command-line args so they override application.properties
+        String[] overrides = {
+                "--spring.datasource.url=jdbc:h2:mem:import-benchmark;DB_CLOSE_DELAY=-1",
+                "--security.password.bcrypt-strength=" + strength,
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"
+        };
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(UsermanagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(overrides)) {
+
+            UserImportService importService = context.getBean(UserImportService.class);
+
+            // Round 0 is warm-up (JIT, connection pool, sequence allocation) and is not reported
+            for (int round = 0; round <= rounds; round++) {
+                byte[] csv = csv(round, rows);
+                ImportReport report = importService.importUsers(
+                        new ByteArrayInputStream(csv), UserImportService.Format.CSV);
+
+                if (round > 0) {
+                    double perSecond = report.getCreated() * 1000.0 / Math.max(1, report.getElapsedMs());
+                    System.out.printf("round %d: %d rows in %d ms -> %.0f rows/s (created=%d, failed=%d)%n",
+                            round, report.getTotal(), report.getElapsedMs(), perSecond,
+                            report.getCreated(), report.getFailed() + report.getInvalid() + report.getDuplicates());
+                }
+            }
+        }
+    }
+
+    private static byte[] csv(int round, int rows) {
+        StringBuilder csv = new StringBuilder(rows * 64).append("email,firstName,lastName,password\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("bench-").append(round).append('-').append(i).append("@example.com,")
+                    .append("First").append(i).append(",Last").append(i).append(",password").append(i).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
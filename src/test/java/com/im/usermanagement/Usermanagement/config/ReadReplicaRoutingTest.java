@@ -0,0 +1,211 @@
+package com.im.usermanagement.config;
+
+import com.im.usermanagement.dto.LdapSyncReport;
+import com.im.usermanagement.dto.UserFilter;
+import com.im.usermanagement.exception.ResourceNotFoundException;
+import com.im.usermanagement.ldap.LdapUserSync;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A primary and two replicas, each its own H2 database. Nothing replicates by itself: replicate()
+// copies the primary onto the replicas, so a test decides how far behind they are. Health checks only
+// run when called, and report the lag stored in each replica's replica_lag table. No second-level cache:
+// it answers lookups of freshly written users without asking any database (hibernate-jcache on the
+// classpath turns it on even without SecondLevelCacheConfig). The directory sync runs against the
+// embedded directory of src/test/resources/ldap/directory.ldif, only when a test calls it.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "app.cache.enabled=false",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "app.datasource.replicas.enabled=true",
+        "app.datasource.replicas.urls=" + ReadReplicaRoutingTest.REPLICA_0 + "," + ReadReplicaRoutingTest.REPLICA_1,
+        "app.datasource.replicas.health-check-interval-ms=3600000",
+        "app.datasource.replicas.lag-query=SELECT seconds FROM replica_lag",
+        "app.datasource.replicas.max-lag-seconds=5",
+        "spring.ldap.embedded.base-dn=dc=bank,dc=com",
+        "spring.ldap.embedded.ldif=classpath:ldap/directory.ldif",
+        "spring.ldap.embedded.port=0",
+        "spring.ldap.base=dc=bank,dc=com",
+        "ldap.sync.enabled=true",
+        "ldap.sync.initial-delay-ms=3600000",
+        "ldap.sync.base=ou=people",
+        "security.password.bcrypt-strength=4"})
+@AutoConfigureMockMvc
+class ReadReplicaRoutingTest {
+
+    static final String REPLICA_0 = "jdbc:h2:mem:routing-replica-0;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_1 = "jdbc:h2:mem:routing-replica-1;DB_CLOSE_DELAY=-1";
+
+    private final JdbcTemplate primary = jdbc("jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1");
+    private final List<JdbcTemplate> replicas = List.of(jdbc(REPLICA_0), jdbc(REPLICA_1));
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ReplicaRoutingDataSource router;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LdapUserSync ldapUserSync;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void replicateAndCheck() {
+        replicate();
+        router.checkReplicas();
+    }
+
+    @AfterEach
+    void clearCaller() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readsGoToReplicasUntilTheCallerWrites() {
+        actAs("alice@bank.com");
+        User bob = userService.createUser(user("ben@bank.com"));
+
+        assertThat(primary.queryForObject("select count(*) from app_user where id = ?", Long.class, bob.getId())).isOne();
+        assertThat(replicas.get(0).queryForObject("select count(*) from app_user where id = ?", Long.class, bob.getId())).isZero();
+
+        // Another caller reads from the replicas, which have not caught up
+        actAs("carol@bank.com");
+        double replicaReads = routed("replica-0", "read") + routed("replica-1", "read");
+        assertThatThrownBy(() -> userService.getUserById(bob.getId())).isInstanceOf(ResourceNotFoundException.class);
+        assertThat(routed("replica-0", "read") + routed("replica-1", "read")).isEqualTo(replicaReads + 1);
+
+        // The writer reads its own write from the primary
+        actAs("alice@bank.com");
+        double stickyReads = routed("primary", "sticky");
+        assertThat(userService.getUserById(bob.getId()).getEmail()).isEqualTo("ben@bank.com");
+        assertThat(routed("primary", "sticky")).isEqualTo(stickyReads + 1);
+
+        replicate();
+        actAs("carol@bank.com");
+        assertThat(userService.getUserById(bob.getId()).getEmail()).isEqualTo("ben@bank.com");
+    }
+
+    @Test
+    void laggingReplicasAreSkippedAndReadsFallBackToThePrimary() {
+        actAs("carol@bank.com");
+        replicas.get(1).update("update replica_lag set seconds = 60");
+        router.checkReplicas();
+        assertThat(meterRegistry.get("datasource.replica.healthy").tag("pool", "replica-1").gauge().value()).isZero();
+
+        double replica0 = routed("replica-0", "read");
+        double replica1 = routed("replica-1", "read");
+        for (int i = 0; i < 4; i++) {
+            userService.getUsersPage(null, 10, new UserFilter(null, null, null));
+        }
+        assertThat(routed("replica-0", "read")).isEqualTo(replica0 + 4);
+        assertThat(routed("replica-1", "read")).isEqualTo(replica1);
+
+        replicas.get(0).update("update replica_lag set seconds = 60");
+        router.checkReplicas();
+        double fallback = routed("primary", "fallback");
+        userService.getUsersPage(null, 10, new UserFilter(null, null, null));
+        assertThat(routed("primary", "fallback")).isEqualTo(fallback + 1);
+
+        replicas.forEach(replica -> replica.update("update replica_lag set seconds = 0"));
+        router.checkReplicas();
+        assertThat(meterRegistry.get("datasource.replica.healthy").tag("pool", "replica-1").gauge().value()).isOne();
+    }
+
+    @Test
+    void aNewUserCanLogInBeforeTheReplicasHaveIt() throws Exception {
+        // Open-in-view: the duplicate check (read) and the insert (write) share one request
+        mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Dan\",\"lastName\":\"Dale\",\"email\":\"dan@bank.com\",\"password\":\"secret-1\"}"))
+                .andExpect(status().isCreated());
+        assertThat(primary.queryForObject("select count(*) from app_user where email = 'dan@bank.com'", Long.class)).isOne();
+        assertThat(replicas.get(0).queryForObject("select count(*) from app_user where email = 'dan@bank.com'", Long.class)).isZero();
+
+        mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"dan@bank.com\",\"password\":\"secret-1\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void aFullDirectorySyncReadsItsOwnWritesFromThePrimary() {
+        LdapSyncReport first = ldapUserSync.fullSync();
+        assertThat(first.getCreated()).isEqualTo(5);
+        replicate();
+        router.checkReplicas();
+
+        // The replicas pass their health checks but stay at run 1, while run 2 marks every entry seen on
+        // the primary: read from a replica, every synced user would look gone from the directory
+        LdapSyncReport second = ldapUserSync.fullSync();
+        assertThat(second.getRun()).isEqualTo(2);
+        assertThat(second.getDeactivated()).isZero();
+
+        // Nor is the run number read from a replica, which would start run 2 again
+        LdapSyncReport third = ldapUserSync.fullSync();
+        assertThat(third.getRun()).isEqualTo(3);
+        assertThat(third.getDeactivated()).isZero();
+        assertThat(primary.queryForObject("""
+                select count(*) from app_user u join ldap_entries l on l.user_id = u.id
+                where u.is_active = true
+                """, Long.class)).isEqualTo(5);
+    }
+
+    // What replication would do: the replicas become copies of the primary, with their lag reset
+    private void replicate() {
+        List<String> script = primary.queryForList("SCRIPT", String.class);
+        for (JdbcTemplate replica : replicas) {
+            replica.execute("DROP ALL OBJECTS");
+            script.forEach(replica::execute);
+            replica.execute("CREATE TABLE replica_lag(seconds BIGINT)");
+            replica.update("INSERT INTO replica_lag VALUES (0)");
+        }
+    }
+
+    private double routed(String pool, String reason) {
+        return meterRegistry.get("datasource.connections.routed").tag("pool", pool).tag("reason", reason).counter().count();
+    }
+
+    // A new request from this caller (the test runs inside one mock request otherwise)
+    private static void actAs(String name) {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(name, null, List.of()));
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("Ben");
+        user.setLastName("Brown");
+        user.setPassword("hash");
+        return user;
+    }
+
+    private static JdbcTemplate jdbc(String url) {
+        return new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+    }
+}
@@ -0,0 +1,176 @@
+package com.im.usermanagement.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.im.usermanagement.dto.UserPage;
+import com.im.usermanagement.dto.UserResponse;
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.repository.UserRepository;
+import com.im.usermanagement.security.jwt.JwtTokenProvider;
+import com.im.usermanagement.service.RoleRegistry;
+import com.im.usermanagement.support.TestTokens;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The JPA endpoints and their R2DBC counterparts answer the same for the same rows: both run on one
+// in-memory database, through a real server (the reactive responses are streamed asynchronously).
+// No second-level cache: tables are cleared with SQL.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive-parity-test;DB_CLOSE_DELAY=-1",
+        "users.reactive.url=r2dbc:h2:mem:///reactive-parity-test?DB_CLOSE_DELAY=-1",
+        "app.cache.enabled=false"})
+class ReactiveUserControllerParityTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private String admin;
+    private List<User> users;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("delete from refresh_tokens");
+        jdbcTemplate.execute("delete from user_roles");
+        jdbcTemplate.execute("delete from app_user");
+        User caller = user("admin@bank.com", true, RoleName.ROLE_USER, RoleName.ROLE_ADMIN);
+        admin = TestTokens.bearer(tokenProvider, caller);
+        users = List.of(caller,
+                user("ann@bank.com", true, RoleName.ROLE_USER),
+                user("bob@bank.com", false, RoleName.ROLE_USER),
+                user("cat@bank.com", true),
+                user("dan@bank.com", true, RoleName.ROLE_ADMIN, RoleName.ROLE_USER));
+    }
+
+    @Test
+    void listingsMatchForEveryActiveFilter() throws Exception {
+        for (String active : new String[]{"", "&active=true", "&active=false"}) {
+            assertThat(reactiveList("limit=100" + active)).as(active).isEqualTo(list("limit=100" + active));
+        }
+        assertThat(list("limit=100")).hasSize(users.size());
+    }
+
+    @Test
+    void pagingThroughBothListingsYieldsTheSameUsers() throws Exception {
+        List<UserResponse> blocking = new ArrayList<>();
+        Long cursor = null;
+        do {
+            UserPage<UserResponse> page = page("limit=2" + (cursor == null ? "" : "&cursor=" + cursor));
+            blocking.addAll(normalized(page.getItems()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        List<UserResponse> reactive = new ArrayList<>();
+        List<UserResponse> chunk = reactiveList("limit=2");
+        while (!chunk.isEmpty()) {
+            reactive.addAll(chunk);
+            chunk = reactiveList("limit=2&cursor=" + chunk.get(chunk.size() - 1).getId());
+        }
+
+        assertThat(reactive).isEqualTo(blocking);
+        assertThat(reactive).hasSize(users.size());
+    }
+
+    @Test
+    void singleUsersMatchWithTheirETags() throws Exception {
+        for (User user : users) {
+            HttpResponse<String> blocking = get("/api/v1/users/" + user.getId());
+            HttpResponse<String> reactive = get("/api/v1/reactive/users/" + user.getId());
+            HttpResponse<String> byEmail = get("/api/v1/reactive/users/by-email?email=" + user.getEmail());
+
+            assertThat(blocking.statusCode()).isEqualTo(200);
+            assertThat(reactive.statusCode()).isEqualTo(200);
+            assertThat(byEmail.statusCode()).isEqualTo(200);
+            assertThat(read(reactive.body())).isEqualTo(read(blocking.body()));
+            assertThat(read(byEmail.body())).isEqualTo(read(blocking.body()));
+            assertThat(reactive.headers().firstValue(HttpHeaders.ETAG))
+                    .isEqualTo(blocking.headers().firstValue(HttpHeaders.ETAG));
+        }
+        assertThat(get("/api/v1/reactive/users/-1").statusCode()).isEqualTo(get("/api/v1/users/-1").statusCode());
+    }
+
+    private List<UserResponse> list(String query) throws Exception {
+        return normalized(page(query).getItems());
+    }
+
+    private UserPage<UserResponse> page(String query) throws Exception {
+        HttpResponse<String> response = get("/api/v1/users?" + query);
+        assertThat(response.statusCode()).isEqualTo(200);
+        return objectMapper.readValue(response.body(), new TypeReference<UserPage<UserResponse>>() {
+        });
+    }
+
+    // NDJSON: one user per line
+    private List<UserResponse> reactiveList(String query) throws Exception {
+        HttpResponse<String> response = get("/api/v1/reactive/users?" + query);
+        assertThat(response.statusCode()).isEqualTo(200);
+        List<UserResponse> users = new ArrayList<>();
+        for (String line : response.body().split("\n")) {
+            if (!line.isBlank()) {
+                users.add(read(line));
+            }
+        }
+        return users;
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header(HttpHeaders.AUTHORIZATION, admin)
+                .GET()
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private UserResponse read(String json) throws Exception {
+        return normalized(List.of(objectMapper.readValue(json, UserResponse.class))).get(0);
+    }
+
+    // Neither side orders a user's roles
+    private static List<UserResponse> normalized(List<UserResponse> users) {
+        for (UserResponse user : users) {
+            user.setRoles(user.getRoles().stream().sorted().toList());
+        }
+        return users;
+    }
+
+    private User user(String email, boolean active, RoleName... roles) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("First " + email);
+        user.setLastName("Last");
+        user.setPassword("hash");
+        user.setActive(active);
+        user.setRoles(List.of(roles).stream().map(roleRegistry::get).toList());
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,155 @@
+package com.im.usermanagement.controller;
+
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.repository.UserRepository;
+import com.im.usermanagement.security.jwt.JwtTokenProvider;
+import com.im.usermanagement.service.RoleRegistry;
+import com.im.usermanagement.support.TestTokens;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Conditional requests on /api/v1/users/{id}, as an admin. The second-level cache stays on: a row changed
+// behind its back is how a write committed elsewhere looks to this instance. Every test has its own users.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:user-controller-precondition-test;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class UserControllerPreconditionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String admin;
+    private User target;
+
+    @BeforeEach
+    void setUp() {
+        admin = TestTokens.bearer(tokenProvider, user(RoleName.ROLE_USER, RoleName.ROLE_ADMIN));
+        target = user(RoleName.ROLE_USER);
+    }
+
+    @Test
+    void aCurrentCopyIsAnswered304() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/users/{id}", target.getId()).header(HttpHeaders.AUTHORIZATION, admin))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isEqualTo("\"0\"");
+
+        mockMvc.perform(get("/api/v1/users/{id}", target.getId()).header(HttpHeaders.AUTHORIZATION, admin)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        // If-None-Match compares weakly
+        mockMvc.perform(get("/api/v1/users/{id}", target.getId()).header(HttpHeaders.AUTHORIZATION, admin)
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/" + etag))
+                .andExpect(status().isNotModified());
+
+        rename(target.getId(), "Renamed", null).andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/users/{id}", target.getId()).header(HttpHeaders.AUTHORIZATION, admin)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.firstName").value("Renamed"));
+    }
+
+    @Test
+    void anUpdateAgainstAStaleVersionFails412WithTheCurrentETag() throws Exception {
+        rename(target.getId(), "First", "\"0\"")
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        rename(target.getId(), "Second", "\"0\"")
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        assertThat(firstName(target.getId())).isEqualTo("First");
+    }
+
+    @Test
+    void aDeleteAgainstAStaleVersionFails412() throws Exception {
+        rename(target.getId(), "First", null).andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/v1/users/{id}", target.getId()).header(HttpHeaders.AUTHORIZATION, admin)
+                        .header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        assertThat(jdbcTemplate.queryForObject("select is_active from app_user where id = ?",
+                Boolean.class, target.getId())).isTrue();
+
+        mockMvc.perform(delete("/api/v1/users/{id}", target.getId()).header(HttpHeaders.AUTHORIZATION, admin)
+                        .header(HttpHeaders.IF_MATCH, "\"1\""))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void aWriteCommittedBetweenTheCheckAndTheFlushFails409() throws Exception {
+        // Warm the cache with version 0, then let "another instance" commit version 1
+        mockMvc.perform(get("/api/v1/users/{id}", target.getId()).header(HttpHeaders.AUTHORIZATION, admin))
+                .andExpect(status().isOk());
+        jdbcTemplate.update("update app_user set first_name = 'Elsewhere', version = version + 1 where id = ?",
+                target.getId());
+
+        // The precondition passes on the cached version; the UPDATE ... WHERE version = 0 matches no row
+        rename(target.getId(), "Here", "\"0\"")
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("The resource was modified concurrently, read it again and retry"));
+
+        assertThat(firstName(target.getId())).isEqualTo("Elsewhere");
+    }
+
+    private ResultActions rename(Long id, String firstName, String ifMatch) throws Exception {
+        MockHttpServletRequestBuilder request = put("/api/v1/users/{id}", id).header(HttpHeaders.AUTHORIZATION, admin)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"" + firstName + "\",\"lastName\":\"Last\"}");
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return mockMvc.perform(request);
+    }
+
+    private String firstName(Long id) {
+        return jdbcTemplate.queryForObject("select first_name from app_user where id = ?", String.class, id);
+    }
+
+    private User user(RoleName... roles) {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@bank.com");
+        user.setFirstName("Original");
+        user.setLastName("Last");
+        user.setPassword("hash");
+        user.setRoles(List.of(roles).stream().map(roleRegistry::get).toList());
+        return userRepository.save(user);
+    }
+}
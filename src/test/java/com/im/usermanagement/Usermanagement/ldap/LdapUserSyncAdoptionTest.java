@@ -0,0 +1,80 @@
+package com.im.usermanagement.ldap;
+
+import com.im.usermanagement.dto.LdapSyncReport;
+import com.im.usermanagement.model.Role;
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.repository.UserRepository;
+import com.im.usermanagement.service.RoleRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Same embedded directory as LdapUserSyncTest, with ldap.sync.adopt-local-accounts switched on.
+// No second-level cache: the tables are cleared behind Hibernate's back.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ldap-sync-adoption-test;DB_CLOSE_DELAY=-1",
+        "app.cache.enabled=false",
+        "spring.ldap.embedded.base-dn=dc=bank,dc=com",
+        "spring.ldap.embedded.ldif=classpath:ldap/directory.ldif",
+        "spring.ldap.embedded.port=0",
+        "spring.ldap.base=dc=bank,dc=com",
+        "ldap.sync.enabled=true",
+        "ldap.sync.initial-delay-ms=3600000",
+        "ldap.sync.base=ou=people",
+        "ldap.sync.admin-group=cn=admins,ou=groups",
+        "ldap.sync.adopt-local-accounts=true",
+        "security.password.bcrypt-strength=4"})
+class LdapUserSyncAdoptionTest {
+
+    @Autowired
+    private LdapUserSync ldapUserSync;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void reset() {
+        jdbcTemplate.execute("delete from ldap_entries");
+        jdbcTemplate.execute("delete from ldap_sync_state");
+        jdbcTemplate.execute("delete from refresh_tokens");
+        jdbcTemplate.execute("delete from user_roles");
+        jdbcTemplate.execute("delete from app_user");
+    }
+
+    @Test
+    void aLocalAccountWithTheEntrysEmailIsAdoptedAndFollowsTheDirectory() {
+        User local = new User();
+        local.setEmail("eve@bank.com");
+        local.setFirstName("Eve");
+        local.setLastName("Old");
+        local.setPassword("hash");
+        local.setRoles(List.of(roleRegistry.get(RoleName.ROLE_USER), roleRegistry.get(RoleName.ROLE_ADMIN)));
+        local = userRepository.save(local);
+
+        LdapSyncReport report = ldapUserSync.fullSync();
+
+        assertThat(report.getConflicts()).isZero();
+        assertThat(report.getUpdated()).isEqualTo(1);
+        User eve = userRepository.findByEmail("eve@bank.com").orElseThrow();
+        assertThat(eve.getId()).isEqualTo(local.getId());
+        assertThat(eve.getLastName()).isEqualTo("Evans");
+        // Still logs in with its own password...
+        assertThat(eve.getPassword()).isEqualTo("hash");
+        // ...but is not in the directory's admin group
+        assertThat(report.getDemoted()).isEqualTo(1);
+        assertThat(eve.getRoles()).extracting(Role::getAuthority).containsExactly("ROLE_USER");
+    }
+}
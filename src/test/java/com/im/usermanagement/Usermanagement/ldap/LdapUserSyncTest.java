@@ -0,0 +1,175 @@
+package com.im.usermanagement.ldap;
+
+import com.im.usermanagement.dto.LdapSyncReport;
+import com.im.usermanagement.model.Role;
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.repository.UserRepository;
+import com.im.usermanagement.service.RoleRegistry;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldif.LDIFReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Against the embedded directory of src/test/resources/ldap/directory.ldif, reset before each test.
+// Pages of 2 entries, no second-level cache (the users table is cleared behind Hibernate's back).
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ldap-sync-test;DB_CLOSE_DELAY=-1",
+        "app.cache.enabled=false",
+        "spring.ldap.embedded.base-dn=dc=bank,dc=com",
+        "spring.ldap.embedded.ldif=classpath:ldap/directory.ldif",
+        "spring.ldap.embedded.port=0",
+        "spring.ldap.base=dc=bank,dc=com",
+        "ldap.sync.enabled=true",
+        "ldap.sync.initial-delay-ms=3600000",
+        "ldap.sync.base=ou=people",
+        "ldap.sync.admin-group=cn=admins,ou=groups",
+        "ldap.sync.page-size=2",
+        "ldap.sync.overlap-seconds=0",
+        "security.password.bcrypt-strength=4"})
+class LdapUserSyncTest {
+
+    private static final String PEOPLE = "ou=people,dc=bank,dc=com";
+    private static final String ADMINS = "cn=admins,ou=groups,dc=bank,dc=com";
+
+    @Autowired
+    private LdapUserSync ldapUserSync;
+
+    @Autowired
+    private InMemoryDirectoryServer directoryServer;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void reset() throws Exception {
+        directoryServer.importFromLDIF(true, new LDIFReader(new ClassPathResource("ldap/directory.ldif").getInputStream()));
+        jdbcTemplate.execute("delete from ldap_entries");
+        jdbcTemplate.execute("delete from ldap_sync_state");
+        jdbcTemplate.execute("delete from refresh_tokens");
+        jdbcTemplate.execute("delete from user_roles");
+        jdbcTemplate.execute("delete from app_user");
+    }
+
+    @Test
+    void fullSyncLoadsTheDirectoryAndDeltasOnlyApplyChanges() throws Exception {
+        User local = localUser("eve@bank.com", "Eve", "Old");
+
+        LdapSyncReport first = ldapUserSync.sync();
+
+        assertThat(first.getMode()).isEqualTo(LdapSyncReport.Mode.FULL);
+        assertThat(first.getRead()).isEqualTo(6);
+        assertThat(first.getPages()).isEqualTo(3);
+        assertThat(first.getCreated()).isEqualTo(4);
+        // The local account with the same email is neither taken over nor duplicated (see LdapUserSyncAdoptionTest)
+        assertThat(first.getUpdated()).isZero();
+        assertThat(first.getConflicts()).isEqualTo(1);
+        assertThat(first.getSkipped()).isEqualTo(1);
+        assertThat(first.getPromoted()).isEqualTo(1);
+        assertThat(user("eve@bank.com").getId()).isEqualTo(local.getId());
+        assertThat(user("eve@bank.com").getLastName()).isEqualTo("Old");
+        assertThat(roles("alice@bank.com")).containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+
+        // The watermark has whole seconds: change things in a later one
+        Thread.sleep(1100);
+        directoryServer.modify("dn: uid=bob," + PEOPLE, "changetype: modify", "replace: sn", "sn: Baker");
+        directoryServer.delete("uid=carol," + PEOPLE);
+        addPerson("frank", "Frank", "Fisher", "frank@bank.com");
+        directoryServer.modify("dn: " + ADMINS, "changetype: modify", "replace: member", "member: uid=dave," + PEOPLE);
+
+        LdapSyncReport delta = ldapUserSync.sync();
+
+        assertThat(delta.getMode()).isEqualTo(LdapSyncReport.Mode.DELTA);
+        assertThat(delta.getCreated()).isEqualTo(1);
+        assertThat(delta.getUpdated()).isEqualTo(1);
+        assertThat(user("bob@bank.com").getLastName()).isEqualTo("Baker");
+        // Deletions are invisible to a delta
+        assertThat(delta.getDeactivated()).isZero();
+        assertThat(user("carol@bank.com").isActive()).isTrue();
+        // Group membership is checked on every run
+        assertThat(delta.getPromoted()).isEqualTo(1);
+        assertThat(delta.getDemoted()).isEqualTo(1);
+        assertThat(roles("alice@bank.com")).containsExactly("ROLE_USER");
+        assertThat(roles("dave@bank.com")).containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+
+        // Nothing changed since: only the entries of the watermark's second are read again
+        LdapSyncReport quiet = ldapUserSync.sync();
+        assertThat(quiet.getRead()).isBetween(1L, 2L);
+        assertThat(quiet.getUpdated() + quiet.getCreated()).isZero();
+
+        LdapSyncReport full = ldapUserSync.fullSync();
+
+        assertThat(full.getDeactivated()).isEqualTo(1);
+        assertThat(user("carol@bank.com").isActive()).isFalse();
+
+        // Re-created with a new entryUUID: takes the deactivated user over
+        Long carolId = user("carol@bank.com").getId();
+        addPerson("carol", "Carol", "Clark", "carol@bank.com");
+
+        LdapSyncReport back = ldapUserSync.sync();
+
+        assertThat(back.getReactivated()).isEqualTo(1);
+        assertThat(user("carol@bank.com").isActive()).isTrue();
+        assertThat(user("carol@bank.com").getId()).isEqualTo(carolId);
+    }
+
+    @Test
+    void usersDeletedThroughTheApiStayDeletedAndEmailClashesAreSkipped() throws Exception {
+        ldapUserSync.sync();
+        User bob = user("bob@bank.com");
+        bob.setActive(false);
+        userRepository.save(bob);
+        // A second entry claiming alice's email
+        addPerson("alice2", "Alice", "Again", "alice@bank.com");
+
+        LdapSyncReport report = ldapUserSync.fullSync();
+
+        assertThat(report.getConflicts()).isEqualTo(1);
+        assertThat(report.getReactivated()).isZero();
+        assertThat(report.getDeactivated()).isZero();
+        assertThat(user("bob@bank.com").isActive()).isFalse();
+        assertThat(user("alice@bank.com").getLastName()).isEqualTo("Adams");
+    }
+
+    private void addPerson(String uid, String firstName, String lastName, String email) throws Exception {
+        directoryServer.add("dn: uid=" + uid + "," + PEOPLE,
+                "objectClass: inetOrgPerson",
+                "uid: " + uid,
+                "cn: " + firstName + " " + lastName,
+                "givenName: " + firstName,
+                "sn: " + lastName,
+                "mail: " + email);
+    }
+
+    private User localUser(String email, String firstName, String lastName) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setPassword("hash");
+        user.setRoles(List.of(roleRegistry.get(RoleName.ROLE_USER)));
+        return userRepository.save(user);
+    }
+
+    private User user(String email) {
+        return userRepository.findByEmail(email).orElseThrow();
+    }
+
+    private List<String> roles(String email) {
+        return user(email).getRoles().stream().map(Role::getAuthority).toList();
+    }
+}
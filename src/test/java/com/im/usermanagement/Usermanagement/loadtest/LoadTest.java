@@ -0,0 +1,271 @@
+package com.im.usermanagement.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.im.usermanagement.UsermanagementApplication;
+import com.im.usermanagement.model.Role;
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.repository.UserRepository;
+import com.im.usermanagement.service.RoleRegistry;
+import com.im.usermanagement.service.UserImportService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * End-to-end load test of the REST API. Boots the application on a random port against its own
+ * in-memory H2 database, seeds {@code loadtest.users} users through the bulk import, then has
+ * {@code loadtest.concurrency} workers send a weighted mix of login, register, get, list, update
+ * and soft-delete requests over HTTP. Not a JUnit test, run it explicitly:
+ *
+ * <pre>
+ * mvn test-compile org.codehaus.mojo:exec-maven-plugin:3.5.0:java \
+ *     -Dexec.classpathScope=test -Dexec.mainClass=com.im.usermanagement.loadtest.LoadTest \
+ *     -Dloadtest.concurrency=32 -Dloadtest.duration-seconds=30 \
+ *     -Dloadtest.mix=login=10,register=5,get=40,list=25,update=15,delete=5
+ * </pre>
+ *
+ * Prints p50/p99/p999 and throughput per endpoint, and writes them to
+ * target/loadtest/loadtest-&lt;label&gt;.json (label defaults to the git commit) to compare commits.
+ *
+ * Each worker draws its requests from its own Random seeded with {@code loadtest.seed}, so a run
+ * sends the same request sequence every time. Workers are closed-loop (the next request leaves
+ * when the previous one returns): latencies are those of a system at its throughput ceiling.
+ */
+public class LoadTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = new LoadTestOptions();
+        if (options.label.isEmpty()) {
+            options.label = gitCommit();
+        }
+        run(options);
+    }
+
+    /**
+     * Runs one load test and returns its merged report.
+     */
+    static LoadTestReport run(LoadTestOptions options) throws Exception {
+        String database = "loadtest-" + System.nanoTime();
+        List<String> appArgs = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                // The reactive read API must see the same in-memory database
+                "--users.reactive.url=r2dbc:h2:mem:///" + database + "?DB_CLOSE_DELAY=-1",
+                "--security.password.bcrypt-strength=" + options.bcryptStrength,
+                // Every worker logs in from 127.0.0.1: keep the login throttle out of the measurement
+                "--security.login.rate-limit.ip.capacity=1000000",
+                "--security.login.rate-limit.ip.per-minute=1000000",
+                "--security.login.rate-limit.account.capacity=1000000",
+                "--security.login.rate-limit.account.per-minute=1000000",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+        appArgs.addAll(options.appArgs);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(UsermanagementApplication.class)
+                .run(appArgs.toArray(String[]::new))) {
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Long[] userIds = seed(context, options.users);
+            Target target = new Target("http://localhost:" + port, userIds);
+
+            if (options.warmupSeconds > 0) {
+                drive(options, target, "warmup", options.warmupSeconds);
+            }
+            long start = System.nanoTime();
+            LoadTestReport report = drive(options, target, "run", options.durationSeconds);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            report.print(System.out, options.label, seconds);
+            Path file = report.write(options, options.label, seconds);
+            System.out.println("Results written to " + file);
+            return report;
+        }
+    }
+
+    private static Long[] seed(ConfigurableApplicationContext context, int users) throws Exception {
+        StringBuilder csv = new StringBuilder(users * 64).append("email,firstName,lastName,password\n");
+        for (int i = 0; i < users; i++) {
+            csv.append(email(i)).append(",First").append(i).append(",Last").append(i)
+                    .append(',').append(password(i)).append('\n');
+        }
+        context.getBean(UserImportService.class).importUsers(
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), UserImportService.Format.CSV);
+
+        // The import report only counts created rows: look their ids up by email
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        Long[] ids = new Long[users];
+        for (int i = 0; i < users; i++) {
+            ids[i] = userRepository.findByEmail(email(i)).orElseThrow().getId();
+        }
+
+        // Workers list, update and delete other users: their login identities must be admins
+        Role admin = context.getBean(RoleRegistry.class).get(RoleName.ROLE_ADMIN);
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status ->
+                userRepository.findAllById(List.of(ids).subList(0, Math.max(1, users / 2)))
+                        .forEach(user -> user.getRoles().add(admin)));
+        return ids;
+    }
+
+    private static LoadTestReport drive(LoadTestOptions options, Target target, String phase, int seconds)
+            throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(options.concurrency);
+        try {
+            List<Future<LoadTestReport>> results = new ArrayList<>();
+            for (int w = 0; w < options.concurrency; w++) {
+                Worker worker = new Worker(options, target, phase, w);
+                results.add(workers.submit(() -> worker.runUntil(deadline)));
+            }
+            LoadTestReport merged = new LoadTestReport();
+            for (Future<LoadTestReport> result : results) {
+                merged.merge(result.get());
+            }
+            return merged;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    // The first half of the seeded users only log in, the second half get updated and deleted,
+    // so soft deletes never revoke a worker's own token.
+    private record Target(String baseUrl, Long[] userIds) {
+
+        int loginUsers() {
+            return Math.max(1, userIds.length / 2);
+        }
+
+        int mutableFrom() {
+            return userIds.length > 1 ? userIds.length / 2 : 0;
+        }
+    }
+
+    private static final class Worker {
+
+        private final LoadTestOptions options;
+        private final Target target;
+        private final String phase;
+        private final int index;
+        private final Random random;
+        private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        private final LoadTestReport report = new LoadTestReport();
+        private String token;
+        private long sequence;
+
+        Worker(LoadTestOptions options, Target target, String phase, int index) {
+            this.options = options;
+            this.target = target;
+            this.phase = phase;
+            this.index = index;
+            this.random = new Random(options.seed * 31 + index + (phase.equals("run") ? 0 : 7919));
+        }
+
+        LoadTestReport runUntil(long deadline) throws Exception {
+            token = login(index % target.loginUsers());
+            while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                Operation operation = options.mix.next(random);
+                HttpRequest request = request(operation);
+                long start = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    report.record(operation, response.statusCode(), (System.nanoTime() - start) / 1_000);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception ex) {
+                    report.fail(operation);
+                }
+            }
+            return report;
+        }
+
+        private HttpRequest request(Operation operation) {
+            return switch (operation) {
+                case LOGIN -> loginRequest(random.nextInt(target.loginUsers()));
+                case REGISTER -> json("/api/auth/register", "POST", """
+                        {"email":"lt-%s-%d-%d@example.com","firstName":"Load","lastName":"Test","password":"secret1"}"""
+                        .formatted(phase, index, sequence++), false);
+                case GET -> authorized("/api/v1/users/" + anyUser()).GET().build();
+                case LIST -> authorized("/api/v1/users?limit=20&cursor=" + (anyUser() - 1)).GET().build();
+                case UPDATE -> json("/api/v1/users/" + mutableUser(), "PUT", """
+                        {"firstName":"First%d","lastName":"Last%d"}""".formatted(sequence, sequence++), true);
+                case DELETE -> authorized("/api/v1/users/" + mutableUser()).DELETE().build();
+                case REACTIVE_GET -> authorized("/api/v1/reactive/users/" + anyUser()).GET().build();
+                case REACTIVE_LIST -> authorized("/api/v1/reactive/users?limit=20&cursor=" + (anyUser() - 1)).GET().build();
+            };
+        }
+
+        private long anyUser() {
+            return target.userIds()[random.nextInt(target.userIds().length)];
+        }
+
+        private long mutableUser() {
+            int from = target.mutableFrom();
+            return target.userIds()[from + random.nextInt(target.userIds().length - from)];
+        }
+
+        private HttpRequest.Builder authorized(String path) {
+            return HttpRequest.newBuilder(URI.create(target.baseUrl() + path))
+                    .header("Authorization", "Bearer " + token);
+        }
+
+        private HttpRequest json(String path, String method, String body, boolean authenticated) {
+            HttpRequest.Builder builder = authenticated
+                    ? authorized(path)
+                    : HttpRequest.newBuilder(URI.create(target.baseUrl() + path));
+            return builder.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+
+        private HttpRequest loginRequest(int user) {
+            return json("/api/auth/login", "POST", """
+                    {"username":"%s","password":"%s"}""".formatted(email(user), password(user)), false);
+        }
+
+        private String login(int user) throws Exception {
+            HttpResponse<String> response = client.send(loginRequest(user), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Worker login failed with " + response.statusCode() + ": " + response.body());
+            }
+            JsonNode body = JSON.readTree(response.body());
+            return body.get("accessToken").asText();
+        }
+    }
+
+    private static String email(int user) {
+        return "loadtest-" + user + "@example.com";
+    }
+
+    private static String password(int user) {
+        return "password" + user;
+    }
+
+    private static String gitCommit() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            String commit = new String(git.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            return git.waitFor() == 0 && !commit.isEmpty() ? commit : "run";
+        } catch (Exception ex) {
+            return "run";
+        }
+    }
+}
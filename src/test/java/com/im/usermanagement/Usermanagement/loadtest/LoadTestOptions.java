@@ -0,0 +1,40 @@
+package com.im.usermanagement.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Load-test settings, read from -Dloadtest.* system properties.
+ */
+final class LoadTestOptions {
+
+    // Seeded users; the first half are login identities, the second half update/delete targets
+    int users = Integer.getInteger("loadtest.users", 1_000);
+    int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+    int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 10);
+    int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 30);
+    long seed = Long.getLong("loadtest.seed", 42L);
+    Operation.Mix mix = Operation.Mix.parse(System.getProperty("loadtest.mix",
+            "login=10,register=5,get=40,list=25,update=15,delete=5"));
+    // Production cost by default: login and register throughput is bounded by it
+    int bcryptStrength = Integer.getInteger("loadtest.bcrypt-strength", 10);
+    String label = System.getProperty("loadtest.label", "");
+    String output = System.getProperty("loadtest.output", "target/loadtest");
+    // Extra application arguments (--key=value), e.g. to compare configurations
+    List<String> appArgs = new ArrayList<>();
+
+    LoadTestOptions withAppArg(String arg) {
+        appArgs.add(arg);
+        return this;
+    }
+
+    LoadTestOptions withMix(String spec) {
+        this.mix = Operation.Mix.parse(spec);
+        return this;
+    }
+
+    LoadTestOptions withLabel(String label) {
+        this.label = label;
+        return this;
+    }
+}
@@ -0,0 +1,130 @@
+package com.im.usermanagement.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencies (HdrHistogram, microseconds) and outcomes per operation. Each worker fills its own
+ * report without locking; they are merged once the run is over.
+ */
+final class LoadTestReport {
+
+    // Up to one minute per request at 3 significant digits
+    private static final long HIGHEST_TRACKABLE_MICROS = 60_000_000L;
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, Map<Integer, Long>> statuses = new EnumMap<>(Operation.class);
+    private final Map<Operation, Long> failures = new EnumMap<>(Operation.class);
+
+    void record(Operation operation, int status, long micros) {
+        latencies.computeIfAbsent(operation, op -> new Histogram(HIGHEST_TRACKABLE_MICROS, 3))
+                .recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+        statuses.computeIfAbsent(operation, op -> new TreeMap<>()).merge(status, 1L, Long::sum);
+    }
+
+    // No response at all (connection refused, timeout)
+    void fail(Operation operation) {
+        failures.merge(operation, 1L, Long::sum);
+    }
+
+    void merge(LoadTestReport other) {
+        other.latencies.forEach((op, histogram) ->
+                latencies.computeIfAbsent(op, o -> new Histogram(HIGHEST_TRACKABLE_MICROS, 3)).add(histogram));
+        other.statuses.forEach((op, counts) -> counts.forEach((status, count) ->
+                statuses.computeIfAbsent(op, o -> new TreeMap<>()).merge(status, count, Long::sum)));
+        other.failures.forEach((op, count) -> failures.merge(op, count, Long::sum));
+    }
+
+    void print(PrintStream out, String label, double seconds) {
+        out.printf("%n%s%n", label);
+        out.printf("%-30s %9s %9s %9s %9s %9s %9s %7s%n",
+                "endpoint", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "requests", "errors");
+        Histogram all = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long allErrors = 0;
+        for (Operation op : Operation.values()) {
+            Histogram h = latencies.get(op);
+            if (h == null) {
+                continue;
+            }
+            long errors = errors(op);
+            all.add(h);
+            allErrors += errors;
+            printRow(out, op.endpoint, h, errors, seconds);
+        }
+        printRow(out, "total", all, allErrors, seconds);
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram h, long errors, double seconds) {
+        out.printf("%-30s %9.1f %9.2f %9.2f %9.2f %9.2f %9d %7d%n", name, h.getTotalCount() / seconds,
+                ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(99)), ms(h.getValueAtPercentile(99.9)),
+                ms(h.getMaxValue()), h.getTotalCount(), errors);
+    }
+
+    /**
+     * Writes the run as JSON (settings, then one entry per endpoint) and returns the file.
+     */
+    Path write(LoadTestOptions options, String label, double seconds) throws IOException {
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("label", label);
+        run.put("timestamp", Instant.now().toString());
+        run.put("seed", options.seed);
+        run.put("users", options.users);
+        run.put("concurrency", options.concurrency);
+        run.put("durationSeconds", options.durationSeconds);
+        run.put("bcryptStrength", options.bcryptStrength);
+        run.put("mix", options.mix.weights());
+        run.put("appArgs", options.appArgs);
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Operation op : Operation.values()) {
+            Histogram h = latencies.get(op);
+            if (h == null) {
+                continue;
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", h.getTotalCount());
+            stats.put("throughput", h.getTotalCount() / seconds);
+            stats.put("meanMs", h.getMean() / 1000.0);
+            stats.put("p50Ms", ms(h.getValueAtPercentile(50)));
+            stats.put("p90Ms", ms(h.getValueAtPercentile(90)));
+            stats.put("p99Ms", ms(h.getValueAtPercentile(99)));
+            stats.put("p999Ms", ms(h.getValueAtPercentile(99.9)));
+            stats.put("maxMs", ms(h.getMaxValue()));
+            stats.put("statuses", statuses.get(op));
+            stats.put("failures", failures.getOrDefault(op, 0L));
+            endpoints.put(op.endpoint, stats);
+        }
+        run.put("endpoints", endpoints);
+
+        Path dir = Path.of(options.output);
+        Files.createDirectories(dir);
+        Path file = dir.resolve("loadtest-" + label.replaceAll("[^A-Za-z0-9._-]", "_") + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), run);
+        return file;
+    }
+
+    private long errors(Operation op) {
+        long errors = failures.getOrDefault(op, 0L);
+        for (Map.Entry<Integer, Long> entry : statuses.getOrDefault(op, Map.of()).entrySet()) {
+            if (entry.getKey() >= 400) {
+                errors += entry.getValue();
+            }
+        }
+        return errors;
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+}
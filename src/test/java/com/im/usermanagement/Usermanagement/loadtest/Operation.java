@@ -0,0 +1,81 @@
+package com.im.usermanagement.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The requests a load-test worker can send, and the weighted mix it picks them from.
+ */
+enum Operation {
+    LOGIN("POST /api/auth/login"),
+    REGISTER("POST /api/auth/register"),
+    GET("GET /api/v1/users/{id}"),
+    LIST("GET /api/v1/users"),
+    UPDATE("PUT /api/v1/users/{id}"),
+    DELETE("DELETE /api/v1/users/{id}"),
+    REACTIVE_GET("GET /api/v1/reactive/users/{id}"),
+    REACTIVE_LIST("GET /api/v1/reactive/users");
+
+    final String endpoint;
+
+    Operation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Weighted choice over operations, e.g. "login=10,get=40,list=25,update=15,register=5,delete=5".
+     */
+    static final class Mix {
+
+        private final Operation[] operations;
+        private final int[] cumulative;
+        private final int total;
+        private final Map<Operation, Integer> weights;
+
+        private Mix(Map<Operation, Integer> weights) {
+            this.weights = weights;
+            this.operations = weights.keySet().toArray(new Operation[0]);
+            this.cumulative = new int[operations.length];
+            int sum = 0;
+            for (int i = 0; i < operations.length; i++) {
+                sum += weights.get(operations[i]);
+                cumulative[i] = sum;
+            }
+            if (sum == 0) {
+                throw new IllegalArgumentException("Operation mix has no positive weight");
+            }
+            this.total = sum;
+        }
+
+        static Mix parse(String spec) {
+            Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+            for (String part : spec.split(",")) {
+                String[] pair = part.trim().split("=");
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("Bad operation mix entry '" + part + "', expected name=weight");
+                }
+                int weight = Integer.parseInt(pair[1].trim());
+                if (weight > 0) {
+                    weights.put(Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), weight);
+                }
+            }
+            return new Mix(weights);
+        }
+
+        Operation next(Random random) {
+            int roll = random.nextInt(total);
+            for (int i = 0; i < cumulative.length; i++) {
+                if (roll < cumulative[i]) {
+                    return operations[i];
+                }
+            }
+            throw new IllegalStateException();
+        }
+
+        Map<Operation, Integer> weights() {
+            return weights;
+        }
+    }
+}
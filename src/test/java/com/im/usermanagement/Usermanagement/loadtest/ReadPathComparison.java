@@ -0,0 +1,30 @@
+package com.im.usermanagement.loadtest;
+
+/**
+ * Runs the same read-only {@link LoadTest} against the servlet (JPA) read endpoints and their reactive
+ * (R2DBC) counterparts under /api/v1/reactive/users. Takes the same -Dloadtest.* settings, except the mix:
+ *
+ * <pre>
+ * mvn test-compile org.codehaus.mojo:exec-maven-plugin:3.5.0:java \
+ *     -Dexec.classpathScope=test -Dexec.mainClass=com.im.usermanagement.loadtest.ReadPathComparison \
+ *     -Dloadtest.concurrency=400
+ * </pre>
+ *
+ * Both runs use the same 60/40 get/list split and the same seeded users. Above 200 clients the servlet
+ * path queues on Tomcat workers and the Hikari pool; the reactive path holds no thread while it waits
+ * for a connection.
+ */
+public class ReadPathComparison {
+
+    public static void main(String[] args) throws Exception {
+        LoadTest.run(readOnly("servlet-reads", "get=60,list=40"));
+        LoadTest.run(readOnly("reactive-reads", "reactive_get=60,reactive_list=40"));
+    }
+
+    private static LoadTestOptions readOnly(String label, String mix) {
+        LoadTestOptions options = new LoadTestOptions().withLabel(label).withMix(mix);
+        // Workers only log in once, at start: let hundreds of them queue for a (cheap) hash
+        options.bcryptStrength = 4;
+        return options.withAppArg("--security.password.hashing.queue-capacity=" + options.concurrency);
+    }
+}
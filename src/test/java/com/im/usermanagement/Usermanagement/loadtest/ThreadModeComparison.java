@@ -0,0 +1,29 @@
+package com.im.usermanagement.loadtest;
+
+/**
+ * Runs the same {@link LoadTest} against platform-thread and virtual-thread request handling.
+ * Takes the same -Dloadtest.* settings; virtual mode needs a JDK 21+ on JAVA_HOME and is skipped otherwise:
+ *
+ * <pre>
+ * mvn test-compile org.codehaus.mojo:exec-maven-plugin:3.5.0:java \
+ *     -Dexec.classpathScope=test -Dexec.mainClass=com.im.usermanagement.loadtest.ThreadModeComparison \
+ *     -Dloadtest.concurrency=400 -Dloadtest.mix=login=10,list=90
+ * </pre>
+ *
+ * With more concurrent clients than Tomcat workers (200) the platform mode queues in the connector,
+ * while the virtual mode queues on the connection pool and the hashing pool instead.
+ */
+public class ThreadModeComparison {
+
+    public static void main(String[] args) throws Exception {
+        LoadTest.run(new LoadTestOptions().withLabel("platform-threads"));
+
+        if (Runtime.version().feature() >= 21) {
+            LoadTest.run(new LoadTestOptions()
+                    .withLabel("virtual-threads")
+                    .withAppArg("--spring.profiles.active=virtual-threads"));
+        } else {
+            System.out.println("virtual-threads: skipped, running on Java " + Runtime.version().feature() + " (needs 21+)");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.im.usermanagement.repository;
+
+import com.im.usermanagement.dto.UserResponse;
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.repository.ReactiveUserRepository.VersionedUser;
+import com.im.usermanagement.service.RoleRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The hand-written R2DBC SQL against the schema JPA created, in the same in-memory database
+// (written through JPA, read back over R2DBC). No second-level cache: tables are cleared with SQL.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive-user-repository-test;DB_CLOSE_DELAY=-1",
+        "users.reactive.url=r2dbc:h2:mem:///reactive-user-repository-test?DB_CLOSE_DELAY=-1",
+        "app.cache.enabled=false"})
+class ReactiveUserRepositoryTest {
+
+    @Autowired
+    private ReactiveUserRepository reactiveUserRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User admin;
+    private User inactive;
+    private User roleless;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("delete from refresh_tokens");
+        jdbcTemplate.execute("delete from user_roles");
+        jdbcTemplate.execute("delete from app_user");
+        admin = user("admin@bank.com", true, RoleName.ROLE_USER, RoleName.ROLE_ADMIN);
+        inactive = user("gone@bank.com", false, RoleName.ROLE_USER);
+        roleless = user("bare@bank.com", true);
+    }
+
+    @Test
+    void groupsTheRoleRowsOfEachUser() {
+        List<UserResponse> users = page(0L, null, 10);
+
+        assertThat(users).extracting(UserResponse::getId)
+                .containsExactly(admin.getId(), inactive.getId(), roleless.getId());
+        assertThat(users.get(0).getRoles()).containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+        assertThat(users.get(1).getRoles()).containsExactly("ROLE_USER");
+        // The left join yields one row with a null role: no roles, not a null one
+        assertThat(users.get(2).getRoles()).isEmpty();
+        assertThat(users.get(0).getEmail()).isEqualTo("admin@bank.com");
+        assertThat(users.get(1).isActive()).isFalse();
+    }
+
+    @Test
+    void aNullActiveFilterIsIgnored() {
+        assertThat(page(0L, null, 10)).extracting(UserResponse::getId)
+                .containsExactly(admin.getId(), inactive.getId(), roleless.getId());
+        assertThat(page(0L, true, 10)).extracting(UserResponse::getId)
+                .containsExactly(admin.getId(), roleless.getId());
+        assertThat(page(0L, false, 10)).extracting(UserResponse::getId)
+                .containsExactly(inactive.getId());
+    }
+
+    @Test
+    void theLimitCountsUsersNotRoleRows() {
+        // Three rows (admin twice), two users
+        List<UserResponse> first = page(0L, null, 2);
+        assertThat(first).extracting(UserResponse::getId).containsExactly(admin.getId(), inactive.getId());
+        assertThat(first.get(0).getRoles()).hasSize(2);
+
+        assertThat(page(inactive.getId(), null, 2)).extracting(UserResponse::getId)
+                .containsExactly(roleless.getId());
+        // The filter applies before the limit
+        assertThat(page(0L, true, 1)).extracting(UserResponse::getId).containsExactly(admin.getId());
+    }
+
+    @Test
+    void findsOneUserByEmailOrIdWithItsRolesAndVersion() {
+        VersionedUser byEmail = reactiveUserRepository.findByEmail("admin@bank.com").block();
+        assertThat(byEmail).isNotNull();
+        assertThat(byEmail.user().getId()).isEqualTo(admin.getId());
+        assertThat(byEmail.user().getRoles()).containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+        assertThat(byEmail.version()).isEqualTo(admin.getVersion());
+
+        VersionedUser byId = reactiveUserRepository.findById(roleless.getId()).block();
+        assertThat(byId).isNotNull();
+        assertThat(byId.user().getEmail()).isEqualTo("bare@bank.com");
+        assertThat(byId.user().getRoles()).isEmpty();
+
+        assertThat(reactiveUserRepository.findByEmail("nobody@bank.com").blockOptional()).isEmpty();
+        assertThat(reactiveUserRepository.findById(-1L).blockOptional()).isEmpty();
+    }
+
+    private List<UserResponse> page(long afterId, Boolean active, int limit) {
+        return reactiveUserRepository.findPageAfter(afterId, active, limit).collectList().block();
+    }
+
+    private User user(String email, boolean active, RoleName... roles) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setPassword("hash");
+        user.setActive(active);
+        user.setRoles(List.of(roles).stream().map(roleRegistry::get).toList());
+        return userRepository.save(user);
+    }
+}
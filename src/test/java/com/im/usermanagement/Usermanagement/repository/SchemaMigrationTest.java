@@ -0,0 +1,54 @@
+package com.im.usermanagement.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The prod profile builds the schema from the Flyway migrations alone: Hibernate must find every
+// table and column it maps there. Fails when an entity changes without a new migration.
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"})
+class SchemaMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Test
+    void migrationsMatchTheEntities() {
+        assertThat(flyway.info().current().getVersion().getVersion()).isEqualTo("2");
+        assertThat(flyway.info().pending()).isEmpty();
+    }
+
+    @Test
+    void aDatabaseCreatedByDdlAutoWithTheCurrentEntitiesIsAdopted() {
+        // What ddl-auto=update leaves behind: the current schema, no Flyway history
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:schema-adoption-test;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/h2/V1__baseline.sql")).execute(dataSource);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("alter table refresh_tokens add column family_started_at timestamp(6) with time zone not null");
+
+        // As configured in application-prod.properties
+        Flyway adopting = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/h2")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+        adopting.migrate();
+
+        assertThat(adopting.info().current().getVersion().getVersion()).isEqualTo("2");
+        assertThat(jdbc.queryForObject("""
+                select is_nullable from information_schema.columns
+                where table_name = 'REFRESH_TOKENS' and column_name = 'FAMILY_STARTED_AT'
+                """, String.class)).isEqualTo("NO");
+    }
+}
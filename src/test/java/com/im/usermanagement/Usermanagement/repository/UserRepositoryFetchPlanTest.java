@@ -0,0 +1,114 @@
+package com.im.usermanagement.repository;
+
+import com.im.usermanagement.dto.UserResponse;
+import com.im.usermanagement.model.Role;
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.support.SqlStatementCounter;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Guards the fetch plans on UserRepository: each query must cost a fixed number of
+// statements no matter how many users it returns.
+@DataJpaTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.im.usermanagement.support.SqlStatementCounter")
+class UserRepositoryFetchPlanTest {
+
+    private static final int USERS = 25;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long firstId;
+
+    @BeforeEach
+    void seed() {
+        Role userRole = new Role();
+        userRole.setName(RoleName.ROLE_USER);
+        Role adminRole = new Role();
+        adminRole.setName(RoleName.ROLE_ADMIN);
+        roleRepository.saveAll(List.of(userRole, adminRole));
+
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@example.com");
+            user.setFirstName("First" + i);
+            user.setLastName("Last" + i);
+            user.setPassword("hash");
+            user.setRoles(i % 5 == 0 ? List.of(userRole, adminRole) : List.of(userRole));
+            User saved = userRepository.save(user);
+            if (firstId == null) {
+                firstId = saved.getId();
+            }
+        }
+
+        // Start every test from an empty persistence context so nothing is served from memory
+        entityManager.flush();
+        entityManager.clear();
+        SqlStatementCounter.reset();
+    }
+
+    @Test
+    void findByEmailLoadsRolesInOneStatement() {
+        User user = userRepository.findByEmail("user0@example.com").orElseThrow();
+
+        assertThat(user.getRoles()).hasSize(2);
+        assertThat(SqlStatementCounter.count()).isEqualTo(1);
+    }
+
+    @Test
+    void findWithRolesByIdLoadsRolesInOneStatement() {
+        User user = userRepository.findWithRolesById(firstId).orElseThrow();
+
+        assertThat(user.getRoles()).isNotEmpty();
+        assertThat(SqlStatementCounter.count()).isEqualTo(1);
+    }
+
+    @Test
+    void findByIdLeavesRolesUnloaded() {
+        User user = userRepository.findById(firstId).orElseThrow();
+
+        assertThat(Hibernate.isInitialized(user.getRoles())).isFalse();
+        assertThat(SqlStatementCounter.count()).isEqualTo(1);
+    }
+
+    @Test
+    void pageProjectionLoadsRolesOfAllUsersInOneQuery() {
+        List<UserResponse> page = userRepository.findPageAfter(0L, null, null, null, Limit.of(USERS));
+        List<UserRepository.UserRoleRow> roles = userRepository.findRoleNamesByUserIds(
+                page.stream().map(UserResponse::getId).toList());
+
+        assertThat(page).hasSize(USERS);
+        assertThat(roles).hasSize(USERS + USERS / 5);
+        // One select for the page columns, one for the role names of the whole page
+        assertThat(SqlStatementCounter.count()).isEqualTo(2);
+        assertThat(entityManager.unwrap(org.hibernate.Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    void streamJoinsRolesInTheSameStatement() {
+        long withRoles;
+        try (Stream<User> users = userRepository.streamAll(null, null, null)) {
+            withRoles = users.filter(user -> !user.getRoles().isEmpty()).count();
+        }
+
+        assertThat(withRoles).isEqualTo(USERS);
+        assertThat(SqlStatementCounter.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,108 @@
+package com.im.usermanagement.repository;
+
+import com.im.usermanagement.config.SecondLevelCacheConfig;
+import com.im.usermanagement.model.Role;
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.support.SqlStatementCounter;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Warm lookups by id and by email must not reach the database, and writes made through
+// the entity must be visible to the next cached read.
+@DataJpaTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.im.usermanagement.support.SqlStatementCounter")
+@Import(SecondLevelCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the cache is only filled by committed transactions
+class UserSecondLevelCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+    private Long userId;
+
+    @BeforeEach
+    void seed() {
+        tx = new TransactionTemplate(transactionManager);
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+        entityManagerFactory.getCache().evictAll();
+
+        Role role = new Role();
+        role.setName(RoleName.ROLE_USER);
+        roleRepository.save(role);
+
+        User user = new User();
+        user.setEmail("cached@example.com");
+        user.setFirstName("Cached");
+        user.setLastName("User");
+        user.setPassword("hash");
+        user.setRoles(List.of(role));
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void warmEmailLookupRunsNoSql() {
+        userRepository.findByNaturalEmail("cached@example.com").orElseThrow();
+        SqlStatementCounter.reset();
+
+        User user = userRepository.findByNaturalEmail("cached@example.com").orElseThrow();
+
+        assertThat(user.getRoles()).extracting(Role::getName).containsExactly(RoleName.ROLE_USER);
+        assertThat(SqlStatementCounter.count()).isZero();
+    }
+
+    @Test
+    void warmIdLookupWithRolesRunsNoSql() {
+        loadWithRoles();
+        SqlStatementCounter.reset();
+
+        User user = loadWithRoles();
+
+        assertThat(user.getRoles()).hasSize(1);
+        assertThat(SqlStatementCounter.count()).isZero();
+    }
+
+    @Test
+    void entityUpdateRefreshesTheCachedCopy() {
+        userRepository.findByNaturalEmail("cached@example.com").orElseThrow();
+
+        tx.executeWithoutResult(status -> userRepository.findById(userId).orElseThrow().setFirstName("Renamed"));
+        SqlStatementCounter.reset();
+
+        assertThat(userRepository.findByNaturalEmail("cached@example.com").orElseThrow().getFirstName())
+                .isEqualTo("Renamed");
+        assertThat(SqlStatementCounter.count()).isZero();
+    }
+
+    private User loadWithRoles() {
+        return tx.execute(status -> {
+            User user = userRepository.findById(userId).orElseThrow();
+            Hibernate.initialize(user.getRoles());
+            return user;
+        });
+    }
+}
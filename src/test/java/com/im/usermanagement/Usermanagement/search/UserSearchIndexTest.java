@@ -0,0 +1,163 @@
+package com.im.usermanagement.search;
+
+import com.im.usermanagement.dto.UserPage;
+import com.im.usermanagement.dto.UserResponse;
+import com.im.usermanagement.dto.UserSearchHit;
+import com.im.usermanagement.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The index without Spring: outside a transaction, changes apply immediately.
+class UserSearchIndexTest {
+
+    private final UserSearchIndex index = new UserSearchIndex(20_000, 2_000, new SimpleMeterRegistry());
+
+    @Test
+    void ranksExactOverPrefixOverTypoAndRequiresEveryToken() {
+        index.put(user(1L, "jsmithson@bank.com", "Jane", "Smithson"));
+        index.put(user(2L, "john.smith@bank.com", "John", "Smith"));
+        index.put(user(3L, "a.smyth@bank.com", "Anna", "Smyth"));
+        index.put(user(4L, "zoe@bank.com", "Zoë", "Brown"));
+
+        assertThat(ids(index.search("smith", null, 10))).containsExactly(2L, 1L, 3L);
+        assertThat(ids(index.search("smi", null, 10))).containsExactly(2L, 1L);
+        assertThat(ids(index.search("jo smith", null, 10))).containsExactly(2L);
+        assertThat(ids(index.search("john.smith@b", null, 10))).containsExactly(2L);
+        assertThat(ids(index.search("zoe", null, 10))).containsExactly(4L);
+        assertThat(ids(index.search("smith nobody", null, 10))).isEmpty();
+    }
+
+    @Test
+    void pagesThroughTheRankingWithACursor() {
+        for (long id = 1; id <= 5; id++) {
+            index.put(user(id, "user" + id + "@bank.com", "Mary", "Jones"));
+        }
+
+        UserPage<UserSearchHit> first = index.search("mary", null, 2);
+        UserPage<UserSearchHit> last = index.search("mary", index.search("mary", first.getNextCursor(), 2).getNextCursor(), 2);
+
+        assertThat(ids(first)).containsExactly(1L, 2L);
+        assertThat(ids(last)).containsExactly(5L);
+        assertThat(last.getNextCursor()).isNull();
+    }
+
+    @Test
+    void updatesAndRemovalsReplaceWhatWasIndexed() {
+        index.put(user(1L, "kim@bank.com", "Kim", "Taylor"));
+        index.put(user(1L, "kim@bank.com", "Kim", "Walker"));
+        index.put(user(2L, "sam@bank.com", "Sam", "Walker"));
+        index.remove(2L);
+
+        assertThat(ids(index.search("taylor", null, 10))).isEmpty();
+        assertThat(ids(index.search("walker", null, 10))).containsExactly(1L);
+        // The old name's typo entries are gone as well
+        assertThat(ids(index.search("tailor", null, 10))).isEmpty();
+    }
+
+    @Test
+    void seedingDoesNotOverwriteChangesMadeWhileItRuns() {
+        index.loadStarted();
+        index.put(user(1L, "ann@bank.com", "Ann", "Newname"));
+        index.remove(2L);
+        index.load(List.of(
+                new UserResponse(1L, "ann@bank.com", "Ann", "Oldname", true),
+                new UserResponse(2L, "bob@bank.com", "Bob", "Deleted", true),
+                new UserResponse(3L, "cat@bank.com", "Cat", "Loaded", true)));
+        index.loadFinished(true);
+
+        assertThat(ids(index.search("oldname", null, 10))).isEmpty();
+        assertThat(ids(index.search("newname", null, 10))).containsExactly(1L);
+        assertThat(ids(index.search("bob", null, 10))).isEmpty();
+        assertThat(ids(index.search("cat", null, 10))).containsExactly(3L);
+        assertThat(index.isReady()).isTrue();
+    }
+
+    @Test
+    void aFailedSeedingKeepsServingLiveUpdatesButIsNotReady() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UserSearchIndex partial = new UserSearchIndex(20_000, 2_000, meterRegistry);
+
+        partial.loadStarted();
+        partial.load(List.of(new UserResponse(1L, "ann@bank.com", "Ann", "Loaded", true)));
+        partial.loadFinished(false);
+        partial.put(user(2L, "bob@bank.com", "Bob", "Live"));
+
+        assertThat(ids(partial.search("loaded", null, 10))).containsExactly(1L);
+        assertThat(ids(partial.search("live", null, 10))).containsExactly(2L);
+        assertThat(partial.isReady()).isFalse();
+        assertThat(meterRegistry.get("search.index.ready").gauge().value()).isZero();
+        assertThat(meterRegistry.get("search.index.load.failures").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void aReconcileAppliesWhatOtherInstancesChangedButNotOverThisOnesChanges() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UserSearchIndex local = new UserSearchIndex(20_000, 2_000, meterRegistry);
+        local.put(user(1L, "ann@bank.com", "Ann", "Same"));
+        local.put(user(2L, "bob@bank.com", "Bob", "Before"));
+        local.put(user(3L, "cat@bank.com", "Cat", "Deleted"));
+        local.put(user(4L, "dan@bank.com", "Dan", "Local"));
+
+        // Elsewhere: bob renamed, cat deleted, eve created. Here, meanwhile: dan renamed, fay created
+        local.reconcileStarted();
+        local.put(user(4L, "dan@bank.com", "Dan", "Newer"));
+        local.put(user(6L, "fay@bank.com", "Fay", "Live"));
+        local.reconcile(List.of(
+                new UserResponse(1L, "ann@bank.com", "Ann", "Same", true),
+                new UserResponse(2L, "bob@bank.com", "Bob", "After", true),
+                new UserResponse(4L, "dan@bank.com", "Dan", "Local", true),
+                new UserResponse(5L, "eve@bank.com", "Eve", "Remote", true)));
+        local.reconcileFinished(new long[]{1L, 2L, 4L, 5L}, true);
+
+        assertThat(ids(local.search("before", null, 10))).isEmpty();
+        assertThat(ids(local.search("after", null, 10))).containsExactly(2L);
+        assertThat(ids(local.search("cat", null, 10))).isEmpty();
+        assertThat(ids(local.search("remote", null, 10))).containsExactly(5L);
+        assertThat(ids(local.search("newer", null, 10))).containsExactly(4L);
+        assertThat(ids(local.search("fay", null, 10))).containsExactly(6L);
+        assertThat(ids(local.search("same", null, 10))).containsExactly(1L);
+        // bob, eve and cat
+        assertThat(meterRegistry.get("search.index.reconciled").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void aCompleteReconcileMakesAFailedSeedingReadyButAPartialOneDropsNothing() {
+        UserSearchIndex partial = new UserSearchIndex(20_000, 2_000, new SimpleMeterRegistry());
+        partial.loadStarted();
+        partial.load(List.of(new UserResponse(1L, "ann@bank.com", "Ann", "Loaded", true)));
+        partial.loadFinished(false);
+
+        partial.reconcileStarted();
+        partial.reconcile(List.of());
+        partial.reconcileFinished(new long[0], false);
+
+        assertThat(ids(partial.search("loaded", null, 10))).containsExactly(1L);
+        assertThat(partial.isReady()).isFalse();
+
+        partial.reconcileStarted();
+        partial.reconcile(List.of(
+                new UserResponse(1L, "ann@bank.com", "Ann", "Loaded", true),
+                new UserResponse(2L, "bob@bank.com", "Bob", "Missed", true)));
+        partial.reconcileFinished(new long[]{1L, 2L}, true);
+
+        assertThat(ids(partial.search("missed", null, 10))).containsExactly(2L);
+        assertThat(partial.isReady()).isTrue();
+    }
+
+    private static User user(Long id, String email, String firstName, String lastName) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        return user;
+    }
+
+    private static List<Long> ids(UserPage<UserSearchHit> page) {
+        return page.getItems().stream().map(UserSearchHit::getId).toList();
+    }
+}
@@ -0,0 +1,143 @@
+package com.im.usermanagement.security.jwt;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// No Spring context: rings and providers are built by hand, with the verified-token cache off (0 entries)
+// so every verify goes through the key resolver.
+class JwtTokenProviderTest {
+
+    private static final String KEYSTORE = "classpath:jwt/signing-keys.p12";
+
+    @Test
+    void onlyRs256TokensAreAccepted() {
+        SigningKeyRing ring = new SigningKeyRing(2048, 60_000, 0);
+        JwtTokenProvider provider = provider(ring);
+
+        String hs256 = Jwts.builder()
+                .setHeaderParam("kid", ring.current().kid())
+                .setSubject("alice@bank.com")
+                .signWith(Keys.hmacShaKeyFor(new byte[32]), SignatureAlgorithm.HS256)
+                .compact();
+        assertThatThrownBy(() -> provider.verify(hs256))
+                .isInstanceOf(UnsupportedJwtException.class)
+                .hasMessageContaining("HS256");
+
+        String unsigned = Jwts.builder().setSubject("alice@bank.com").compact();
+        assertThatThrownBy(() -> provider.verify(unsigned)).isInstanceOf(UnsupportedJwtException.class);
+    }
+
+    @Test
+    void tokensSignedWithAKeyOutsideTheRingAreRefused() throws Exception {
+        SigningKeyRing ring = new SigningKeyRing(2048, 60_000, 0);
+        JwtTokenProvider provider = provider(ring);
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair foreign = generator.generateKeyPair();
+        String token = Jwts.builder()
+                .setHeaderParam("kid", "not-a-ring-key")
+                .setSubject("alice@bank.com")
+                .signWith(foreign.getPrivate(), SignatureAlgorithm.RS256)
+                .compact();
+
+        assertThatThrownBy(() -> provider.verify(token))
+                .isInstanceOf(JwtException.class)
+                .hasMessageContaining("Unknown signing key not-a-ring-key");
+    }
+
+    @Test
+    void aRetiredKeyVerifiesUntilItsTokensHaveExpired() {
+        SigningKeyRing ring = new SigningKeyRing(2048, 60_000, 0);
+        JwtTokenProvider provider = provider(ring);
+        String signedBy = ring.current().kid();
+        String token = provider.generateToken(authentication());
+
+        // Signing key retired, and its successor too: both are still inside the one-minute window
+        ring.rotate();
+        ring.rotate();
+
+        assertThat(ring.current().kid()).isNotEqualTo(signedBy);
+        assertThat(ring.verificationKey(signedBy)).isNotNull();
+        assertThat(provider.verify(token).getSubject()).isEqualTo("alice@bank.com");
+    }
+
+    @Test
+    void aRetiredKeyIsDroppedOnceItsOverlapWindowHasPassed() {
+        // Keys are kept 0 ms after retirement, while the provider's tokens live a minute
+        SigningKeyRing ring = new SigningKeyRing(2048, 0, 0);
+        JwtTokenProvider provider = provider(ring);
+        String token = provider.generateToken(authentication());
+
+        ring.rotate();
+
+        assertThatThrownBy(() -> provider.verify(token)).hasMessageContaining("Unknown signing key");
+    }
+
+    @Test
+    void instancesReadingTheSameKeystoreAcceptEachOthersTokens() {
+        SigningKeyRing first = keystoreRing("key-2026-02");
+        SigningKeyRing second = keystoreRing("key-2026-02");
+
+        assertThat(second.current().kid()).isEqualTo(first.current().kid());
+        assertThat(second.jwks()).isEqualTo(first.jwks());
+        assertThat(second.etag()).isEqualTo(first.etag());
+        assertThat(provider(second).verify(provider(first).generateToken(authentication())).getSubject())
+                .isEqualTo("alice@bank.com");
+
+        // An instance still signing with the older key verifies the newer one's tokens, and vice versa
+        SigningKeyRing older = keystoreRing("key-2026-01");
+        assertThat(older.current().kid()).isNotEqualTo(first.current().kid());
+        assertThat(provider(older).verify(provider(first).generateToken(authentication())).getSubject())
+                .isEqualTo("alice@bank.com");
+        assertThat(provider(first).verify(provider(older).generateToken(authentication())).getSubject())
+                .isEqualTo("alice@bank.com");
+    }
+
+    @Test
+    void aKeystoreRingIsNotRotatedInProcess() {
+        SigningKeyRing ring = keystoreRing("key-2026-02");
+        String kid = ring.current().kid();
+        String etag = ring.etag();
+
+        ring.rotate();
+
+        assertThat(ring.current().kid()).isEqualTo(kid);
+        assertThat(ring.etag()).isEqualTo(etag);
+    }
+
+    @Test
+    void aKeystoreWithSeveralKeysNeedsTheSigningAlias() {
+        assertThatThrownBy(() -> keystoreRing(""))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("jwt.signing.keystore.signing-alias");
+    }
+
+    private static SigningKeyRing keystoreRing(String signingAlias) {
+        return new SigningKeyRing(2048, 60_000, 0, KEYSTORE, "changeit", "PKCS12", signingAlias);
+    }
+
+    private static JwtTokenProvider provider(SigningKeyRing ring) {
+        // No TokenVersionStore: the principal is not a User entity, so no version claim is looked up
+        return new JwtTokenProvider(ring, 60_000, 0, null, new SimpleMeterRegistry());
+    }
+
+    private static UsernamePasswordAuthenticationToken authentication() {
+        return new UsernamePasswordAuthenticationToken("alice@bank.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+}
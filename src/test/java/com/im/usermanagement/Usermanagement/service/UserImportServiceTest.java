@@ -0,0 +1,117 @@
+package com.im.usermanagement.service;
+
+import com.im.usermanagement.dto.ImportReport;
+import com.im.usermanagement.dto.ImportRowResult;
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Chunks of 3 rows and at most 3 listed rejections, so a small file crosses both limits.
+// No second-level cache: the users table is cleared behind Hibernate's back.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-import-test;DB_CLOSE_DELAY=-1",
+        "app.cache.enabled=false",
+        "users.import.chunk-size=3",
+        "users.import.max-reported-rows=3",
+        "security.password.bcrypt-strength=4"})
+class UserImportServiceTest {
+
+    @Autowired
+    private UserImportService importService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void reset() {
+        jdbcTemplate.execute("delete from refresh_tokens");
+        jdbcTemplate.execute("delete from user_roles");
+        jdbcTemplate.execute("delete from app_user");
+    }
+
+    @Test
+    void countsCreatedRowsAndListsOnlyTheRejectedOnes() throws Exception {
+        User taken = new User();
+        taken.setEmail("taken@bank.com");
+        taken.setFirstName("Taken");
+        taken.setLastName("Already");
+        taken.setPassword("hash");
+        taken.setRoles(List.of(roleRegistry.get(RoleName.ROLE_USER)));
+        userRepository.save(taken);
+
+        String csv = "email,firstName,lastName,password\n"
+                + "a1@bank.com,Ann,One,secret1\n"        // 2: created
+                + "not-an-email,Bad,Row,secret1\n"       // 3: invalid
+                + "a1@bank.com,Ann,Again,secret1\n"      // 4: repeated within its chunk
+                + "taken@bank.com,Tak,En,secret1\n"      // 5: already a user
+                + "a2@bank.com,Ann,Two,secret1\n"        // 6: created, ends the first chunk
+                + "a1@bank.com,Ann,Later,secret1\n"      // 7: repeated from an earlier, committed chunk
+                + "a3@bank.com,Ann,Three,secret1\n"      // 8: created
+                + "a4@bank.com,Ann,Four,secret1\n";      // 9: created
+
+        ImportReport report = importService.importUsers(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), UserImportService.Format.CSV);
+
+        assertThat(report.getTotal()).isEqualTo(8);
+        assertThat(report.getCreated()).isEqualTo(4);
+        assertThat(report.getInvalid()).isEqualTo(1);
+        assertThat(report.getDuplicates()).isEqualTo(3);
+        assertThat(report.getFailed()).isZero();
+        // Only rejections are listed, capped: line 7 is counted but not listed
+        assertThat(report.getRows()).extracting(ImportRowResult::getLine).containsExactly(3L, 4L, 5L);
+        assertThat(report.getRows()).extracting(ImportRowResult::getStatus).containsExactly(
+                ImportRowResult.Status.INVALID, ImportRowResult.Status.DUPLICATE, ImportRowResult.Status.DUPLICATE);
+        assertThat(report.isTruncated()).isTrue();
+
+        assertThat(userRepository.findByEmail("a1@bank.com").orElseThrow().getLastName()).isEqualTo("One");
+        assertThat(userRepository.findByEmail("taken@bank.com").orElseThrow().getFirstName()).isEqualTo("Taken");
+        assertThat(userRepository.count()).isEqualTo(5);
+    }
+
+    @Test
+    void aFailedBatchIsRetriedRowByRow() throws Exception {
+        // Passes validation, but is longer than the column: the chunk's batch insert fails as a whole
+        String tooLong = "x".repeat(300);
+        String ndjson = row("b1@bank.com", "One") + row("b2@bank.com", tooLong) + row("b3@bank.com", "Three");
+
+        ImportReport report = importService.importUsers(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), UserImportService.Format.NDJSON);
+
+        assertThat(report.getTotal()).isEqualTo(3);
+        assertThat(report.getCreated()).isEqualTo(2);
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(report.getDuplicates()).isZero();
+        assertThat(report.getRows()).singleElement().satisfies(row -> {
+            assertThat(row.getLine()).isEqualTo(2);
+            assertThat(row.getStatus()).isEqualTo(ImportRowResult.Status.FAILED);
+            assertThat(row.getMessage()).startsWith("Rejected by the database");
+        });
+        assertThat(report.isTruncated()).isFalse();
+
+        assertThat(userRepository.existsByEmail("b1@bank.com")).isTrue();
+        assertThat(userRepository.existsByEmail("b2@bank.com")).isFalse();
+        assertThat(userRepository.existsByEmail("b3@bank.com")).isTrue();
+    }
+
+    private static String row(String email, String lastName) {
+        return "{\"email\":\"" + email + "\",\"firstName\":\"Bea\",\"lastName\":\"" + lastName
+                + "\",\"password\":\"secret1\"}\n";
+    }
+}
@@ -0,0 +1,98 @@
+package com.im.usermanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.im.usermanagement.dto.UserImportRecord;
+import com.im.usermanagement.exception.InvalidImportException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserRecordReaderTest {
+
+    @Test
+    void csvMapsColumnsByHeaderAndUnquotesFields() throws Exception {
+        String csv = "\uFEFFPassword,lastName,EMAIL,firstName\n"
+                + "secret1,Smith,jane@bank.com,Jane\n"
+                + "\n"
+                + "\"pass,word\",\"O\"\"Neil\", tom@bank.com ,Tom\n"
+                + "x,\"unterminated,sam@bank.com,Sam\n"
+                + "short,Lee\n";
+
+        try (UserRecordReader reader = UserRecordReader.csv(stream(csv))) {
+            UserImportRecord jane = reader.next();
+            assertThat(reader.parseError).isNull();
+            assertThat(jane.getLine()).isEqualTo(2);
+            assertThat(jane.getEmail()).isEqualTo("jane@bank.com");
+            assertThat(jane.getFirstName()).isEqualTo("Jane");
+            assertThat(jane.getLastName()).isEqualTo("Smith");
+            assertThat(jane.getPassword()).isEqualTo("secret1");
+
+            // The blank line is skipped but still counted
+            UserImportRecord tom = reader.next();
+            assertThat(tom.getLine()).isEqualTo(4);
+            assertThat(tom.getEmail()).isEqualTo("tom@bank.com");
+            assertThat(tom.getLastName()).isEqualTo("O\"Neil");
+            assertThat(tom.getPassword()).isEqualTo("pass,word");
+
+            UserImportRecord broken = reader.next();
+            assertThat(broken.getLine()).isEqualTo(5);
+            assertThat(reader.parseError).isEqualTo("Unterminated quoted field");
+
+            // Missing trailing columns come back as null, for validation to reject
+            UserImportRecord shortRow = reader.next();
+            assertThat(reader.parseError).isNull();
+            assertThat(shortRow.getLine()).isEqualTo(6);
+            assertThat(shortRow.getEmail()).isNull();
+
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    void csvWithoutARequiredColumnIsRejectedAsAWhole() throws Exception {
+        try (UserRecordReader reader = UserRecordReader.csv(stream("email,firstName,lastName\na@bank.com,A,B\n"))) {
+            assertThatThrownBy(reader::next)
+                    .isInstanceOf(InvalidImportException.class)
+                    .hasMessageContaining("password");
+        }
+    }
+
+    @Test
+    void ndjsonReadsOneObjectPerLineAndReportsBadLines() throws Exception {
+        String ndjson = "{\"email\":\"jane@bank.com\",\"firstName\":\"Jane\",\"lastName\":\"Smith\",\"password\":\"secret1\",\"extra\":1}\n"
+                + "{\"email\": \n"
+                + "null\n"
+                + "\n"
+                + "{\"email\":\"tom@bank.com\"}\n";
+
+        try (UserRecordReader reader = UserRecordReader.ndjson(stream(ndjson), new ObjectMapper())) {
+            UserImportRecord jane = reader.next();
+            assertThat(reader.parseError).isNull();
+            assertThat(jane.getLine()).isEqualTo(1);
+            assertThat(jane.getEmail()).isEqualTo("jane@bank.com");
+            assertThat(jane.getPassword()).isEqualTo("secret1");
+
+            assertThat(reader.next().getLine()).isEqualTo(2);
+            assertThat(reader.parseError).startsWith("Malformed JSON");
+
+            assertThat(reader.next().getLine()).isEqualTo(3);
+            assertThat(reader.parseError).isEqualTo("Expected a JSON object");
+
+            UserImportRecord tom = reader.next();
+            assertThat(reader.parseError).isNull();
+            assertThat(tom.getLine()).isEqualTo(5);
+            assertThat(tom.getFirstName()).isNull();
+
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,155 @@
+package com.im.usermanagement.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.im.usermanagement.dto.UserFilter;
+import com.im.usermanagement.dto.UserResponse;
+import com.im.usermanagement.model.Role;
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The NDJSON export body as a client reads it, and the email-prefix filter it shares with the listing.
+// No second-level cache: the users table is cleared behind Hibernate's back.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-export-test;DB_CLOSE_DELAY=-1",
+        "app.cache.enabled=false"})
+class UserServiceExportTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void reset() {
+        jdbcTemplate.execute("delete from refresh_tokens");
+        jdbcTemplate.execute("delete from user_roles");
+        jdbcTemplate.execute("delete from app_user");
+    }
+
+    @Test
+    void writesOneJsonObjectPerLineInIdOrder() throws Exception {
+        User ann = save("ann@bank.com", "Ann", true, RoleName.ROLE_USER, RoleName.ROLE_ADMIN);
+        User bob = save("bob@bank.com", "Bob", false, RoleName.ROLE_USER);
+        User cid = save("cid@bank.com", "Cid", true, RoleName.ROLE_USER);
+
+        String body = export(new UserFilter());
+
+        assertThat(body).endsWith("\n");
+        List<JsonNode> lines = lines(body);
+        assertThat(lines).hasSize(3);
+
+        JsonNode first = lines.get(0);
+        assertThat(first.get("id").asLong()).isEqualTo(ann.getId());
+        assertThat(first.get("email").asText()).isEqualTo("ann@bank.com");
+        assertThat(first.get("firstName").asText()).isEqualTo("Ann");
+        assertThat(first.get("lastName").asText()).isEqualTo("Export");
+        assertThat(first.get("active").asBoolean()).isTrue();
+        assertThat(first.get("roles")).extracting(JsonNode::asText)
+                .containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+        // Never part of the response, in the export neither
+        assertThat(first.has("password")).isFalse();
+
+        assertThat(lines.get(1).get("id").asLong()).isEqualTo(bob.getId());
+        assertThat(lines.get(1).get("active").asBoolean()).isFalse();
+        assertThat(lines.get(1).get("roles")).extracting(JsonNode::asText).containsExactly("ROLE_USER");
+        assertThat(lines.get(2).get("id").asLong()).isEqualTo(cid.getId());
+    }
+
+    @Test
+    void appliesTheFiltersAndWritesNothingWhenNoUserMatches() throws Exception {
+        save("ann@bank.com", "Ann", true, RoleName.ROLE_USER, RoleName.ROLE_ADMIN);
+        save("bob@bank.com", "Bob", false, RoleName.ROLE_USER);
+        save("cid@bank.com", "Cid", true, RoleName.ROLE_USER);
+
+        assertThat(lines(export(new UserFilter(true, null, null))))
+                .extracting(line -> line.get("email").asText())
+                .containsExactly("ann@bank.com", "cid@bank.com");
+        assertThat(lines(export(new UserFilter(null, null, RoleName.ROLE_ADMIN))))
+                .extracting(line -> line.get("email").asText())
+                .containsExactly("ann@bank.com");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(userService.exportUsers(new UserFilter(null, "nobody", null), out)).isZero();
+        assertThat(out.size()).isZero();
+    }
+
+    @Test
+    void likeWildcardsInTheEmailPrefixMatchOnlyThemselves() throws Exception {
+        assertThat(new UserFilter(null, "a_b%c\\", null).emailPattern()).isEqualTo("a\\_b\\%c\\\\%");
+        assertThat(new UserFilter(null, "", null).emailPattern()).isNull();
+
+        save("a_b@bank.com", "Under", true, RoleName.ROLE_USER);
+        save("axb@bank.com", "Any", true, RoleName.ROLE_USER);
+        save("a%c@bank.com", "Percent", true, RoleName.ROLE_USER);
+        save("abc@bank.com", "Plain", true, RoleName.ROLE_USER);
+
+        // Unescaped, '_' would also match axb@ and '%' every address starting with 'a'
+        assertThat(lines(export(new UserFilter(null, "a_b", null))))
+                .extracting(line -> line.get("email").asText())
+                .containsExactly("a_b@bank.com");
+        assertThat(lines(export(new UserFilter(null, "a%", null))))
+                .extracting(line -> line.get("email").asText())
+                .containsExactly("a%c@bank.com");
+        // The paged listing uses the same pattern
+        assertThat(userService.getUsersPage(null, 10, new UserFilter(null, "a_", null)).getItems())
+                .extracting(UserResponse::getEmail)
+                .containsExactly("a_b@bank.com");
+    }
+
+    private String export(UserFilter filter) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = userService.exportUsers(filter, out);
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertThat(body.lines()).hasSize((int) written);
+        return body;
+    }
+
+    private List<JsonNode> lines(String body) throws Exception {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+
+    private User save(String email, String firstName, boolean active, RoleName... roles) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName(firstName);
+        user.setLastName("Export");
+        user.setPassword("hash");
+        user.setActive(active);
+        List<Role> userRoles = new ArrayList<>();
+        for (RoleName role : roles) {
+            userRoles.add(roleRegistry.get(role));
+        }
+        user.setRoles(userRoles);
+        return userRepository.save(user);
+    }
+}
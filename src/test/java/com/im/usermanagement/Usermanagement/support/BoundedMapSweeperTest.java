@@ -0,0 +1,49 @@
+package com.im.usermanagement.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedMapSweeperTest {
+
+    private final Map<Integer, Integer> map = new ConcurrentHashMap<>();
+    private final BoundedMapSweeper<Integer, Integer> sweeper = new BoundedMapSweeper<>(map, 16);
+
+    @Test
+    void leavesAMapBelowItsBoundAlone() {
+        fill(15);
+
+        sweeper.makeRoom(value -> true);
+
+        assertThat(map).hasSize(15);
+    }
+
+    @Test
+    void dropsTheExpiredEntriesFirst() {
+        fill(16);
+
+        sweeper.makeRoom(value -> value % 2 == 0);
+
+        assertThat(map).hasSize(8);
+        assertThat(map.values()).allMatch(value -> value % 2 == 1);
+    }
+
+    @Test
+    void dropsAnEighthWhenNothingHasExpired() {
+        fill(16);
+
+        sweeper.makeRoom(value -> false);
+
+        // Room for the insert about to happen, and a few more before the next sweep
+        assertThat(map).hasSize(14);
+    }
+
+    private void fill(int entries) {
+        for (int i = 0; i < entries; i++) {
+            map.put(i, i);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.im.usermanagement.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hibernate StatementInspector that counts every SQL statement Hibernate prepares.
+ * Register it with
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector=com.im.usermanagement.support.SqlStatementCounter}
+ * and assert on {@link #count()} to catch N+1 regressions.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.incrementAndGet();
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.set(0);
+    }
+
+    public static int count() {
+        return COUNT.get();
+    }
+}
@@ -0,0 +1,21 @@
+package com.im.usermanagement.support;
+
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.security.jwt.JwtTokenProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+/**
+ * Access tokens for MockMvc tests, minted the way login does it (roles, user id and token version
+ * taken from the user at that moment), without going through the password check.
+ */
+public final class TestTokens {
+
+    private TestTokens() {
+    }
+
+    // Value for the Authorization header
+    public static String bearer(JwtTokenProvider tokenProvider, User user) {
+        return "Bearer " + tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
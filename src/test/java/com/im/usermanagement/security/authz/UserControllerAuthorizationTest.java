@@ -0,0 +1,151 @@
+package com.im.usermanagement.security.authz;
+
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.repository.UserRepository;
+import com.im.usermanagement.security.jwt.JwtTokenProvider;
+import com.im.usermanagement.security.service.TokenVersionStore;
+import com.im.usermanagement.service.RoleRegistry;
+import com.im.usermanagement.support.TestTokens;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The @PreAuthorize rules of UserController, with real tokens for stored users.
+// No second-level cache: the tables are cleared behind Hibernate's back.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-controller-authorization-test;DB_CLOSE_DELAY=-1",
+        "app.cache.enabled=false"})
+@AutoConfigureMockMvc
+class UserControllerAuthorizationTest {
+
+    private static final String RENAME = "{\"firstName\":\"New\",\"lastName\":\"Name\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private TokenVersionStore tokenVersions;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User alice;
+    private User bob;
+    private User admin;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("delete from refresh_tokens");
+        jdbcTemplate.execute("delete from user_roles");
+        jdbcTemplate.execute("delete from app_user");
+        alice = user("alice@bank.com", RoleName.ROLE_USER);
+        bob = user("bob@bank.com", RoleName.ROLE_USER);
+        admin = user("admin@bank.com", RoleName.ROLE_USER, RoleName.ROLE_ADMIN);
+    }
+
+    @Test
+    void aUserCannotListCreateOrDeleteUsers() throws Exception {
+        String token = TestTokens.bearer(tokenProvider, alice);
+
+        mockMvc.perform(get("/api/v1/users").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/v1/users").header(HttpHeaders.AUTHORIZATION, token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"carol@bank.com\",\"firstName\":\"Carol\",\"lastName\":\"C\",\"password\":\"x\"}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/v1/users/{id}", bob.getId()).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isForbidden());
+        // Not even themselves
+        mockMvc.perform(delete("/api/v1/users/{id}", alice.getId()).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void aUserReadsAndUpdatesThemselvesOnly() throws Exception {
+        String token = TestTokens.bearer(tokenProvider, alice);
+
+        mockMvc.perform(get("/api/v1/users/{id}", alice.getId()).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/v1/users/{id}", alice.getId()).header(HttpHeaders.AUTHORIZATION, token)
+                        .contentType(MediaType.APPLICATION_JSON).content(RENAME))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName").value("New"));
+
+        mockMvc.perform(get("/api/v1/users/{id}", bob.getId()).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/api/v1/users/{id}", bob.getId()).header(HttpHeaders.AUTHORIZATION, token)
+                        .contentType(MediaType.APPLICATION_JSON).content(RENAME))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void anAdminMayDoEverything() throws Exception {
+        String token = TestTokens.bearer(tokenProvider, admin);
+
+        mockMvc.perform(get("/api/v1/users").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/users/{id}", bob.getId()).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/v1/users/{id}", bob.getId()).header(HttpHeaders.AUTHORIZATION, token)
+                        .contentType(MediaType.APPLICATION_JSON).content(RENAME))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/v1/users/{id}", bob.getId()).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void permissionsMintedBeforeARoleChangeStopWorkingOnceTheTokensAreRevoked() throws Exception {
+        String staleToken = TestTokens.bearer(tokenProvider, admin);
+
+        admin.setRoles(List.of(roleRegistry.get(RoleName.ROLE_USER)));
+        admin = userRepository.save(admin);
+
+        // The token carries its own permission bits: the demotion alone changes nothing for it...
+        mockMvc.perform(get("/api/v1/users").header(HttpHeaders.AUTHORIZATION, staleToken))
+                .andExpect(status().isOk());
+
+        // ...until the user's tokens are revoked, as every role change does
+        tokenVersions.revokeAll(admin.getId());
+        mockMvc.perform(get("/api/v1/users").header(HttpHeaders.AUTHORIZATION, staleToken))
+                .andExpect(status().isUnauthorized());
+
+        // A token minted now carries the new roles only
+        mockMvc.perform(get("/api/v1/users").header(HttpHeaders.AUTHORIZATION, TestTokens.bearer(tokenProvider, admin)))
+                .andExpect(status().isForbidden());
+    }
+
+    private User user(String email, RoleName... roles) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setPassword("hash");
+        user.setRoles(List.of(roles).stream().map(roleRegistry::get).toList());
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,66 @@
+package com.im.usermanagement.security;
+
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.security.jwt.JwtTokenProvider;
+import com.im.usermanagement.service.RoleRegistry;
+import com.im.usermanagement.support.TestTokens;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The actuator shares the application port here (no management.server.port): only health is public.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:actuator-security-test;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class ActuatorSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Test
+    void healthIsPublic() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void metricsNeedAToken() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void metricsAreForAdminsOnly() throws Exception {
+        String user = TestTokens.bearer(tokenProvider, user(1L, RoleName.ROLE_USER));
+        String admin = TestTokens.bearer(tokenProvider, user(2L, RoleName.ROLE_USER, RoleName.ROLE_ADMIN));
+
+        mockMvc.perform(get("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, user))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, user))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, admin))
+                .andExpect(status().isOk());
+    }
+
+    // Not stored: a token only needs the id, and an unknown id has token version 0
+    private User user(Long id, RoleName... roles) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("user" + id + "@bank.com");
+        user.setRoles(List.of(roles).stream().map(roleRegistry::get).toList());
+        return user;
+    }
+}
@@ -0,0 +1,162 @@
+package com.im.usermanagement.security.crypto;
+
+import com.im.usermanagement.exception.GlobalExceptionHandler;
+import com.im.usermanagement.exception.HashingCapacityExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// One pool thread held by a delegate that hashes only once released, so the pool's saturation is deterministic.
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch hashing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> hashed = new CopyOnWriteArrayList<>();
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void aFullQueueIsRefusedAtOnce() throws Exception {
+        encoder = new BoundedPasswordEncoder(slowDelegate(), 1, 1, 10_000, meterRegistry);
+
+        Future<String> running = callers.submit(() -> encoder.encode("first"));
+        assertThat(hashing.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<String> queued = callers.submit(() -> encoder.encode("second"));
+        awaitQueueDepth(1);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> encoder.encode("third"))
+                .isInstanceOf(HashingCapacityExceededException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_000);
+        assertThat(rejected()).isEqualTo(1.0);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash:first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash:second");
+        assertThat(hashed).containsExactly("first", "second");
+    }
+
+    @Test
+    void aTaskWaitingLongerThanMaxWaitIsRefusedAndNeverRuns() throws Exception {
+        encoder = new BoundedPasswordEncoder(slowDelegate(), 1, 1, 200, meterRegistry);
+
+        Future<String> running = callers.submit(() -> encoder.encode("first"));
+        assertThat(hashing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> encoder.encode("second"))
+                .isInstanceOf(HashingCapacityExceededException.class);
+        assertThat(queueDepth()).isZero();
+
+        // The running hash's caller gave up too, but its hash is not interrupted
+        assertThatThrownBy(() -> running.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(HashingCapacityExceededException.class);
+        assertThat(rejected()).isEqualTo(2.0);
+
+        release.countDown();
+        assertThat(encoder.encode("third")).isEqualTo("hash:third");
+        assertThat(hashed).containsExactly("first", "third");
+    }
+
+    @Test
+    void aRefusalIsAnsweredWith503AndRetryAfter() throws Exception {
+        encoder = new BoundedPasswordEncoder(slowDelegate(), 1, 1, 10_000, meterRegistry);
+        callers.submit(() -> encoder.encode("first"));
+        assertThat(hashing.await(5, TimeUnit.SECONDS)).isTrue();
+        callers.submit(() -> encoder.encode("second"));
+        awaitQueueDepth(1);
+
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new HashingController(encoder))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        mockMvc.perform(post("/hash"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+        assertThat(rejected()).isEqualTo(1.0);
+    }
+
+    private PasswordEncoder slowDelegate() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                hashing.countDown();
+                try {
+                    // Like BCrypt: deaf to interrupts, it only finishes when released
+                    while (!release.await(10, TimeUnit.SECONDS)) {
+                        // keep waiting
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                hashed.add(rawPassword.toString());
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+    }
+
+    private void awaitQueueDepth(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queueDepth() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(queueDepth()).isEqualTo(expected);
+    }
+
+    private double queueDepth() {
+        return meterRegistry.get("password.hash.queue.depth").gauge().value();
+    }
+
+    private double rejected() {
+        return meterRegistry.get("password.hash.rejected").counter().count();
+    }
+
+    @RestController
+    static class HashingController {
+
+        private final PasswordEncoder encoder;
+
+        HashingController(PasswordEncoder encoder) {
+            this.encoder = encoder;
+        }
+
+        @PostMapping("/hash")
+        String hash() {
+            return encoder.encode("third");
+        }
+    }
+}
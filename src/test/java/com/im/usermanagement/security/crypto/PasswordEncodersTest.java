@@ -0,0 +1,59 @@
+package com.im.usermanagement.security.crypto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Low costs throughout: the checks are about which hashes get upgraded, not about their strength.
+class PasswordEncodersTest {
+
+    @Test
+    void unprefixedAndCheaperBcryptHashesAreUpgraded() {
+        PasswordEncoder encoder = PasswordEncoders.delegating(PasswordEncoders.BCRYPT, 5, 1024, 1, 1000);
+
+        String legacy = new BCryptPasswordEncoder(5).encode("secret-1");
+        String cheaper = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("secret-1");
+        String current = encoder.encode("secret-1");
+
+        assertThat(encoder.matches("secret-1", legacy)).isTrue();
+        assertThat(encoder.upgradeEncoding(legacy)).isTrue();
+        assertThat(encoder.matches("secret-1", cheaper)).isTrue();
+        assertThat(encoder.upgradeEncoding(cheaper)).isTrue();
+        assertThat(current).startsWith("{bcrypt}$2a$05$");
+        assertThat(encoder.upgradeEncoding(current)).isFalse();
+    }
+
+    @Test
+    void pbkdf2HashesRecordTheirIterationsAndAreUpgradedWhenTheSettingRises() {
+        PasswordEncoder before = PasswordEncoders.delegating(PasswordEncoders.PBKDF2, 4, 1024, 1, 1000);
+        PasswordEncoder after = PasswordEncoders.delegating(PasswordEncoders.PBKDF2, 4, 1024, 1, 2000);
+
+        String old = before.encode("secret-1");
+        assertThat(old).startsWith("{pbkdf2}1000$");
+        assertThat(before.upgradeEncoding(old)).isFalse();
+
+        // Still verifies with the count it was made with, and asks to be re-hashed
+        assertThat(after.matches("secret-1", old)).isTrue();
+        assertThat(after.matches("wrong", old)).isFalse();
+        assertThat(after.upgradeEncoding(old)).isTrue();
+
+        String rehashed = after.encode("secret-1");
+        assertThat(rehashed).startsWith("{pbkdf2}2000$");
+        assertThat(after.matches("secret-1", rehashed)).isTrue();
+        assertThat(after.upgradeEncoding(rehashed)).isFalse();
+    }
+
+    @Test
+    void pbkdf2HashesWithoutACountAreVerifiedWithTheSettingAndUpgraded() {
+        PasswordEncoder encoder = PasswordEncoders.delegating(PasswordEncoders.PBKDF2, 4, 1024, 1, 1000);
+        String uncounted = "{pbkdf2}" + new Pbkdf2PasswordEncoder("", 16, 1000,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256).encode("secret-1");
+
+        assertThat(encoder.matches("secret-1", uncounted)).isTrue();
+        assertThat(encoder.upgradeEncoding(uncounted)).isTrue();
+        assertThat(encoder.matches("secret-1", "{pbkdf2}x$00")).isFalse();
+    }
+}
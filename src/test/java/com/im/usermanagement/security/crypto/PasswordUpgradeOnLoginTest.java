@@ -0,0 +1,71 @@
+package com.im.usermanagement.security.crypto;
+
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.repository.UserRepository;
+import com.im.usermanagement.service.RoleRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A hash stored before prefixes (plain BCrypt, lower cost than configured) is rewritten by one login.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:password-upgrade-test;DB_CLOSE_DELAY=-1",
+        "security.password.encoder=bcrypt",
+        "security.password.bcrypt-strength=5"})
+@AutoConfigureMockMvc
+class PasswordUpgradeOnLoginTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void aLegacyHashIsRewrittenOnTheNextSuccessfulLogin() throws Exception {
+        User user = new User();
+        user.setEmail("legacy@bank.com");
+        user.setFirstName("Lee");
+        user.setLastName("Gacy");
+        user.setPassword(new BCryptPasswordEncoder(4).encode("secret-1"));
+        user.setRoles(List.of(roleRegistry.get(RoleName.ROLE_USER)));
+        userRepository.save(user);
+
+        login("legacy@bank.com", "secret-1");
+
+        String stored = storedHash("legacy@bank.com");
+        assertThat(stored).startsWith("{bcrypt}$2a$05$");
+
+        // The new hash works, and is not rewritten again
+        login("legacy@bank.com", "secret-1");
+        assertThat(storedHash("legacy@bank.com")).isEqualTo(stored);
+    }
+
+    private void login(String email, String password) throws Exception {
+        mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + email + "\",\"password\":\"" + password + "\"}"))
+                .andExpect(status().isOk());
+    }
+
+    private String storedHash(String email) {
+        return jdbcTemplate.queryForObject("select password from app_user where email = ?", String.class, email);
+    }
+}
@@ -0,0 +1,67 @@
+package com.im.usermanagement.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The limiters take the clock as an argument, so time is simulated here instead of slept through.
+class LoginLimitsTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    void bucketAllowsBurstThenRefillsAtRate() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 6, 100, MINUTE, 0);
+
+        assertThat(limiter.tryAcquire("10.0.0.1", 0)).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1", 0)).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1", 0)).isZero();
+        // Empty: the next token is 10s away (6 per minute)
+        assertThat(limiter.tryAcquire("10.0.0.1", 0)).isBetween(9 * SECOND, 10 * SECOND);
+        // Other keys have their own bucket
+        assertThat(limiter.tryAcquire("10.0.0.2", 0)).isZero();
+
+        assertThat(limiter.tryAcquire("10.0.0.1", 10 * SECOND)).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1", 10 * SECOND)).isPositive();
+    }
+
+    @Test
+    void idleBucketsAreEvicted() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 6, 100, MINUTE, 0);
+        limiter.tryAcquire("10.0.0.1", 0);
+        limiter.tryAcquire("10.0.0.2", 50 * SECOND);
+
+        assertThat(limiter.evictIdle(61 * SECOND)).isEqualTo(1);
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+
+    @Test
+    void repeatedFailuresLockTheAccountUntilTheLockExpires() {
+        LoginFailureTracker tracker = new LoginFailureTracker(3, 5 * MINUTE, 15 * MINUTE, 100);
+
+        assertThat(tracker.recordFailure("alice@example.com", 0)).isFalse();
+        assertThat(tracker.recordFailure("alice@example.com", SECOND)).isFalse();
+        assertThat(tracker.recordFailure("alice@example.com", 2 * SECOND)).isTrue();
+
+        assertThat(tracker.lockedFor("alice@example.com", 2 * SECOND)).isEqualTo(15 * MINUTE);
+        assertThat(tracker.lockedFor("bob@example.com", 2 * SECOND)).isZero();
+        assertThat(tracker.lockedFor("alice@example.com", 2 * SECOND + 15 * MINUTE)).isZero();
+    }
+
+    @Test
+    void failuresOutsideTheWindowOrBeforeASuccessDoNotCount() {
+        LoginFailureTracker tracker = new LoginFailureTracker(3, 5 * MINUTE, 15 * MINUTE, 100);
+
+        tracker.recordFailure("alice@example.com", 0);
+        tracker.recordFailure("alice@example.com", 0);
+        // Two windows later the old failures have fully slid out
+        assertThat(tracker.recordFailure("alice@example.com", 10 * MINUTE)).isFalse();
+
+        tracker.reset("alice@example.com");
+        tracker.recordFailure("alice@example.com", 10 * MINUTE);
+        assertThat(tracker.recordFailure("alice@example.com", 10 * MINUTE)).isFalse();
+    }
+}
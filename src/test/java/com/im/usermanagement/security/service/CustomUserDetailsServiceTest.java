@@ -0,0 +1,84 @@
+package com.im.usermanagement.security.service;
+
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.repository.UserRepository;
+import com.im.usermanagement.service.RoleRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Login lookups with the second-level cache on. Rows changed with SQL are what a write committed
+// through another instance looks like to this one's cache. Every test has its own user.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:user-details-service-test;DB_CLOSE_DELAY=-1")
+class CustomUserDetailsServiceTest {
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void aDeactivationAndDemotionMadeElsewhereIsSeenByTheNextLogin() {
+        User admin = user(RoleName.ROLE_USER, RoleName.ROLE_ADMIN);
+        assertThat(authorities(userDetailsService.loadUserByUsername(admin.getEmail())))
+                .containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+
+        jdbcTemplate.update("""
+                delete from user_roles
+                where user_id = ? and role_id = (select id from roles where name = 'ROLE_ADMIN')
+                """, admin.getId());
+        jdbcTemplate.update("update app_user set is_active = false, version = version + 1 where id = ?", admin.getId());
+
+        UserDetails details = userDetailsService.loadUserByUsername(admin.getEmail());
+        assertThat(details.isEnabled()).isFalse();
+        assertThat(authorities(details)).containsExactly("ROLE_USER");
+        // The stale copy was dropped from the cache, not just bypassed
+        assertThat(userRepository.findByNaturalEmail(admin.getEmail()).orElseThrow().isEnabled()).isFalse();
+    }
+
+    @Test
+    void anEmailChangedElsewhereNoLongerLogsIn() {
+        User user = user(RoleName.ROLE_USER);
+        userDetailsService.loadUserByUsername(user.getEmail());
+
+        String renamed = UUID.randomUUID() + "@bank.com";
+        jdbcTemplate.update("update app_user set email = ?, version = version + 1 where id = ?", renamed, user.getId());
+
+        assertThatThrownBy(() -> userDetailsService.loadUserByUsername(user.getEmail()))
+                .isInstanceOf(UsernameNotFoundException.class);
+        assertThat(userDetailsService.loadUserByUsername(renamed).getUsername()).isEqualTo(renamed);
+    }
+
+    private User user(RoleName... roles) {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@bank.com");
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setPassword("hash");
+        user.setRoles(List.of(roles).stream().map(roleRegistry::get).toList());
+        return userRepository.save(user);
+    }
+
+    private static List<String> authorities(UserDetails details) {
+        return details.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+    }
+}
@@ -0,0 +1,216 @@
+package com.im.usermanagement.security.service;
+
+import com.im.usermanagement.model.RoleName;
+import com.im.usermanagement.model.User;
+import com.im.usermanagement.repository.UserRepository;
+import com.im.usermanagement.service.RoleRegistry;
+import com.im.usermanagement.service.UserService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Families end one day after the login (tokens alone would last 14 days), so the cap is visible.
+// No second-level cache: the tables are cleared behind Hibernate's back.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:refresh-token-rotation-test;DB_CLOSE_DELAY=-1",
+        "app.cache.enabled=false",
+        "jwt.refresh.max-lifetime-ms=86400000",
+        "security.password.bcrypt-strength=4"})
+@AutoConfigureMockMvc
+class RefreshTokenRotationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void reset() {
+        jdbcTemplate.execute("delete from refresh_tokens");
+        jdbcTemplate.execute("delete from user_roles");
+        jdbcTemplate.execute("delete from app_user");
+    }
+
+    @Test
+    void loginIssuesATokenThatRotatesOnceIntoANewOne() throws Exception {
+        User user = user("rotate@bank.com");
+        String first = login("rotate@bank.com");
+
+        assertThat(liveTokens(user)).isEqualTo(1);
+        // The family's end caps the first token already
+        assertThat(jdbcTemplate.queryForObject(
+                "select datediff('SECOND', family_started_at, expires_at) from refresh_tokens where user_id = ?",
+                Long.class, user.getId())).isEqualTo(86_400L);
+
+        String second = refresh(first);
+        assertThat(second).isNotEqualTo(first);
+        String third = refresh(second);
+        assertThat(third).isNotEqualTo(second);
+
+        // Every rotation carries the login time over
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(distinct family_started_at) from refresh_tokens where user_id = ?",
+                Integer.class, user.getId())).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from refresh_tokens where user_id = ? and rotated_at is null",
+                Integer.class, user.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesTheWholeFamily() throws Exception {
+        User user = user("reuse@bank.com");
+        String first = login("reuse@bank.com");
+        String second = refresh(first);
+
+        rejected(first, "Refresh token has already been used");
+
+        // Committed although rotate threw: the newest token of the family is dead too
+        assertThat(liveTokens(user)).isZero();
+        rejected(second, "Refresh token has been revoked");
+    }
+
+    @Test
+    void twoConcurrentRotationsHaveOneWinnerAndRevokeTheFamily() throws Exception {
+        User user = user("race@bank.com");
+        String token = login("race@bank.com");
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<MvcResult>> calls = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                calls.add(pool.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(post("/api/auth/refresh").contentType(MediaType.APPLICATION_JSON)
+                            .content(refreshBody(token))).andReturn();
+                }));
+            }
+            start.countDown();
+
+            List<Integer> statuses = new ArrayList<>();
+            String winner = null;
+            for (Future<MvcResult> call : calls) {
+                MvcResult result = call.get();
+                statuses.add(result.getResponse().getStatus());
+                if (result.getResponse().getStatus() == 200) {
+                    winner = JsonPath.read(result.getResponse().getContentAsString(), "$.refreshToken");
+                }
+            }
+            assertThat(statuses).containsExactlyInAnyOrder(200, 401);
+
+            // The loser counts as a reuse: what the winner got is revoked with the rest
+            assertThat(liveTokens(user)).isZero();
+            rejected(winner, "Refresh token has been revoked");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void anExpiredTokenIsRefused() throws Exception {
+        User user = user("expired@bank.com");
+        String token = login("expired@bank.com");
+        jdbcTemplate.update("update refresh_tokens set expires_at = dateadd('SECOND', -1, current_timestamp) "
+                + "where user_id = ?", user.getId());
+
+        rejected(token, "Refresh token has expired");
+    }
+
+    @Test
+    void aFamilyPastItsMaximumLifetimeIsRefusedEvenIfItsTokenIsNot() throws Exception {
+        User user = user("old-family@bank.com");
+        String token = refresh(login("old-family@bank.com"));
+        // Logged in two days ago and rotated since: the token itself is still valid
+        jdbcTemplate.update("update refresh_tokens set family_started_at = dateadd('DAY', -2, current_timestamp) "
+                + "where user_id = ?", user.getId());
+
+        rejected(token, "Refresh token has reached its maximum lifetime, log in again");
+    }
+
+    @Test
+    void deletingTheUserRevokesTheirRefreshTokens() throws Exception {
+        User user = user("deleted@bank.com");
+        String token = login("deleted@bank.com");
+
+        userService.softDeleteUser(user.getId(), null);
+
+        assertThat(liveTokens(user)).isZero();
+        rejected(token, "Refresh token has been revoked");
+    }
+
+    private User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("Rita");
+        user.setLastName("Fresh");
+        user.setPassword(passwordEncoder.encode("secret-1"));
+        user.setRoles(List.of(roleRegistry.get(RoleName.ROLE_USER)));
+        return userRepository.save(user);
+    }
+
+    private String login(String email) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + email + "\",\"password\":\"secret-1\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        return JsonPath.read(result.getResponse().getContentAsString(), "$.refreshToken");
+    }
+
+    private String refresh(String token) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/auth/refresh").contentType(MediaType.APPLICATION_JSON)
+                        .content(refreshBody(token)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").isNotEmpty())
+                .andReturn();
+        return JsonPath.read(result.getResponse().getContentAsString(), "$.refreshToken");
+    }
+
+    private void rejected(String token, String message) throws Exception {
+        mockMvc.perform(post("/api/auth/refresh").contentType(MediaType.APPLICATION_JSON)
+                        .content(refreshBody(token)))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value(message));
+    }
+
+    private int liveTokens(User user) {
+        return jdbcTemplate.queryForObject("select count(*) from refresh_tokens where user_id = ? and revoked = false",
+                Integer.class, user.getId());
+    }
+
+    private static String refreshBody(String token) {
+        return "{\"refreshToken\":\"" + token + "\"}";
+    }
+}